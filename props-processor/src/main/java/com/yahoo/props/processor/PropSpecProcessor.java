@@ -0,0 +1,455 @@
+package com.yahoo.props.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates the accessor class of each interface annotated with {@code com.yahoo.props.annotation.PropSpec}. The
+ * generated class defines all props of the interface in its constructor with a given definer, without reflection
+ * and with type tokens only for generic types, and reads them through final fields and typed getters that inline.
+ * Invalid declarations, e.g. duplicate prop names, are reported as compile errors on the offending method.
+ */
+@SupportedAnnotationTypes({PropSpecProcessor.PROP_SPEC})
+public class PropSpecProcessor extends AbstractProcessor {
+    static final String PROP_SPEC = "com.yahoo.props.annotation.PropSpec";
+    static final String PROP_NAME = "com.yahoo.props.annotation.PropName";
+
+    private static final String PROPS = "com.yahoo.props.";
+
+    // members of the generated class besides the ones per prop
+    private static final Set<String> RESERVED_NAMES = new HashSet<>(Arrays.asList("props", "propAt", "nameOf"));
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : roundEnv.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.INTERFACE) {
+                    error(element, "@PropSpec applies to interfaces only");
+                    continue;
+                }
+                Spec spec = parse((TypeElement) element);
+                if (spec != null) {
+                    write(spec);
+                }
+            }
+        }
+        return true;
+    }
+
+    // null if the interface has errors, all of them reported
+    private Spec parse(TypeElement type) {
+        boolean valid = true;
+        if (!type.getTypeParameters().isEmpty()) {
+            error(type, "@PropSpec interface must not be generic");
+            valid = false;
+        }
+        if (type.getModifiers().contains(Modifier.PRIVATE)) {
+            error(type, "@PropSpec interface must not be private");
+            valid = false;
+        }
+
+        String contextType = null;
+        List<Method> methods = new ArrayList<>();
+        Map<String, Method> byName = new HashMap<>();
+        Map<String, Method> byConstant = new HashMap<>();
+        for (ExecutableElement element : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(type))) {
+            if (isObjectMethod(element) || element.getModifiers().contains(Modifier.STATIC)) {
+                continue;
+            }
+            Method method = new Method(element, propNameOf(element));
+            if (!isValid(method)) {
+                valid = false;
+                continue;
+            }
+            String parameterType = element.getParameters().get(0).asType().toString();
+            if (contextType == null) {
+                contextType = parameterType;
+            } else if (!contextType.equals(parameterType)) {
+                error(element, "Context type " + parameterType + " differs from " + contextType
+                        + " of other prop methods");
+                valid = false;
+            }
+            Method sameName = byName.putIfAbsent(method.propName, method);
+            if (sameName != null) {
+                error(element, "Duplicate prop name \"" + method.propName + "\", also declared by "
+                        + sameName.methodName + "()");
+                valid = false;
+            }
+            Method sameConstant = byConstant.putIfAbsent(method.constant, method);
+            if (sameConstant != null) {
+                error(element, "Constant " + method.constant + "_NAME clashes with the one of "
+                        + sameConstant.methodName + "()");
+                valid = false;
+            }
+            methods.add(method);
+        }
+        if (valid && methods.isEmpty()) {
+            error(type, "@PropSpec interface declares no props");
+            valid = false;
+        }
+        return valid ? new Spec(type, generatedNameOf(type), contextType, methods) : null;
+    }
+
+    private boolean isValid(Method method) {
+        ExecutableElement element = method.element;
+        if (element.getParameters().size() != 1) {
+            error(element, "Prop method must take the context as its only parameter");
+            return false;
+        }
+        if (!element.getTypeParameters().isEmpty()) {
+            error(element, "Prop method must not be generic");
+            return false;
+        }
+        if (!element.getThrownTypes().isEmpty()) {
+            error(element, "Prop method must not declare exceptions");
+            return false;
+        }
+        if (RESERVED_NAMES.contains(method.methodName)) {
+            error(element, "Prop method name " + method.methodName + " is reserved by the generated class");
+            return false;
+        }
+        if (method.propName.isEmpty()) {
+            error(element, "Prop name must not be empty");
+            return false;
+        }
+        TypeMirror returnType = element.getReturnType();
+        switch (returnType.getKind()) {
+            case INT:
+            case LONG:
+            case DOUBLE:
+            case BOOLEAN:
+            case DECLARED:
+            case ARRAY:
+                return true;
+            case BYTE:
+            case SHORT:
+            case CHAR:
+            case FLOAT:
+                error(element, "Primitive prop type " + returnType + " isn't supported, use its boxed type");
+                return false;
+            default:
+                error(element, "Unsupported prop type " + returnType);
+                return false;
+        }
+    }
+
+    private static boolean isObjectMethod(ExecutableElement element) {
+        return ((TypeElement) element.getEnclosingElement()).getQualifiedName().contentEquals("java.lang.Object");
+    }
+
+    private static String propNameOf(ExecutableElement element) {
+        String name = annotationValueOf(element, PROP_NAME);
+        return name != null ? name : element.getSimpleName().toString();
+    }
+
+    private String generatedNameOf(TypeElement type) {
+        String name = annotationValueOf(type, PROP_SPEC);
+        if (name != null && !name.isEmpty()) {
+            return name;
+        }
+        // nested interfaces get their enclosing names so that generated classes don't collide
+        StringBuilder generated = new StringBuilder(type.getSimpleName());
+        for (Element enclosing = type.getEnclosingElement(); enclosing.getKind() != ElementKind.PACKAGE;
+             enclosing = enclosing.getEnclosingElement()) {
+            generated.insert(0, enclosing.getSimpleName() + "_");
+        }
+        return generated.append("Props").toString();
+    }
+
+    private static String annotationValueOf(Element element, String annotationType) {
+        for (AnnotationMirror mirror : element.getAnnotationMirrors()) {
+            if (mirror.getAnnotationType().toString().equals(annotationType)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> entry
+                        : mirror.getElementValues().entrySet()) {
+                    if (entry.getKey().getSimpleName().contentEquals("value")) {
+                        return (String) entry.getValue().getValue();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    private void write(Spec spec) {
+        PackageElement packageElement = processingEnv.getElementUtils().getPackageOf(spec.type);
+        String packageName = packageElement.isUnnamed() ? "" : packageElement.getQualifiedName().toString();
+        String qualifiedName = packageName.isEmpty() ? spec.generatedName : packageName + "." + spec.generatedName;
+        try (Writer writer = processingEnv.getFiler().createSourceFile(qualifiedName, spec.type).openWriter()) {
+            writer.write(new SourceBuilder(spec, packageName).build());
+        } catch (IOException e) {
+            error(spec.type, "Failed to write " + qualifiedName + ": " + e.getMessage());
+        }
+    }
+
+    private void error(Element element, String message) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+
+    static String constantOf(String methodName) {
+        StringBuilder constant = new StringBuilder();
+        for (int i = 0; i < methodName.length(); i++) {
+            char c = methodName.charAt(i);
+            if (Character.isUpperCase(c) && i > 0 && methodName.charAt(i - 1) != '_') {
+                constant.append('_');
+            }
+            constant.append(Character.toUpperCase(c));
+        }
+        return constant.toString();
+    }
+
+    private static String capitalize(String name) {
+        return Character.toUpperCase(name.charAt(0)) + name.substring(1);
+    }
+
+    private static String literalOf(String value) {
+        StringBuilder literal = new StringBuilder("\"");
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                literal.append('\\').append(c);
+            } else if (c < 0x20) {
+                // octal, a unicode escape of a line terminator would end the literal
+                literal.append(String.format("\\%03o", (int) c));
+            } else if (c > 0x7e) {
+                literal.append(String.format("\\u%04x", (int) c));
+            } else {
+                literal.append(c);
+            }
+        }
+        return literal.append('"').toString();
+    }
+
+    private static final class Spec {
+        private final TypeElement  type;
+        private final String       generatedName;
+        private final String       contextType;
+        private final List<Method> methods;
+
+        private Spec(TypeElement type, String generatedName, String contextType, List<Method> methods) {
+            this.type = type;
+            this.generatedName = generatedName;
+            this.contextType = contextType;
+            this.methods = methods;
+        }
+    }
+
+    private static final class Method {
+        private final ExecutableElement element;
+        private final String            methodName;
+        private final String            propName;
+        private final String            constant;
+
+        private Method(ExecutableElement element, String propName) {
+            this.element = element;
+            this.methodName = element.getSimpleName().toString();
+            this.propName = propName;
+            this.constant = constantOf(methodName);
+        }
+
+        private TypeKind kind() {
+            return element.getReturnType().getKind();
+        }
+
+        private String returnType() {
+            return element.getReturnType().toString();
+        }
+
+        private boolean isInitialized() {
+            return element.getModifiers().contains(Modifier.DEFAULT);
+        }
+
+        // the field and accessor types of the prop, and the names of its typed getter and setter
+        private String propType(String contextType) {
+            switch (kind()) {
+                case INT:
+                    return PROPS + "IntProp<" + contextType + ">";
+                case LONG:
+                    return PROPS + "LongProp<" + contextType + ">";
+                case DOUBLE:
+                    return PROPS + "DoubleProp<" + contextType + ">";
+                case BOOLEAN:
+                    return PROPS + "BooleanProp<" + contextType + ">";
+                default:
+                    return PROPS + "Prop<" + contextType + ", " + returnType() + ">";
+            }
+        }
+
+        private String defineCall() {
+            String initializer = isInitialized() ? ", this::init" + capitalize(methodName) : "";
+            switch (kind()) {
+                case INT:
+                    return "definer.defineInt(" + constant + "_NAME" + initializer + ")";
+                case LONG:
+                    return "definer.defineLong(" + constant + "_NAME" + initializer + ")";
+                case DOUBLE:
+                    return "definer.defineDouble(" + constant + "_NAME" + initializer + ")";
+                case BOOLEAN:
+                    return "definer.defineBoolean(" + constant + "_NAME" + initializer + ")";
+                default:
+                    // type tokens only where a class literal can't carry the type arguments
+                    String type = returnType().contains("<")
+                            ? "new com.google.common.reflect.TypeToken<" + returnType() + ">() {}"
+                            : returnType() + ".class";
+                    return "definer.define(" + constant + "_NAME, " + type + initializer + ")";
+            }
+        }
+
+        private String getCall() {
+            switch (kind()) {
+                case INT:
+                    return methodName + ".getAsInt(context, 0)";
+                case LONG:
+                    return methodName + ".getAsLong(context, 0L)";
+                case DOUBLE:
+                    return methodName + ".getAsDouble(context, 0.0)";
+                case BOOLEAN:
+                    return methodName + ".getAsBoolean(context, false)";
+                default:
+                    return methodName + ".getFrom(context)";
+            }
+        }
+
+        private String setCall() {
+            switch (kind()) {
+                case INT:
+                    return methodName + ".setAsInt(context, value)";
+                case LONG:
+                    return methodName + ".setAsLong(context, value)";
+                case DOUBLE:
+                    return methodName + ".setAsDouble(context, value)";
+                case BOOLEAN:
+                    return methodName + ".setAsBoolean(context, value)";
+                default:
+                    return methodName + ".setTo(context, value)";
+            }
+        }
+    }
+
+    private static final class SourceBuilder {
+        private final Spec          spec;
+        private final String        packageName;
+        private final StringBuilder source = new StringBuilder();
+
+        private SourceBuilder(Spec spec, String packageName) {
+            this.spec = spec;
+            this.packageName = packageName;
+        }
+
+        private String build() {
+            String context = spec.contextType;
+            String specName = spec.type.getQualifiedName().toString();
+            String anyProp = PROPS + "Prop<" + context + ", ?>";
+
+            if (!packageName.isEmpty()) {
+                line("package " + packageName + ";").line("");
+            }
+            line("// Generated by " + PropSpecProcessor.class.getName() + " from " + specName + ", do not edit.");
+            line("public final class " + spec.generatedName + " implements " + specName + " {");
+            for (int index = 0; index < spec.methods.size(); index++) {
+                Method method = spec.methods.get(index);
+                line("    public static final String " + method.constant + "_NAME = " + literalOf(method.propName)
+                        + ";");
+                line("    public static final int " + method.constant + "_INDEX = " + index + ";");
+            }
+            line("    public static final int SIZE = " + spec.methods.size() + ";");
+            line("");
+            StringBuilder names = new StringBuilder();
+            for (Method method : spec.methods) {
+                names.append(names.length() == 0 ? "" : ", ").append(method.constant).append("_NAME");
+            }
+            line("    private static final String[] NAMES = {" + names + "};");
+            line("");
+            for (Method method : spec.methods) {
+                line("    private final " + method.propType(context) + " " + method.methodName + ";");
+            }
+            line("    // by index, in declaration order");
+            line("    private final java.util.List<" + anyProp + "> props;");
+            line("");
+
+            line("    public " + spec.generatedName + "(" + PROPS + "PropDefiner<" + context + "> definer) {");
+            line("        java.util.Objects.requireNonNull(definer, \"definer must not be null\");");
+            for (Method method : spec.methods) {
+                line("        this." + method.methodName + " = " + method.defineCall() + ";");
+            }
+            StringBuilder fields = new StringBuilder();
+            for (Method method : spec.methods) {
+                fields.append(fields.length() == 0 ? "" : ", ").append(method.methodName);
+            }
+            line("        this.props = java.util.Collections.unmodifiableList(java.util.Arrays.asList(" + fields
+                    + "));");
+            line("    }");
+
+            line("");
+            line("    public static String nameOf(int index) {");
+            line("        return NAMES[index];");
+            line("    }");
+            line("");
+            line("    public " + anyProp + " propAt(int index) {");
+            line("        return props.get(index);");
+            line("    }");
+            line("");
+            line("    public java.util.List<" + anyProp + "> props() {");
+            line("        return props;");
+            line("    }");
+
+            for (Method method : spec.methods) {
+                String capitalized = capitalize(method.methodName);
+                String type = method.returnType();
+                line("");
+                line("    @Override");
+                line("    public " + type + " " + method.methodName + "(" + context + " context) {");
+                line("        return " + method.getCall() + ";");
+                line("    }");
+                line("");
+                line("    public void set" + capitalized + "(" + context + " context, " + type + " value) {");
+                line("        " + method.setCall() + ";");
+                line("    }");
+                line("");
+                line("    public " + method.propType(context) + " " + method.methodName + "Prop() {");
+                line("        return " + method.methodName + ";");
+                line("    }");
+                if (method.isInitialized()) {
+                    line("");
+                    line("    private " + type + " init" + capitalized + "(" + context + " context) {");
+                    line("        return " + specName + ".super." + method.methodName + "(context);");
+                    line("    }");
+                }
+            }
+            line("}");
+            return source.toString();
+        }
+
+        private SourceBuilder line(String line) {
+            source.append(line).append('\n');
+            return this;
+        }
+    }
+}
@@ -0,0 +1,121 @@
+package com.yahoo.props.processor;
+
+import com.google.common.reflect.TypeToken;
+import com.yahoo.props.PropDefiner;
+import com.yahoo.props.PropStore;
+import org.testng.annotations.Test;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.SimpleJavaFileObject;
+import javax.tools.ToolProvider;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+public class PropSpecProcessorTest {
+
+    @Test
+    public void testGeneratedAccessors() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        ServiceSpecProps props = new ServiceSpecProps(definer);
+        PropStore store = new PropStore();
+
+        assertEquals(ServiceSpecProps.PORT_NAME, "service.port");
+        assertEquals(ServiceSpecProps.SIZE, 5);
+        assertEquals(ServiceSpecProps.nameOf(ServiceSpecProps.TRACE_INDEX), "trace");
+        assertEquals(props.props(), definer.getProps());
+        assertSame(props.propAt(ServiceSpecProps.CNAME_INDEX), props.cnameProp());
+
+        props.setCname(store, "v1.yahooapis.com");
+        props.setPort(store, 4080);
+        assertEquals(props.cname(store), "v1.yahooapis.com");
+        assertEquals(props.port(store), 4080);
+        assertEquals(props.portProp().getFrom(store), (Integer) 4080);
+        assertFalse(props.trace(store));
+
+        // default methods are initializers, reading other props through the generated getters
+        assertEquals(props.replicas(store), Arrays.asList("bf1", "ne1"));
+        assertEquals(props.availability(store), 0.2);
+        props.setReplicas(store, Collections.singletonList("gq1"));
+        assertEquals(props.replicas(store), Collections.singletonList("gq1"));
+        assertEquals(props.availability(store), 0.2);
+    }
+
+    @Test
+    public void testDuplicateNamesFailCompilation() throws IOException {
+        List<Diagnostic<? extends JavaFileObject>> errors = compile("DuplicateSpec", "package sample;\n"
+                + "@com.yahoo.props.annotation.PropSpec\n"
+                + "public interface DuplicateSpec {\n"
+                + "    String user(com.yahoo.props.PropStore store);\n"
+                + "    @com.yahoo.props.annotation.PropName(\"user\")\n"
+                + "    Integer userId(com.yahoo.props.PropStore store);\n"
+                + "}\n");
+
+        assertEquals(errors.size(), 1);
+        assertTrue(errors.get(0).getMessage(null).contains("Duplicate prop name \"user\""));
+        assertEquals(errors.get(0).getLineNumber(), 6);
+    }
+
+    @Test
+    public void testInvalidMethodsFailCompilation() throws IOException {
+        List<Diagnostic<? extends JavaFileObject>> errors = compile("InvalidSpec", "package sample;\n"
+                + "@com.yahoo.props.annotation.PropSpec\n"
+                + "public interface InvalidSpec {\n"
+                + "    String name(com.yahoo.props.PropStore store, int index);\n"
+                + "    float ratio(com.yahoo.props.PropStore store);\n"
+                + "    String label(java.util.Properties properties);\n"
+                + "    String cname(com.yahoo.props.PropStore store);\n"
+                + "}\n");
+
+        assertEquals(errors.size(), 3);
+    }
+
+    private static List<Diagnostic<? extends JavaFileObject>> compile(String name, String source) throws IOException {
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        Path output = Files.createTempDirectory("prop-spec");
+        List<String> options = Arrays.asList("-d", output.toString(), "-classpath", classPathOf(PropDefiner.class,
+                TypeToken.class));
+        JavaFileObject file = new SimpleJavaFileObject(URI.create("string:///sample/" + name + ".java"),
+                JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return source;
+            }
+        };
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, diagnostics, options, null,
+                Collections.singletonList(file));
+        task.setProcessors(Collections.singletonList(new PropSpecProcessor()));
+        task.call();
+
+        List<Diagnostic<? extends JavaFileObject>> errors = new ArrayList<>();
+        for (Diagnostic<? extends JavaFileObject> diagnostic : diagnostics.getDiagnostics()) {
+            if (diagnostic.getKind() == Diagnostic.Kind.ERROR) {
+                errors.add(diagnostic);
+            }
+        }
+        return errors;
+    }
+
+    private static String classPathOf(Class<?>... classes) {
+        List<String> paths = new ArrayList<>();
+        for (Class<?> type : classes) {
+            paths.add(type.getProtectionDomain().getCodeSource().getLocation().getPath());
+        }
+        return String.join(File.pathSeparator, paths);
+    }
+}
@@ -0,0 +1,26 @@
+package com.yahoo.props.processor;
+
+import com.yahoo.props.PropStore;
+import com.yahoo.props.annotation.PropName;
+import com.yahoo.props.annotation.PropSpec;
+
+import java.util.Arrays;
+import java.util.List;
+
+@PropSpec
+public interface ServiceSpec {
+    String cname(PropStore store);
+
+    @PropName("service.port")
+    int port(PropStore store);
+
+    boolean trace(PropStore store);
+
+    default List<String> replicas(PropStore store) {
+        return Arrays.asList("bf1", "ne1");
+    }
+
+    default double availability(PropStore store) {
+        return replicas(store).size() / 10.0;
+    }
+}
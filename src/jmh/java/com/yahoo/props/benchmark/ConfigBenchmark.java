@@ -0,0 +1,76 @@
+package com.yahoo.props.benchmark;
+
+import com.google.common.collect.Sets;
+import com.yahoo.props.samples.config_from_properties.Env;
+import com.yahoo.props.samples.config_from_properties.Region;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+import static com.yahoo.props.samples.config_from_properties.Config.*;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConfigBenchmark {
+    private Properties  configs;
+    private Set<Region> replicasA = Sets.newHashSet(Region.GQ1, Region.NE1);
+    private Set<Region> replicasB = Sets.newHashSet(Region.GQ1, Region.NE1, Region.CH1);
+    private boolean     flip;
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        configs = new Properties();
+        configs.load(new StringReader("cname=v1.yahooapis.com\n"//
+                + "main=GQ1\n"//
+                + "replicas=BF1,NE1\n"//
+                + "port=4080\n"//
+                + "env=stage" //
+        ));
+        AVAILABILITY.getFrom(configs);
+    }
+
+    @Benchmark
+    public String getCname() {
+        return CNAME.getFrom(configs);
+    }
+
+    @Benchmark
+    public Integer getPort() {
+        return PORT.getFrom(configs);
+    }
+
+    @Benchmark
+    public Env getEnv() {
+        return ENV.getFrom(configs);
+    }
+
+    @Benchmark
+    public Set<Region> getReplicas() {
+        return REPLICAS.getFrom(configs);
+    }
+
+    @Benchmark
+    public Double getAvailability() {
+        return AVAILABILITY.getFrom(configs);
+    }
+
+    @Benchmark
+    public void setPort() {
+        PORT.setTo(configs, 4080);
+    }
+
+    @Benchmark
+    public Double resetAvailability() {
+        flip = !flip;
+        REPLICAS.setTo(configs, flip ? replicasA : replicasB);
+        return AVAILABILITY.getFrom(configs);
+    }
+}
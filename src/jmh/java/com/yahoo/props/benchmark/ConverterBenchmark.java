@@ -0,0 +1,100 @@
+package com.yahoo.props.benchmark;
+
+import com.google.common.collect.Sets;
+import com.google.common.reflect.TypeToken;
+import com.yahoo.props.Converters;
+import com.yahoo.props.Prop;
+import com.yahoo.props.PropDefiner;
+import com.yahoo.props.PropDefinerBuilder;
+import com.yahoo.props.samples.config_from_properties.Config;
+import com.yahoo.props.samples.config_from_properties.Env;
+import com.yahoo.props.samples.config_from_properties.Region;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// the sample config's hand-written lambdas against the same props read through the converter registry
+@SuppressWarnings("serial")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ConverterBenchmark {
+    private static final PropDefiner<Properties> DEFINER = PropDefinerBuilder.newBuilder(Properties.class)
+            .setConverters(new Converters(), Properties::getProperty, Properties::setProperty)
+            .build();
+
+    private static final Prop<Properties, String[]>    ROLES    = DEFINER.define("roles", String[].class);
+    private static final Prop<Properties, Set<Region>> REPLICAS = DEFINER.define("replicas",
+            new TypeToken<Set<Region>>() {});
+    private static final Prop<Properties, Integer>     PORT     = DEFINER.define("port", Integer.class);
+    private static final Prop<Properties, Env>         ENV      = DEFINER.define("env", Env.class);
+
+    private Properties  configs;
+    private Set<Region> replicas = Sets.newHashSet(Region.GQ1, Region.NE1, Region.CH1);
+
+    @Setup(Level.Iteration)
+    public void setUp() throws IOException {
+        configs = new Properties();
+        configs.load(new StringReader("roles=admin, reader, writer\n"
+                + "replicas=BF1, NE1, GQ1\n"
+                + "port=4080\n"
+                + "env=stage"));
+    }
+
+    @Benchmark
+    public String[] getRolesByLambda() {
+        return Config.ROLES.getFrom(configs);
+    }
+
+    @Benchmark
+    public String[] getRolesByConverter() {
+        return ROLES.getFrom(configs);
+    }
+
+    @Benchmark
+    public Set<Region> getReplicasByLambda() {
+        return Config.REPLICAS.getFrom(configs);
+    }
+
+    @Benchmark
+    public Set<Region> getReplicasByConverter() {
+        return REPLICAS.getFrom(configs);
+    }
+
+    @Benchmark
+    public void setReplicasByLambda() {
+        Config.REPLICAS.setTo(configs, replicas);
+    }
+
+    @Benchmark
+    public void setReplicasByConverter() {
+        REPLICAS.setTo(configs, replicas);
+    }
+
+    @Benchmark
+    public Integer getPortByLambda() {
+        return Config.PORT.getFrom(configs);
+    }
+
+    @Benchmark
+    public Integer getPortByConverter() {
+        return PORT.getFrom(configs);
+    }
+
+    @Benchmark
+    public Env getEnvByLambda() {
+        return Config.ENV.getFrom(configs);
+    }
+
+    @Benchmark
+    public Env getEnvByConverter() {
+        return ENV.getFrom(configs);
+    }
+}
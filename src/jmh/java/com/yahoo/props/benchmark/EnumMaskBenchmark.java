@@ -0,0 +1,69 @@
+package com.yahoo.props.benchmark;
+
+import com.google.common.collect.Sets;
+import com.google.common.reflect.TypeToken;
+import com.yahoo.props.EnumMask;
+import com.yahoo.props.Prop;
+import com.yahoo.props.PropDefiner;
+import com.yahoo.props.PropStore;
+import com.yahoo.props.samples.config_from_properties.Region;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+// region routing on a Set<Region> prop held as a HashSet versus as an EnumMask
+@SuppressWarnings("serial")
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class EnumMaskBenchmark {
+    private static final PropDefiner<PropStore> DEFINER = PropStore.newDefinerBuilder().build();
+
+    private static final Prop<PropStore, Set<Region>>      SET_REPLICAS      = DEFINER.define("set_replicas",
+            new TypeToken<Set<Region>>() {});
+    private static final Prop<PropStore, Double>           SET_AVAILABILITY  = DEFINER.define("set_availability",
+            Double.class, store -> SET_REPLICAS.getFrom(store).size() / 10.0)
+            .addResetDependency(SET_REPLICAS);
+    private static final Prop<PropStore, EnumMask<Region>> MASK_REPLICAS     = DEFINER.defineEnumMask(
+            "mask_replicas", Region.class);
+    private static final Prop<PropStore, Double>           MASK_AVAILABILITY = DEFINER.define("mask_availability",
+            Double.class, store -> MASK_REPLICAS.getFrom(store).size() / 10.0)
+            .addResetDependency(MASK_REPLICAS);
+
+    private PropStore store;
+    private Region    region = Region.CH1;
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        store = new PropStore();
+        SET_REPLICAS.setTo(store, Sets.newHashSet(Region.GQ1, Region.NE1, Region.CH1));
+        MASK_REPLICAS.setTo(store, EnumMask.of(Region.GQ1, Region.NE1, Region.CH1));
+        SET_AVAILABILITY.getFrom(store);
+        MASK_AVAILABILITY.getFrom(store);
+    }
+
+    @Benchmark
+    public boolean containsInSet() {
+        return SET_REPLICAS.getFrom(store).contains(region);
+    }
+
+    @Benchmark
+    public boolean containsInMask() {
+        return MASK_REPLICAS.getFrom(store).contains(region);
+    }
+
+    // the dependency stamp of the set is recomputed on every read
+    @Benchmark
+    public Double getAvailabilityOfSet() {
+        return SET_AVAILABILITY.getFrom(store);
+    }
+
+    @Benchmark
+    public Double getAvailabilityOfMask() {
+        return MASK_AVAILABILITY.getFrom(store);
+    }
+}
@@ -0,0 +1,92 @@
+package com.yahoo.props.benchmark;
+
+import com.yahoo.props.MappedConfig;
+import com.yahoo.props.Prop;
+import com.yahoo.props.PropDefinerBuilder;
+import com.yahoo.props.samples.config_from_properties.Env;
+import org.openjdk.jmh.annotations.*;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class MappedConfigBenchmark {
+    private static final int KEY_COUNT = 200_000;
+
+    private static final Prop<MappedConfig, String>  MAPPED_CNAME   = MappedConfig.newDefinerBuilder().build()
+            .define("cname", String.class);
+    private static final Prop<MappedConfig, Env>     MAPPED_ENV     = MappedConfig.newDefinerBuilder().build()
+            .define("env", Env.class);
+    private static final Prop<Properties, String>    PROPERTY_CNAME = PropDefinerBuilder.newBuilder(Properties.class)
+            .setObjectGetter(Properties::get)
+            .setObjectSetter(Properties::put)
+            .build()
+            .define("cname", String.class);
+
+    private Path         file;
+    private MappedConfig mapped;
+    private Properties   properties;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        file = Files.createTempFile("mapped-config-benchmark", ".properties");
+        try (BufferedWriter writer = Files.newBufferedWriter(file)) {
+            for (int i = 0; i < KEY_COUNT; i++) {
+                writer.write("region_" + (i % 40) + ".override_" + i + "=value_" + i + "\n");
+            }
+            writer.write("cname=v1.yahooapis.com\nenv=stage\n");
+        }
+        mapped = MappedConfig.open(file);
+        properties = loadProperties();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        Files.delete(file);
+    }
+
+    private Properties loadProperties() throws IOException {
+        Properties properties = new Properties();
+        try (InputStream in = Files.newInputStream(file)) {
+            properties.load(in);
+        }
+        return properties;
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public Properties loadAsProperties() throws IOException {
+        return loadProperties();
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public MappedConfig openMapped() throws IOException {
+        return MappedConfig.open(file);
+    }
+
+    @Benchmark
+    public String getFromProperties() {
+        return PROPERTY_CNAME.getFrom(properties);
+    }
+
+    @Benchmark
+    public String getFromMapped() {
+        return MAPPED_CNAME.getFrom(mapped);
+    }
+
+    @Benchmark
+    public Env getEnumFromMapped() {
+        return MAPPED_ENV.getFrom(mapped);
+    }
+}
@@ -0,0 +1,70 @@
+package com.yahoo.props.benchmark;
+
+import com.yahoo.props.EnumMask;
+import com.yahoo.props.MemoCache;
+import com.yahoo.props.Prop;
+import com.yahoo.props.PropDefiner;
+import com.yahoo.props.PropStore;
+import com.yahoo.props.samples.config_from_properties.Region;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// a derived prop of fresh contexts with few distinct inputs, computed per context versus memoized across contexts
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class MemoCacheBenchmark {
+    private static final PropDefiner<PropStore> DEFINER = PropStore.newDefinerBuilder().build();
+    private static final MemoCache              CACHE   = new MemoCache(1000);
+
+    private static final Prop<PropStore, EnumMask<Region>> REPLICAS      = DEFINER.defineEnumMask("replicas",
+            Region.class);
+    private static final Prop<PropStore, String>           PLAN          = DEFINER.define("plan", String.class,
+            store -> plan(REPLICAS.getFrom(store)))
+            .addResetDependency(REPLICAS);
+    private static final Prop<PropStore, String>           MEMOIZED_PLAN = DEFINER.define("memoized_plan",
+            String.class, store -> plan(REPLICAS.getFrom(store)))
+            .addResetDependency(REPLICAS)
+            .memoize(CACHE);
+
+    private final EnumMask<Region>[] inputs = inputs();
+    private int                      index;
+
+    @SuppressWarnings("unchecked")
+    private static EnumMask<Region>[] inputs() {
+        EnumMask<Region>[] inputs = new EnumMask[16];
+        for (int i = 0; i < inputs.length; i++) {
+            inputs[i] = EnumMask.ofBits(Region.class, i % (1L << Region.values().length));
+        }
+        return inputs;
+    }
+
+    // stands for a derivation of moderate cost
+    private static String plan(EnumMask<Region> replicas) {
+        StringBuilder plan = new StringBuilder();
+        for (Region region : Region.values()) {
+            plan.append(region).append(replicas.contains(region) ? ":serve " : ":forward ");
+        }
+        return plan.toString();
+    }
+
+    private PropStore nextStore() {
+        PropStore store = new PropStore();
+        REPLICAS.setTo(store, inputs[index++ & (inputs.length - 1)]);
+        return store;
+    }
+
+    @Benchmark
+    public String computePerContext() {
+        return PLAN.getFrom(nextStore());
+    }
+
+    @Benchmark
+    public String memoized() {
+        return MEMOIZED_PLAN.getFrom(nextStore());
+    }
+}
@@ -0,0 +1,216 @@
+package com.yahoo.props.benchmark;
+
+import com.yahoo.props.AsyncEventDispatcher;
+import com.yahoo.props.AsyncEventDispatcher.OverflowPolicy;
+import com.yahoo.props.DependencyStateStore;
+import com.yahoo.props.Prop;
+import com.yahoo.props.PropDefiner;
+import com.yahoo.props.PropDefinerBuilder;
+import com.yahoo.props.PropMetrics;
+import com.yahoo.props.TypeFilter;
+import com.yahoo.props.Utils;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PropAccessBenchmark {
+    public enum Color {
+        RED, GREEN, BLUE
+    }
+
+    private static final Color[] COLORS = Color.values();
+
+    static Object sink;
+
+    private static final PropDefiner<Map<String, Object>> DEFINER            = buildDefiner(builder -> {
+    });
+    private static final PropDefiner<Map<String, Object>> HANDLED_DEFINER    = buildDefiner(builder -> builder
+            .setAfterInitEventHandler((map, name, value) -> sink = value)
+            .setAfterGetEventHandler((map, name, value) -> sink = value)
+            .setAfterSetEventHandler((map, name, value) -> sink = value));
+    private static final AsyncEventDispatcher             DISPATCHER         = new AsyncEventDispatcher(
+            1 << 16, OverflowPolicy.DROP, batch -> sink = batch.get(batch.size() - 1).getValue());
+    private static final PropDefiner<Map<String, Object>> ASYNC_DEFINER      = buildDefiner(builder -> builder
+            .setAfterInitEventHandler(DISPATCHER.newEventHandler("afterInit"))
+            .setAfterGetEventHandler(DISPATCHER.newEventHandler("afterGet"))
+            .setAfterSetEventHandler(DISPATCHER.newEventHandler("afterSet")));
+    private static final PropDefiner<Map<String, Object>> SIDE_TABLE_DEFINER = buildDefiner(builder -> builder
+            .setDependencyStateStore(DependencyStateStore.newWeakIdentityStore()));
+    private static final PropDefiner<Map<String, Object>> PUSH_DEFINER       = buildDefiner(builder -> builder
+            .setPushInvalidation(true));
+    private static final PropDefiner<Map<String, Object>> METERED_DEFINER    = buildDefiner(builder -> builder
+            .setMetrics(new PropMetrics()));
+
+    static final Prop<Map<String, Object>, Integer> PLAIN         = DEFINER.define("plain", Integer.class);
+    static final Prop<Map<String, Object>, Color>   COMPREHENSIVE = DEFINER.define("color", Color.class);
+    static final Prop<Map<String, Object>, Integer> INITIALIZED   = DEFINER.define("initialized", Integer.class,
+            context -> 42);
+    static final Prop<Map<String, Object>, Integer> UPSTREAM      = DEFINER.define("upstream", Integer.class);
+    static final Prop<Map<String, Object>, Integer> DEPENDENT     = DEFINER.define("dependent", Integer.class,
+            context -> UPSTREAM.getFrom(context, 0) * 2)
+            .addResetDependency(UPSTREAM);
+    static final Prop<Map<String, Object>, Integer> HANDLED       = HANDLED_DEFINER.define("handled", Integer.class,
+            context -> 7);
+    static final Prop<Map<String, Object>, Integer> ASYNC_HANDLED = ASYNC_DEFINER.define("async_handled",
+            Integer.class, context -> 7);
+    static final Prop<Map<String, Object>, Integer> SIDE_TABLE_DEPENDENT = SIDE_TABLE_DEFINER.define(
+            "side_table_dependent", Integer.class, context -> UPSTREAM.getFrom(context, 0) * 3)
+            .addResetDependency(UPSTREAM);
+    static final Prop<Map<String, Object>, Integer> CHAIN_MIDDLE  = DEFINER.define("chain_middle", Integer.class,
+            context -> DEPENDENT.getFrom(context) + 1)
+            .addResetDependency(DEPENDENT);
+    static final Prop<Map<String, Object>, Integer> CHAIN_END     = DEFINER.define("chain_end", Integer.class,
+            context -> CHAIN_MIDDLE.getFrom(context) + 1)
+            .addResetDependency(CHAIN_MIDDLE);
+
+    static final Prop<Map<String, Object>, Integer> PUSH_UPSTREAM     = PUSH_DEFINER.define("push_upstream",
+            Integer.class);
+    static final Prop<Map<String, Object>, Integer> PUSH_DEPENDENT    = PUSH_DEFINER.define("push_dependent",
+            Integer.class, context -> PUSH_UPSTREAM.getFrom(context, 0) * 2)
+            .addResetDependency(PUSH_UPSTREAM);
+    static final Prop<Map<String, Object>, Integer> PUSH_CHAIN_MIDDLE = PUSH_DEFINER.define("push_chain_middle",
+            Integer.class, context -> PUSH_DEPENDENT.getFrom(context) + 1)
+            .addResetDependency(PUSH_DEPENDENT);
+    static final Prop<Map<String, Object>, Integer> PUSH_CHAIN_END    = PUSH_DEFINER.define("push_chain_end",
+            Integer.class, context -> PUSH_CHAIN_MIDDLE.getFrom(context) + 1)
+            .addResetDependency(PUSH_CHAIN_MIDDLE);
+
+    static final Prop<Map<String, Object>, Integer> METERED_PLAIN       = METERED_DEFINER.define("metered_plain",
+            Integer.class);
+    static final Prop<Map<String, Object>, Integer> METERED_INITIALIZED = METERED_DEFINER.define(
+            "metered_initialized", Integer.class, context -> 42);
+
+    private Map<String, Object> context;
+    private int                 counter;
+
+    @SuppressWarnings("unchecked")
+    private static PropDefiner<Map<String, Object>> buildDefiner(
+            Consumer<PropDefinerBuilder<Map<String, Object>>> options) {
+        PropDefinerBuilder<Map<String, Object>> builder = PropDefinerBuilder.newBuilder((Class) Map.class);
+        builder.setObjectGetter((map, name) -> map.get(name));
+        builder.setObjectSetter((map, name, value) -> map.put(name, value));
+        builder.setTypeGetter(TypeFilter.ENUM, (map, type, name) -> Utils.resolveEnumValue(type, map.get(name)));
+        builder.setTypeSetter(TypeFilter.ENUM, (map, type, name, value) -> map.put(name, value));
+        options.accept(builder);
+        return builder.build();
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        context = new HashMap<>();
+        PLAIN.setTo(context, 1);
+        COMPREHENSIVE.setTo(context, Color.GREEN);
+        UPSTREAM.setTo(context, 3);
+        INITIALIZED.getFrom(context);
+        DEPENDENT.getFrom(context);
+        HANDLED.getFrom(context);
+        ASYNC_HANDLED.getFrom(context);
+        SIDE_TABLE_DEPENDENT.getFrom(context);
+        CHAIN_END.getFrom(context);
+        PUSH_UPSTREAM.setTo(context, 3);
+        PUSH_CHAIN_END.getFrom(context);
+        METERED_PLAIN.setTo(context, 1);
+        METERED_INITIALIZED.getFrom(context);
+    }
+
+    @Benchmark
+    public Integer getPlain() {
+        return PLAIN.getFrom(context);
+    }
+
+    @Benchmark
+    public Color getComprehensive() {
+        return COMPREHENSIVE.getFrom(context);
+    }
+
+    @Benchmark
+    public Integer getInitialized() {
+        return INITIALIZED.getFrom(context);
+    }
+
+    @Benchmark
+    public Integer getDependent() {
+        return DEPENDENT.getFrom(context);
+    }
+
+    @Benchmark
+    public Integer getDependentSideTable() {
+        return SIDE_TABLE_DEPENDENT.getFrom(context);
+    }
+
+    @Benchmark
+    public Integer getDependentPush() {
+        return PUSH_DEPENDENT.getFrom(context);
+    }
+
+    @Benchmark
+    public Integer getChainEnd() {
+        return CHAIN_END.getFrom(context);
+    }
+
+    @Benchmark
+    public Integer getChainEndPush() {
+        return PUSH_CHAIN_END.getFrom(context);
+    }
+
+    @Benchmark
+    public Integer getPlainMetered() {
+        return METERED_PLAIN.getFrom(context);
+    }
+
+    @Benchmark
+    public Integer getInitializedMetered() {
+        return METERED_INITIALIZED.getFrom(context);
+    }
+
+    @Benchmark
+    public Integer getHandled() {
+        return HANDLED.getFrom(context);
+    }
+
+    @Benchmark
+    public Integer getHandledAsync() {
+        return ASYNC_HANDLED.getFrom(context);
+    }
+
+    @Benchmark
+    public void setPlain() {
+        PLAIN.setTo(context, counter++ & 0x7f);
+    }
+
+    @Benchmark
+    public void setComprehensive() {
+        COMPREHENSIVE.setTo(context, COLORS[counter++ % COLORS.length]);
+    }
+
+    @Benchmark
+    public void setHandled() {
+        HANDLED.setTo(context, counter++ & 0x7f);
+    }
+
+    @Benchmark
+    public void setHandledAsync() {
+        ASYNC_HANDLED.setTo(context, counter++ & 0x7f);
+    }
+
+    @Benchmark
+    public Integer resetDependent() {
+        UPSTREAM.setTo(context, counter++ & 0x7f);
+        return DEPENDENT.getFrom(context);
+    }
+
+    @Benchmark
+    public Integer resetDependentPush() {
+        PUSH_UPSTREAM.setTo(context, counter++ & 0x7f);
+        return PUSH_DEPENDENT.getFrom(context);
+    }
+}
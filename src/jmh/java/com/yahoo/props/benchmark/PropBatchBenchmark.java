@@ -0,0 +1,54 @@
+package com.yahoo.props.benchmark;
+
+import com.yahoo.props.DoubleProp;
+import com.yahoo.props.IntProp;
+import com.yahoo.props.PropBatch;
+import com.yahoo.props.PropDefiner;
+import com.yahoo.props.PropStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+// re-ranking 10k contexts: a getFrom loop against batch columns; fresh contexts per invocation run the initializer
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PropBatchBenchmark {
+    private static final int CONTEXT_COUNT = 10_000;
+
+    private static final PropDefiner<PropStore> DEFINER = PropStore.newDefinerBuilder().build();
+    private static final IntProp<PropStore>     CLICKS  = DEFINER.defineInt("clicks");
+    private static final DoubleProp<PropStore>  SCORE   = DEFINER.defineDouble("score",
+            store -> Math.log1p(CLICKS.getAsInt(store, 0)) * 0.75);
+
+    private List<PropStore> stores;
+
+    @Setup(Level.Invocation)
+    public void setUp() {
+        stores = new ArrayList<>(CONTEXT_COUNT);
+        for (int i = 0; i < CONTEXT_COUNT; i++) {
+            PropStore store = new PropStore();
+            CLICKS.setAsInt(store, i);
+            stores.add(store);
+        }
+    }
+
+    @Benchmark
+    public double[] scoreInLoop() {
+        double[] scores = new double[stores.size()];
+        for (int i = 0; i < scores.length; i++) {
+            scores[i] = SCORE.getAsDouble(stores.get(i), 0);
+        }
+        return scores;
+    }
+
+    @Benchmark
+    public double[] scoreInBatch() {
+        return new PropBatch<>(stores).getDoubles(SCORE, 0);
+    }
+}
@@ -0,0 +1,200 @@
+package com.yahoo.props.benchmark;
+
+import com.yahoo.props.IntProp;
+import com.yahoo.props.Prop;
+import com.yahoo.props.PropDefiner;
+import com.yahoo.props.PropBuffer;
+import com.yahoo.props.PropCodec;
+import com.yahoo.props.PropDefinerBuilder;
+import com.yahoo.props.PropGroup;
+import com.yahoo.props.PropLayer;
+import com.yahoo.props.PropSnapshot;
+import com.yahoo.props.PropStore;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PropStoreBenchmark {
+    private static final int PROP_COUNT = 200;
+    private static final int GROUP_SIZE = 20;
+
+    private static final PropDefiner<Map<String, Object>> MAP_DEFINER    = buildMapDefiner();
+    private static final PropDefiner<PropStore>           STORE_DEFINER  = PropStore.newDefinerBuilder().build();
+    private static final PropDefiner<PropLayer>           LAYER_DEFINER  = PropLayer.newDefinerBuilder().build();
+    private static final PropDefiner<PropBuffer>          BUFFER_DEFINER = PropBuffer.newDefinerBuilder().build();
+
+    private static final Prop<Map<String, Object>, Integer>[] MAP_PROPS    = defineAll(MAP_DEFINER);
+    private static final Prop<PropStore, Integer>[]           STORE_PROPS  = defineAll(STORE_DEFINER);
+    private static final IntProp<PropStore>[]                 INT_PROPS    = defineAllInt(STORE_DEFINER);
+    private static final Prop<PropLayer, Integer>[]           LAYER_PROPS  = defineAll(LAYER_DEFINER);
+    private static final Prop<PropBuffer, Integer>[]          BUFFER_PROPS = defineAll(BUFFER_DEFINER);
+    private static final PropGroup<PropStore>                 STORE_GROUP  =
+            STORE_DEFINER.newGroup(Arrays.asList(STORE_PROPS).subList(0, GROUP_SIZE));
+    private static final PropCodec<PropStore>                 STORE_CODEC  =
+            STORE_DEFINER.newCodec(Arrays.asList(STORE_PROPS));
+    private static final PropCodec<PropBuffer>                BUFFER_CODEC = BUFFER_DEFINER.newCodec();
+
+    private Map<String, Object>     map;
+    private PropStore               store;
+    private PropSnapshot<PropStore> snapshot;
+    private PropLayer               layer;
+    private PropLayer               childLayer;
+    private ByteBuffer              encoded;
+    private int                     index;
+
+    @SuppressWarnings("unchecked")
+    private static PropDefiner<Map<String, Object>> buildMapDefiner() {
+        PropDefinerBuilder<Map<String, Object>> builder = PropDefinerBuilder.newBuilder((Class) Map.class);
+        builder.setObjectGetter((map, name) -> map.get(name));
+        builder.setObjectSetter((map, name, value) -> map.put(name, value));
+        return builder.build();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <CONTEXT> Prop<CONTEXT, Integer>[] defineAll(PropDefiner<CONTEXT> definer) {
+        Prop<CONTEXT, Integer>[] props = new Prop[PROP_COUNT];
+        for (int i = 0; i < PROP_COUNT; i++) {
+            props[i] = definer.define("prop_" + i, Integer.class);
+        }
+        return props;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <CONTEXT> IntProp<CONTEXT>[] defineAllInt(PropDefiner<CONTEXT> definer) {
+        IntProp<CONTEXT>[] props = new IntProp[PROP_COUNT];
+        for (int i = 0; i < PROP_COUNT; i++) {
+            props[i] = definer.defineInt("int_prop_" + i);
+        }
+        return props;
+    }
+
+    @Setup(Level.Iteration)
+    public void setUp() {
+        map = new HashMap<>();
+        store = new PropStore(2 * PROP_COUNT);
+        for (int i = 0; i < PROP_COUNT; i++) {
+            MAP_PROPS[i].setTo(map, i);
+            STORE_PROPS[i].setTo(store, i);
+            INT_PROPS[i].setAsInt(store, i * 1000);
+        }
+        snapshot = STORE_DEFINER.snapshot(store);
+        layer = new PropLayer();
+        for (int i = 0; i < PROP_COUNT; i++) {
+            LAYER_PROPS[i].setTo(layer, i);
+        }
+        encoded = STORE_CODEC.encode(store);
+        childLayer = layer.fork();
+        for (int i = 0; i < PROP_COUNT; i += 10) {
+            LAYER_PROPS[i].setTo(childLayer, -i);
+        }
+    }
+
+    private int nextIndex() {
+        int next = index + 1;
+        index = next == PROP_COUNT ? 0 : next;
+        return index;
+    }
+
+    @Benchmark
+    public Integer getFromMap() {
+        return MAP_PROPS[nextIndex()].getFrom(map);
+    }
+
+    @Benchmark
+    public Integer getFromStore() {
+        return STORE_PROPS[nextIndex()].getFrom(store);
+    }
+
+    @Benchmark
+    public int getIntFromStore() {
+        return INT_PROPS[nextIndex()].getAsInt(store, -1);
+    }
+
+    @Benchmark
+    public Integer getBoxedIntFromStore() {
+        return INT_PROPS[nextIndex()].getFrom(store);
+    }
+
+    @Benchmark
+    public Integer getFromSnapshot() {
+        return snapshot.get(STORE_PROPS[nextIndex()]);
+    }
+
+    @Benchmark
+    public Integer getFromLayer() {
+        return LAYER_PROPS[nextIndex()].getFrom(layer);
+    }
+
+    @Benchmark
+    public Integer getFromChildLayer() {
+        return LAYER_PROPS[nextIndex()].getFrom(childLayer);
+    }
+
+    @Benchmark
+    public PropLayer forkAndOverrideLayer() {
+        PropLayer fork = layer.fork();
+        int i = nextIndex();
+        LAYER_PROPS[i].setTo(fork, -i);
+        return fork;
+    }
+
+    @Benchmark
+    public Object[] getEachFromStore() {
+        Object[] values = new Object[GROUP_SIZE];
+        for (int i = 0; i < GROUP_SIZE; i++) {
+            values[i] = STORE_PROPS[i].getFrom(store);
+        }
+        return values;
+    }
+
+    @Benchmark
+    public Object[] getGroupFromStore() {
+        return STORE_GROUP.getFrom(store);
+    }
+
+    @Benchmark
+    public ByteBuffer encodeStore() {
+        return STORE_CODEC.encode(store);
+    }
+
+    @Benchmark
+    public PropStore decodeIntoStore() {
+        PropStore decoded = new PropStore(2 * PROP_COUNT);
+        STORE_CODEC.decode(encoded, decoded);
+        return decoded;
+    }
+
+    @Benchmark
+    public Integer wrapAndGetOne() {
+        PropBuffer buffer = new PropBuffer(BUFFER_CODEC, encoded);
+        return BUFFER_PROPS[nextIndex()].getFrom(buffer);
+    }
+
+    @Benchmark
+    public void setToMap() {
+        int i = nextIndex();
+        MAP_PROPS[i].setTo(map, i);
+    }
+
+    @Benchmark
+    public void setToStore() {
+        int i = nextIndex();
+        STORE_PROPS[i].setTo(store, i);
+    }
+
+    @Benchmark
+    public void setIntToStore() {
+        int i = nextIndex();
+        INT_PROPS[i].setAsInt(store, i * 1000);
+    }
+}
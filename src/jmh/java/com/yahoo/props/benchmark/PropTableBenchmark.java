@@ -0,0 +1,80 @@
+package com.yahoo.props.benchmark;
+
+import com.yahoo.props.IntProp;
+import com.yahoo.props.Prop;
+import com.yahoo.props.PropDefiner;
+import com.yahoo.props.PropStore;
+import com.yahoo.props.PropTable;
+import com.yahoo.props.PropTable.Row;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// reads from many sessions kept as PropStores on-heap versus as rows of an off-heap PropTable
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class PropTableBenchmark {
+    private static final int SESSION_COUNT = 100_000;
+
+    private static final PropDefiner<PropStore> STORE_DEFINER = PropStore.newDefinerBuilder().build();
+    private static final PropDefiner<Row>       TABLE_DEFINER = PropTable.newDefinerBuilder().build();
+
+    private static final IntProp<PropStore>      STORE_VISITS = STORE_DEFINER.defineInt("visits");
+    private static final Prop<PropStore, String> STORE_USER   = STORE_DEFINER.define("user", String.class);
+    private static final IntProp<Row>            TABLE_VISITS = TABLE_DEFINER.defineInt("visits");
+    private static final Prop<Row, String>       TABLE_USER   = TABLE_DEFINER.define("user", String.class);
+
+    private PropStore[] stores;
+    private Row[]       rows;
+    private int         index;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        PropTable table = new PropTable(TABLE_DEFINER, SESSION_COUNT);
+        stores = new PropStore[SESSION_COUNT];
+        rows = new Row[SESSION_COUNT];
+        for (int i = 0; i < SESSION_COUNT; i++) {
+            stores[i] = new PropStore();
+            STORE_VISITS.setAsInt(stores[i], i);
+            STORE_USER.setTo(stores[i], "user" + i);
+            rows[i] = table.allocate();
+            TABLE_VISITS.setAsInt(rows[i], i);
+            TABLE_USER.setTo(rows[i], "user" + i);
+        }
+    }
+
+    private int next() {
+        index = (index + 7919) % SESSION_COUNT;
+        return index;
+    }
+
+    @Benchmark
+    public int getIntFromStore() {
+        return STORE_VISITS.getAsInt(stores[next()], 0);
+    }
+
+    @Benchmark
+    public int getIntFromTable() {
+        return TABLE_VISITS.getAsInt(rows[next()], 0);
+    }
+
+    @Benchmark
+    public void setIntInTable() {
+        TABLE_VISITS.setAsInt(rows[next()], index);
+    }
+
+    @Benchmark
+    public String getStringFromStore() {
+        return STORE_USER.getFrom(stores[next()]);
+    }
+
+    // decodes a new String per read
+    @Benchmark
+    public String getStringFromTable() {
+        return TABLE_USER.getFrom(rows[next()]);
+    }
+}
@@ -0,0 +1,277 @@
+package com.yahoo.props;
+
+import com.yahoo.props.PropDefinerBuilder.BooleanGetter;
+import com.yahoo.props.PropDefinerBuilder.DoubleGetter;
+import com.yahoo.props.PropDefinerBuilder.IntGetter;
+import com.yahoo.props.PropDefinerBuilder.LongGetter;
+import com.yahoo.props.PropDefinerBuilder.TypeGetter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Learns which props are read for each class of contexts, e.g. per context type or per value of a key prop, so
+ * that {@link #warm(Object)} can materialize the hot props of a new context in one batched pass through a
+ * {@link PropGroup} instead of one lazy getFrom at a time. Set on a definer with
+ * {@link PropDefinerBuilder#setAccessRecorder(AccessRecorder)}; one recorder serves one definer.
+ * <p>
+ * Only one of every {@code sampleRate} reads is classified and counted, the others cost a random draw. Memory is
+ * bounded: at most {@code maxProfiles} classes are learned, each with a counter per prop, and samples of other
+ * classes are dropped. A prop is hot for a class once it accounts for at least a tenth of the samples of the
+ * class's most read prop; classes with fewer than {@code minSamples} samples aren't warmed.
+ */
+public final class AccessRecorder<CONTEXT> {
+    // hot props have at least 1 / HOT_SHARE of the hits of the most read prop of their profile
+    private static final int HOT_SHARE = 10;
+
+    private final Function<CONTEXT, ?>         classifier;
+    private final int                          sampleRate;
+    private final int                          maxProfiles;
+    private final int                          minSamples;
+    private final Map<Object, Profile>         profiles = new ConcurrentHashMap<>();
+    private final LongAdder                    dropped  = new LongAdder();
+    // set while classifying or warming, so that reads made by the recorder itself aren't recorded
+    private final ThreadLocal<boolean[]>       muted    = ThreadLocal.withInitial(() -> new boolean[1]);
+    private volatile PropDefinerImpl<CONTEXT>  definer;
+
+    public AccessRecorder(Function<CONTEXT, ?> classifier) {
+        this(classifier, 64, 256, 100);
+    }
+
+    public AccessRecorder(Function<CONTEXT, ?> classifier, int sampleRate, int maxProfiles, int minSamples) {
+
+        requireNonNull(classifier, nonNullMessage("classifier"));
+        if (sampleRate < 1 || maxProfiles < 1 || minSamples < 1) {
+            throw new IllegalArgumentException("sampleRate, maxProfiles and minSamples must be positive");
+        }
+
+        this.classifier = classifier;
+        this.sampleRate = sampleRate;
+        this.maxProfiles = maxProfiles;
+        this.minSamples = minSamples;
+    }
+
+    synchronized void attach(PropDefinerImpl<CONTEXT> definer) {
+        if (this.definer != null) {
+            throw new IllegalStateException("AccessRecorder already set on another definer");
+        }
+        this.definer = definer;
+    }
+
+    // reads the hot props of the context's class, running their initializers; no-op for classes not learned yet
+    public void warm(CONTEXT context) {
+
+        requireNonNull(context, nonNullMessage("context"));
+
+        boolean[] mutedFlag = muted.get();
+        if (mutedFlag[0]) {
+            return;
+        }
+        mutedFlag[0] = true;
+        try {
+            Object key = classifier.apply(context);
+            Profile profile = key != null ? profiles.get(key) : null;
+            PropGroup<CONTEXT> group = profile != null ? hotGroupOf(profile) : null;
+            if (group != null) {
+                group.getFrom(context);
+            }
+        } finally {
+            mutedFlag[0] = false;
+        }
+    }
+
+    // the props warmed for contexts of the class, empty if it isn't learned yet
+    public List<Prop<CONTEXT, ?>> getHotProps(Object key) {
+
+        requireNonNull(key, nonNullMessage("key"));
+
+        Profile profile = profiles.get(key);
+        PropGroup<CONTEXT> group = profile != null ? hotGroupOf(profile) : null;
+        return group != null ? group.getProps() : Collections.emptyList();
+    }
+
+    // sampled reads by prop name per class, props in definition order
+    public Map<Object, Map<String, Integer>> dump() {
+        PropDefinerImpl<CONTEXT> definer = this.definer;
+        List<Prop<CONTEXT, ?>> props = definer != null ? definer.getProps() : Collections.emptyList();
+        Map<Object, Map<String, Integer>> dump = new LinkedHashMap<>();
+        for (Profile profile : profiles.values()) {
+            AtomicIntegerArray hits = profile.hits;
+            Map<String, Integer> hitsByName = new LinkedHashMap<>();
+            for (int ordinal = 0; ordinal < Math.min(hits.length(), props.size()); ordinal++) {
+                if (hits.get(ordinal) > 0) {
+                    hitsByName.put(props.get(ordinal).getName(), hits.get(ordinal));
+                }
+            }
+            dump.put(profile.key, Collections.unmodifiableMap(hitsByName));
+        }
+        return Collections.unmodifiableMap(dump);
+    }
+
+    public int getProfileCount() {
+        return profiles.size();
+    }
+
+    // samples of classes not learned because maxProfiles were reached
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    // forgets every profile, e.g. after a traffic shift
+    public void reset() {
+        profiles.clear();
+    }
+
+    <TYPE> TypeGetter<CONTEXT, TYPE> wrap(TypeGetter<CONTEXT, TYPE> typeGetter, int ordinal) {
+        return (context, name) -> {
+            record(context, ordinal);
+            return typeGetter.getFrom(context, name);
+        };
+    }
+
+    IntGetter<CONTEXT> wrapInt(IntGetter<CONTEXT> intGetter, int ordinal) {
+        return intGetter == null ? null : (context, name, substIfAbsent) -> {
+            record(context, ordinal);
+            return intGetter.getFrom(context, name, substIfAbsent);
+        };
+    }
+
+    LongGetter<CONTEXT> wrapLong(LongGetter<CONTEXT> longGetter, int ordinal) {
+        return longGetter == null ? null : (context, name, substIfAbsent) -> {
+            record(context, ordinal);
+            return longGetter.getFrom(context, name, substIfAbsent);
+        };
+    }
+
+    DoubleGetter<CONTEXT> wrapDouble(DoubleGetter<CONTEXT> doubleGetter, int ordinal) {
+        return doubleGetter == null ? null : (context, name, substIfAbsent) -> {
+            record(context, ordinal);
+            return doubleGetter.getFrom(context, name, substIfAbsent);
+        };
+    }
+
+    BooleanGetter<CONTEXT> wrapBoolean(BooleanGetter<CONTEXT> booleanGetter, int ordinal) {
+        return booleanGetter == null ? null : (context, name, substIfAbsent) -> {
+            record(context, ordinal);
+            return booleanGetter.getFrom(context, name, substIfAbsent);
+        };
+    }
+
+    private void record(CONTEXT context, int ordinal) {
+        if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+            return;
+        }
+        boolean[] mutedFlag = muted.get();
+        if (mutedFlag[0]) {
+            return;
+        }
+        Object key;
+        mutedFlag[0] = true;
+        try {
+            key = classifier.apply(context);
+        } finally {
+            mutedFlag[0] = false;
+        }
+        if (key == null) {
+            return;
+        }
+        Profile profile = profiles.get(key);
+        if (profile == null) {
+            if (profiles.size() >= maxProfiles) {
+                dropped.increment();
+                return;
+            }
+            profile = profiles.computeIfAbsent(key, Profile::new);
+        }
+        profile.record(ordinal);
+    }
+
+    private PropGroup<CONTEXT> hotGroupOf(Profile profile) {
+        long samples = profile.samples.sum();
+        if (samples < minSamples) {
+            return null;
+        }
+        HotGroup<CONTEXT> hotGroup = profile.hotGroup();
+        // relearned whenever the samples doubled, so that profiles settle while traffic keeps them fresh
+        if (hotGroup == null || samples >= 2 * hotGroup.samples) {
+            hotGroup = new HotGroup<>(newHotGroup(profile.hits), samples);
+            profile.hotGroup = hotGroup;
+        }
+        return hotGroup.group;
+    }
+
+    private PropGroup<CONTEXT> newHotGroup(AtomicIntegerArray hits) {
+        List<Prop<CONTEXT, ?>> props = definer.getProps();
+        int maxHits = 0;
+        for (int ordinal = 0; ordinal < hits.length(); ordinal++) {
+            maxHits = Math.max(maxHits, hits.get(ordinal));
+        }
+        List<Prop<CONTEXT, ?>> hot = new ArrayList<>();
+        for (int ordinal = 0; ordinal < Math.min(hits.length(), props.size()); ordinal++) {
+            if (hits.get(ordinal) > 0 && hits.get(ordinal) * HOT_SHARE >= maxHits) {
+                hot.add(props.get(ordinal));
+            }
+        }
+        return definer.newGroup(hot);
+    }
+
+    private static final class HotGroup<CONTEXT> {
+        private final PropGroup<CONTEXT> group;
+        private final long               samples;
+
+        private HotGroup(PropGroup<CONTEXT> group, long samples) {
+            this.group = group;
+            this.samples = samples;
+        }
+    }
+
+    private static final class Profile {
+        private final Object                 key;
+        private final LongAdder              samples = new LongAdder();
+        private volatile AtomicIntegerArray  hits    = new AtomicIntegerArray(16);
+        private volatile HotGroup<?>         hotGroup;
+
+        private Profile(Object key) {
+            this.key = key;
+        }
+
+        private void record(int ordinal) {
+            AtomicIntegerArray hits = this.hits;
+            if (ordinal >= hits.length()) {
+                hits = grow(ordinal);
+            }
+            hits.incrementAndGet(ordinal);
+            samples.increment();
+        }
+
+        // increments racing with the copy may get lost, which sampling tolerates
+        private synchronized AtomicIntegerArray grow(int ordinal) {
+            AtomicIntegerArray hits = this.hits;
+            if (ordinal >= hits.length()) {
+                AtomicIntegerArray grown = new AtomicIntegerArray(Math.max(ordinal + 1, hits.length() * 2));
+                for (int i = 0; i < hits.length(); i++) {
+                    grown.set(i, hits.get(i));
+                }
+                this.hits = grown;
+                hits = grown;
+            }
+            return hits;
+        }
+
+        @SuppressWarnings("unchecked")
+        private <CONTEXT> HotGroup<CONTEXT> hotGroup() {
+            return (HotGroup<CONTEXT>) hotGroup;
+        }
+    }
+}
@@ -0,0 +1,251 @@
+package com.yahoo.props;
+
+import com.yahoo.props.PropDefinerBuilder.EventHandler;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Moves event handling off the request thread: the handlers returned by {@link #newEventHandler(String)} only put
+ * the event into a bounded lock-free ring buffer, a daemon thread drains it in batches into the batch handler.
+ * Contexts aren't handed over, events carry their identity hash instead.
+ */
+public class AsyncEventDispatcher implements AutoCloseable {
+    private static final int  MAX_BATCH_SIZE  = 256;
+    private static final long IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    // BLOCK producers back off from this up to IDLE_PARK_NANOS while the buffer stays full
+    private static final long MIN_PARK_NANOS  = TimeUnit.MICROSECONDS.toNanos(1);
+    // SAMPLE keeps one in this many events once the buffer is half full
+    private static final int  SAMPLE_RATE     = 16;
+    private static final long CLOSED          = 1L << 62;
+
+    public enum OverflowPolicy {
+        DROP, SAMPLE, BLOCK
+    }
+
+    // bounded multi-producer queue after Dmitry Vyukov: a slot is free for the producer claiming position p when
+    // its sequence is p, and holds an event for the consumer when its sequence is p + 1
+    private final Object[]        buffer;
+    private final AtomicLongArray sequences;
+    private final int             mask;
+    // CLOSED is set in the tail by close(), so that no position is claimed after its final drain
+    private final AtomicLong      tail = new AtomicLong();
+    // written by the consumer only
+    private volatile long         head;
+
+    private final OverflowPolicy        overflowPolicy;
+    private final Consumer<List<Event>> batchHandler;
+    private final LongAdder             dropped    = new LongAdder();
+    private final LongAdder             dispatched = new LongAdder();
+    private final LongAdder             failed     = new LongAdder();
+    private final Thread                consumer;
+    private volatile boolean            closed;
+
+    public AsyncEventDispatcher(int capacity, OverflowPolicy overflowPolicy, Consumer<List<Event>> batchHandler) {
+        if (capacity < 2) {
+            throw new IllegalArgumentException("capacity should be at least 2: " + capacity);
+        }
+        this.overflowPolicy = requireNonNull(overflowPolicy, nonNullMessage("overflowPolicy"));
+        this.batchHandler = requireNonNull(batchHandler, nonNullMessage("batchHandler"));
+
+        int size = Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        this.mask = size - 1;
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+
+        this.consumer = new Thread(this::drainLoop, "props-event-dispatcher");
+        consumer.setDaemon(true);
+        consumer.start();
+    }
+
+    public <CONTEXT> EventHandler<CONTEXT> newEventHandler(String hook) {
+
+        requireNonNull(hook, nonNullMessage("hook"));
+
+        return (context, name, value) -> dispatch(new Event(hook, System.identityHashCode(context), name, value));
+    }
+
+    public void dispatch(Event event) {
+        if (closed) {
+            dropped.increment();
+            return;
+        }
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            put(event);
+        } else if (overflowPolicy == OverflowPolicy.SAMPLE && tail.get() - head > mask / 2
+                && ThreadLocalRandom.current().nextInt(SAMPLE_RATE) != 0) {
+            dropped.increment();
+        } else if (!offer(event)) {
+            dropped.increment();
+        }
+    }
+
+    // waits for a free slot, parking for longer the longer the buffer stays full
+    private void put(Event event) {
+        long parkNanos = MIN_PARK_NANOS;
+        while (!offer(event)) {
+            if (closed) {
+                dropped.increment();
+                return;
+            }
+            LockSupport.unpark(consumer);
+            LockSupport.parkNanos(this, parkNanos);
+            parkNanos = Math.min(parkNanos * 2, IDLE_PARK_NANOS);
+        }
+    }
+
+    // false if the buffer is full or closed
+    private boolean offer(Event event) {
+        long position = tail.get();
+        while (true) {
+            if (position >= CLOSED) {
+                return false;
+            }
+            int index = (int) position & mask;
+            long difference = sequences.get(index) - position;
+            if (difference == 0) {
+                if (tail.compareAndSet(position, position + 1)) {
+                    buffer[index] = event;
+                    sequences.lazySet(index, position + 1);
+                    return true;
+                }
+                position = tail.get();
+            } else if (difference < 0) {
+                return false;
+            } else {
+                position = tail.get();
+            }
+        }
+    }
+
+    // single consumer, only called from the consumer thread
+    private Event poll() {
+        long position = head;
+        int index = (int) position & mask;
+        if (sequences.get(index) != position + 1) {
+            return null;
+        }
+        Event event = (Event) buffer[index];
+        buffer[index] = null;
+        sequences.lazySet(index, position + buffer.length);
+        head = position + 1;
+        return event;
+    }
+
+    private void drainLoop() {
+        List<Event> batch = new ArrayList<>(MAX_BATCH_SIZE);
+        while (drainBatch(batch) || !isDrained()) {
+            if (batch.isEmpty()) {
+                LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+            }
+            batch.clear();
+        }
+    }
+
+    // closed, and the events of positions claimed before were handled
+    private boolean isDrained() {
+        long position = tail.get();
+        return position >= CLOSED && head >= position - CLOSED;
+    }
+
+    // returns whether there was anything to handle
+    private boolean drainBatch(List<Event> batch) {
+        Event event;
+        while (batch.size() < MAX_BATCH_SIZE && (event = poll()) != null) {
+            batch.add(event);
+        }
+        if (batch.isEmpty()) {
+            return false;
+        }
+        try {
+            batchHandler.accept(batch);
+            dispatched.add(batch.size());
+        } catch (Throwable e) {
+            // a failing handler must not stop dispatching, not even with an Error
+            failed.add(batch.size());
+        }
+        return true;
+    }
+
+    public long getDroppedCount() {
+        return dropped.sum();
+    }
+
+    public long getDispatchedCount() {
+        return dispatched.sum();
+    }
+
+    // events of batches the batch handler threw on
+    public long getFailedCount() {
+        return failed.sum();
+    }
+
+    // stops accepting events and waits until the queued ones are handled; if interrupted while waiting, the
+    // consumer thread handles them in the background
+    @Override
+    public void close() {
+        closed = true;
+        closeTail();
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void closeTail() {
+        long position = tail.get();
+        while (position < CLOSED && !tail.compareAndSet(position, position + CLOSED)) {
+            position = tail.get();
+        }
+    }
+
+    public static final class Event {
+        private final String hook;
+        private final int    contextId;
+        private final String name;
+        private final Object value;
+
+        public Event(String hook, int contextId, String name, Object value) {
+            this.hook = hook;
+            this.contextId = contextId;
+            this.name = name;
+            this.value = value;
+        }
+
+        public String getHook() {
+            return hook;
+        }
+
+        public int getContextId() {
+            return contextId;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Object getValue() {
+            return value;
+        }
+
+        @Override
+        public String toString() {
+            return hook + "@" + Integer.toHexString(contextId) + ":" + name + "=" + value;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package com.yahoo.props;
+
+import com.google.common.collect.MapMaker;
+
+import java.lang.ref.WeakReference;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+// futures started by prefetch, kept per context until the prop's initializer joins them
+class AsyncInitializers<CONTEXT> {
+    // weak keys are compared by identity
+    private final ConcurrentMap<Object, Map<Integer, Prefetch>> pending = new MapMaker().weakKeys().makeMap();
+    private final Executor                                      executor;
+
+    AsyncInitializers(Executor executor) {
+        this.executor = executor;
+    }
+
+    @SuppressWarnings("unchecked")
+    CompletableFuture<?> start(CONTEXT context, PropImpl<CONTEXT, ?> prop,
+                               Function<CONTEXT, ? extends CompletableFuture<?>> asyncInitializer) {
+        Function<CONTEXT, CompletableFuture<Object>> initializer =
+                (Function<CONTEXT, CompletableFuture<Object>>) asyncInitializer;
+        Object[] dependencyValues = prop.dependencyValuesOf(context);
+        // the queued task must not keep the weak key reachable, contexts prefetched but never read are collectable
+        WeakReference<CONTEXT> contextRef = new WeakReference<>(context);
+        return pending.computeIfAbsent(context, c -> new ConcurrentHashMap<>())
+                .compute(prop.getOrdinal(), (ordinal, prefetch) -> prefetch != null
+                        && Arrays.equals(prefetch.dependencyValues, dependencyValues) ? prefetch
+                        : new Prefetch(dependencyValues, CompletableFuture.supplyAsync(() -> {
+                            CONTEXT collectable = contextRef.get();
+                            return collectable != null
+                                    ? initializer.apply(collectable) : CompletableFuture.completedFuture(null);
+                        }, executor).thenCompose(Function.identity())))
+                .future;
+    }
+
+    @SuppressWarnings("unchecked")
+    <TYPE> TYPE join(CONTEXT context, PropImpl<CONTEXT, TYPE> prop,
+                     Function<CONTEXT, ? extends CompletableFuture<TYPE>> asyncInitializer) {
+        CompletableFuture<TYPE> future = null;
+        Map<Integer, Prefetch> contextPending = pending.get(context);
+        if (contextPending != null) {
+            Prefetch prefetch = contextPending.remove(prop.getOrdinal());
+            // stale if a reset dependency changed since the prefetch started
+            if (prefetch != null && Arrays.equals(prefetch.dependencyValues, prop.dependencyValuesOf(context))) {
+                future = (CompletableFuture<TYPE>) prefetch.future;
+            }
+        }
+        if (future == null) {
+            future = asyncInitializer.apply(context);
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private static final class Prefetch {
+        private final Object[]                  dependencyValues;
+        private final CompletableFuture<Object> future;
+
+        Prefetch(Object[] dependencyValues, CompletableFuture<Object> future) {
+            this.dependencyValues = dependencyValues;
+            this.future = future;
+        }
+    }
+}
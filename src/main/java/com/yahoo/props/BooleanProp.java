@@ -0,0 +1,11 @@
+package com.yahoo.props;
+
+public interface BooleanProp<CONTEXT> extends Prop<CONTEXT, Boolean> {
+    default boolean getAsBoolean(CONTEXT context) {
+        return getAsBoolean(context, false);
+    }
+
+    boolean getAsBoolean(CONTEXT context, boolean substIfNull);
+
+    void setAsBoolean(CONTEXT context, boolean value);
+}
@@ -0,0 +1,105 @@
+package com.yahoo.props;
+
+import com.yahoo.props.PropDefinerBuilder.*;
+
+import java.util.function.Function;
+import java.util.function.Predicate;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+class BooleanPropImpl<CONTEXT> extends PropImpl<CONTEXT, Boolean> implements BooleanProp<CONTEXT> {
+    private final BooleanGetter<CONTEXT> booleanGetter;
+    private final BooleanSetter<CONTEXT> booleanSetter;
+    private final boolean                primitiveCapable;
+    private Predicate<CONTEXT>           booleanInitializer;
+
+    BooleanPropImpl(String name,
+                    int ordinal,
+                    TypeGetter<CONTEXT, Boolean> typeGetter,
+                    TypeSetter<CONTEXT, Boolean> typeSetter,
+                    DependencyStateStore<CONTEXT> dependencyStateStore,
+                    InitFlights initFlights,
+                    DependencyGraph dependencyGraph,
+                    PropCounters counters,
+                    EventHandler<CONTEXT> afterInitEventHandler,
+                    EventHandler<CONTEXT> afterGetEventHandler,
+                    EventHandler<CONTEXT> afterSetEventHandler,
+                    BooleanGetter<CONTEXT> booleanGetter,
+                    BooleanSetter<CONTEXT> booleanSetter,
+                    Predicate<CONTEXT> booleanInitializer) {
+        super(name, ordinal, Boolean.class, typeGetter, typeSetter, dependencyStateStore, initFlights, dependencyGraph,
+                counters, afterInitEventHandler, afterGetEventHandler, afterSetEventHandler,
+                booleanInitializer == null ? null : booleanInitializer::test);
+        this.booleanGetter = booleanGetter;
+        this.booleanSetter = booleanSetter;
+        this.booleanInitializer = booleanInitializer;
+        // event handlers take boxed values anyway, counting is done on the boxed path
+        this.primitiveCapable = booleanGetter != null && booleanSetter != null
+                && afterInitEventHandler == null && afterGetEventHandler == null && afterSetEventHandler == null
+                && counters == null;
+    }
+
+    private boolean isPrimitivePath() {
+        return primitiveCapable && !hasDependencies() && (booleanInitializer != null || !hasDefaultInitializer());
+    }
+
+    @Override
+    public boolean getAsBoolean(CONTEXT context, boolean substIfNull) {
+        if (!isPrimitivePath()) {
+            Boolean value = getFrom(context, null);
+            return value != null ? value : substIfNull;
+        }
+
+        requireNonNull(context, () -> nonNullMessage("context"));
+
+        if (booleanInitializer == null) {
+            return booleanGetter.getFrom(context, getName(), substIfNull);
+        }
+        boolean value = booleanGetter.getFrom(context, getName(), false);
+        if (!isAbsentValue(context, value)) {
+            return value;
+        }
+        if (isWatched()) {
+            // the boxed initialization notifies the listeners
+            Boolean initialized = getFrom(context, null);
+            return initialized != null ? initialized : substIfNull;
+        }
+        if (!isConcurrentInitialization()) {
+            return initializeBoolean(context);
+        }
+        return runInitialization(context, () -> {
+            boolean current = booleanGetter.getFrom(context, getName(), false);
+            return isAbsentValue(context, current) ? initializeBoolean(context) : current;
+        });
+    }
+
+    // absent only if the getter returns both substitutes
+    private boolean isAbsentValue(CONTEXT context, boolean value) {
+        return !value && booleanGetter.getFrom(context, getName(), true);
+    }
+
+    private boolean initializeBoolean(CONTEXT context) {
+        boolean value = booleanInitializer.test(context);
+        booleanSetter.setTo(context, getName(), value);
+        markSet(context);
+        return value;
+    }
+
+    @Override
+    public void setAsBoolean(CONTEXT context, boolean value) {
+        // watched props take the boxed path, which reads the old value to compare
+        if (isPrimitivePath() && !isWatched()) {
+            booleanSetter.setTo(context, getName(), value);
+            markSet(context);
+        } else {
+            setTo(context, value);
+        }
+    }
+
+    @Override
+    public void overrideDefaultInitializer(Function<CONTEXT, Boolean> defaultInitializer) {
+        this.booleanInitializer = null;
+        super.overrideDefaultInitializer(defaultInitializer);
+    }
+}
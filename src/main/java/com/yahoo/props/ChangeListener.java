@@ -0,0 +1,12 @@
+package com.yahoo.props;
+
+/**
+ * Called after a prop's value in a context changed, i.e. after a set or an initialization that stored a value not
+ * equal to the previous one; null stands for absent. Subscribed per prop with
+ * {@link PropDefiner#onChange(Prop, ChangeListener)} or per prop and context with
+ * {@link Prop#watch(Object, ChangeListener)}, and called in the setting thread.
+ */
+@FunctionalInterface
+public interface ChangeListener<CONTEXT, TYPE> {
+    void onChange(CONTEXT context, TYPE oldValue, TYPE newValue);
+}
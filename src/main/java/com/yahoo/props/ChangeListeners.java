@@ -0,0 +1,88 @@
+package com.yahoo.props;
+
+import com.google.common.collect.MapMaker;
+
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentMap;
+
+// listeners of one prop in copy-on-write arrays, so that dispatch iterates without locking or allocation
+final class ChangeListeners<CONTEXT, TYPE> {
+    private static final ChangeListener<?, ?>[] NO_LISTENERS = {};
+
+    private volatile ChangeListener<?, ?>[]                        listeners = NO_LISTENERS;
+    // per-context watchers, weak keys compared by identity; created on the first watch
+    private volatile ConcurrentMap<Object, ChangeListener<?, ?>[]> watchers;
+
+    synchronized void add(CONTEXT context, ChangeListener<?, ?> listener) {
+        if (context == null) {
+            listeners = with(listeners, listener);
+            return;
+        }
+        if (watchers == null) {
+            watchers = new MapMaker().weakKeys().makeMap();
+        }
+        ChangeListener<?, ?>[] contextListeners = watchers.get(context);
+        watchers.put(context, with(contextListeners != null ? contextListeners : NO_LISTENERS, listener));
+    }
+
+    synchronized void remove(CONTEXT context, ChangeListener<?, ?> listener) {
+        if (context == null) {
+            listeners = without(listeners, listener);
+            return;
+        }
+        ChangeListener<?, ?>[] contextListeners = watchers != null ? watchers.get(context) : null;
+        if (contextListeners != null) {
+            contextListeners = without(contextListeners, listener);
+            if (contextListeners.length == 0) {
+                watchers.remove(context);
+            } else {
+                watchers.put(context, contextListeners);
+            }
+        }
+    }
+
+    synchronized boolean isEmpty() {
+        return listeners.length == 0 && (watchers == null || watchers.isEmpty());
+    }
+
+    void fire(CONTEXT context, TYPE oldValue, TYPE newValue) {
+        if (Objects.equals(oldValue, newValue)) {
+            return;
+        }
+        fire(listeners, context, oldValue, newValue);
+        ConcurrentMap<Object, ChangeListener<?, ?>[]> watchers = this.watchers;
+        if (watchers != null) {
+            ChangeListener<?, ?>[] contextListeners = watchers.get(context);
+            if (contextListeners != null) {
+                fire(contextListeners, context, oldValue, newValue);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private void fire(ChangeListener<?, ?>[] listeners, CONTEXT context, TYPE oldValue, TYPE newValue) {
+        for (ChangeListener<?, ?> listener : listeners) {
+            ((ChangeListener<CONTEXT, TYPE>) listener).onChange(context, oldValue, newValue);
+        }
+    }
+
+    private static ChangeListener<?, ?>[] with(ChangeListener<?, ?>[] listeners, ChangeListener<?, ?> listener) {
+        ChangeListener<?, ?>[] copy = Arrays.copyOf(listeners, listeners.length + 1);
+        copy[listeners.length] = listener;
+        return copy;
+    }
+
+    // removes one registration of the listener, compared by identity
+    private static ChangeListener<?, ?>[] without(ChangeListener<?, ?>[] listeners, ChangeListener<?, ?> listener) {
+        for (int i = listeners.length - 1; i >= 0; i--) {
+            if (listeners[i] == listener) {
+                ChangeListener<?, ?>[] copy = new ChangeListener<?, ?>[listeners.length - 1];
+                System.arraycopy(listeners, 0, copy, 0, i);
+                System.arraycopy(listeners, i + 1, copy, i, copy.length - i);
+                return copy;
+            }
+        }
+        return listeners;
+    }
+}
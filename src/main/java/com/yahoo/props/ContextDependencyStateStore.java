@@ -0,0 +1,37 @@
+package com.yahoo.props;
+
+import com.yahoo.props.PropDefinerBuilder.TypeGetter;
+import com.yahoo.props.PropDefinerBuilder.TypeSetter;
+
+// stores stamps as strings into the context itself, under reset dependency keys
+class ContextDependencyStateStore<CONTEXT> implements DependencyStateStore<CONTEXT> {
+    private static final String NULL_HASH = "NULL";
+
+    private final TypeGetter<CONTEXT, String> internalGetter;
+    private final TypeSetter<CONTEXT, String> internalSetter;
+
+    ContextDependencyStateStore(TypeGetter<CONTEXT, String> internalGetter,
+                                TypeSetter<CONTEXT, String> internalSetter) {
+        this.internalGetter = internalGetter;
+        this.internalSetter = internalSetter;
+    }
+
+    @Override
+    public long readStamp(CONTEXT context, String key) {
+        String hash = internalGetter.getFrom(context, key);
+        if (hash == null) {
+            return NO_STAMP;
+        }
+        return NULL_HASH.equals(hash) ? NULL_STAMP : Integer.parseInt(hash);
+    }
+
+    @Override
+    public void writeStamp(CONTEXT context, String key, long stamp) {
+        internalSetter.setTo(context, key, stamp == NULL_STAMP ? NULL_HASH : Integer.toString((int) stamp));
+    }
+
+    @Override
+    public void clearStamp(CONTEXT context, String key) {
+        internalSetter.setTo(context, key, null);
+    }
+}
@@ -0,0 +1,647 @@
+package com.yahoo.props;
+
+import com.google.common.reflect.TypeToken;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Registry of string converters for contexts that keep values as strings, e.g. {@link java.util.Properties}, plugged
+ * into a definer by {@link PropDefinerBuilder#setConverters(Converters, PropDefinerBuilder.TypeGetter,
+ * PropDefinerBuilder.TypeSetter)}. Built in are {@code String}, primitives and their boxed types, enums matched by
+ * name ignoring case, arrays of those, {@code List}, {@code Set}, {@code SortedSet} and {@code Collection} of those,
+ * and {@link EnumMask} and {@code EnumSet} of enums, parsed into bitmasks; converters of other types can be registered.
+ * <p>
+ * Arrays and collections are split on a separator, {@code ','} by default, with tokens trimmed and empty tokens
+ * skipped, by a hand-written scanner rather than a regex; integral tokens are parsed in place without substrings.
+ * Sets of enums are {@link EnumSet}s, other sets keep their order. Converters are resolved once per type and cached.
+ */
+public final class Converters {
+    // lookup tables by enum class, built on first use
+    private static final ClassValue<EnumLookup> ENUM_LOOKUPS = new ClassValue<EnumLookup>() {
+        @Override
+        protected EnumLookup computeValue(Class<?> type) {
+            return new EnumLookup(type.getEnumConstants());
+        }
+    };
+
+    private final char                    separator;
+    private final Map<Type, Converter<?>> registered = new ConcurrentHashMap<>();
+    // resolved converters by type, including the built-in ones
+    private final Map<Type, Resolved>     resolved   = new ConcurrentHashMap<>();
+
+    public Converters() {
+        this(',');
+    }
+
+    public Converters(char separator) {
+        if (Character.isWhitespace(separator)) {
+            throw new IllegalArgumentException("Separator must not be whitespace");
+        }
+        this.separator = separator;
+    }
+
+    public <TYPE> Converters register(Class<TYPE> typeClass, Converter<TYPE> converter) {
+
+        requireNonNull(typeClass, nonNullMessage("typeClass"));
+
+        return register((Type) typeClass, converter);
+    }
+
+    public <TYPE> Converters register(TypeToken<TYPE> typeToken, Converter<TYPE> converter) {
+
+        requireNonNull(typeToken, nonNullMessage("typeToken"));
+
+        return register(typeToken.getType(), converter);
+    }
+
+    private Converters register(Type type, Converter<?> converter) {
+
+        requireNonNull(converter, nonNullMessage("converter"));
+
+        registered.put(type, converter);
+        // registered converters may be elements of arrays and collections resolved before
+        resolved.clear();
+        return this;
+    }
+
+    // null if the type isn't supported
+    @SuppressWarnings("unchecked")
+    public <TYPE> Converter<TYPE> converterFor(Type type) {
+
+        requireNonNull(type, nonNullMessage("type"));
+
+        Resolved converter = resolved.get(type);
+        if (converter == null) {
+            converter = new Resolved(resolve(type));
+            resolved.putIfAbsent(type, converter);
+        }
+        return (Converter<TYPE>) converter.converter;
+    }
+
+    public boolean supports(Type type) {
+        return converterFor(type) != null;
+    }
+
+    // the enum constant whose toString() equals the name ignoring case, null if there's none
+    public static <TYPE> TYPE parseEnum(Class<TYPE> enumType, String name) {
+        return ENUM_LOOKUPS.get(enumType).find(name);
+    }
+
+    public static int parseInt(String text) {
+        return parseInt(text, 0, text.length());
+    }
+
+    // parses text[from, to) after trimming whitespace, without allocating
+    public static int parseInt(String text, int from, int to) {
+        long value = parseLong(text, from, to);
+        if (value != (int) value) {
+            throw numberFormatException(text, from, to);
+        }
+        return (int) value;
+    }
+
+    public static long parseLong(String text) {
+        return parseLong(text, 0, text.length());
+    }
+
+    // parses text[from, to) after trimming whitespace, without allocating
+    public static long parseLong(String text, int from, int to) {
+        while (from < to && Character.isWhitespace(text.charAt(from))) {
+            from++;
+        }
+        while (to > from && Character.isWhitespace(text.charAt(to - 1))) {
+            to--;
+        }
+        int i = from;
+        boolean negative = false;
+        if (i < to && (text.charAt(i) == '-' || text.charAt(i) == '+')) {
+            negative = text.charAt(i) == '-';
+            i++;
+        }
+        if (i == to) {
+            throw numberFormatException(text, from, to);
+        }
+        // accumulated negatively, like Long.parseLong, so that Long.MIN_VALUE fits
+        long limit = negative ? Long.MIN_VALUE : -Long.MAX_VALUE;
+        long value = 0;
+        for (; i < to; i++) {
+            int digit = text.charAt(i) - '0';
+            if (digit < 0 || digit > 9 || value < limit / 10 || value * 10 < limit + digit) {
+                throw numberFormatException(text, from, to);
+            }
+            value = value * 10 - digit;
+        }
+        return negative ? value : -value;
+    }
+
+    private static NumberFormatException numberFormatException(String text, int from, int to) {
+        return new NumberFormatException("For input string: \"" + text.substring(from, to) + "\"");
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Converter<?> resolve(Type type) {
+        Converter<?> converter = registered.get(type);
+        if (converter != null) {
+            return converter;
+        }
+        if (type instanceof Class) {
+            Class<?> typeClass = (Class<?>) type;
+            if (typeClass.isEnum()) {
+                return new EnumConverter(typeClass);
+            }
+            if (typeClass.isArray()) {
+                return arrayConverterOf(typeClass.getComponentType());
+            }
+            return scalarConverterOf(typeClass);
+        }
+        if (type instanceof ParameterizedType) {
+            ParameterizedType parameterized = (ParameterizedType) type;
+            Type[] arguments = parameterized.getActualTypeArguments();
+            if (arguments.length != 1 || !(arguments[0] instanceof Class)) {
+                return null;
+            }
+            Class<?> elementType = (Class<?>) arguments[0];
+            Converter<Object> elementConverter = converterFor(elementType);
+            if (elementConverter == null) {
+                return null;
+            }
+            Type rawType = parameterized.getRawType();
+            if (rawType == EnumMask.class && elementType.isEnum()) {
+                return new EnumMaskConverter<>(elementType, false, separator);
+            }
+            if (rawType == EnumSet.class && elementType.isEnum()) {
+                return new EnumMaskConverter<>(elementType, true, separator);
+            }
+            if (rawType == List.class || rawType == Collection.class) {
+                return new CollectionConverter<>(elementConverter, ArrayList::new, separator);
+            }
+            if (rawType == Set.class) {
+                if (elementType.isEnum()) {
+                    Class<Enum> enumType = (Class<Enum>) elementType;
+                    return new CollectionConverter<>(elementConverter, size -> (Collection) EnumSet.noneOf(enumType),
+                            separator);
+                }
+                return new CollectionConverter<>(elementConverter, LinkedHashSet::new, separator);
+            }
+            if (rawType == SortedSet.class) {
+                return new CollectionConverter<>(elementConverter, size -> new TreeSet<>(), separator);
+            }
+        }
+        return null;
+    }
+
+    private static Converter<?> scalarConverterOf(Class<?> type) {
+        if (type == String.class) {
+            return new ScalarConverter<>(Function.identity());
+        }
+        if (type == Integer.class || type == int.class) {
+            return new IntegerConverter();
+        }
+        if (type == Long.class || type == long.class) {
+            return new LongConverter();
+        }
+        if (type == Double.class || type == double.class) {
+            return new ScalarConverter<>(text -> Double.valueOf(text.trim()));
+        }
+        if (type == Boolean.class || type == boolean.class) {
+            return new ScalarConverter<>(text -> Boolean.valueOf(text.trim()));
+        }
+        if (type == Float.class || type == float.class) {
+            return new ScalarConverter<>(text -> Float.valueOf(text.trim()));
+        }
+        if (type == Short.class || type == short.class) {
+            return new ScalarConverter<>(text -> Short.valueOf(text.trim()));
+        }
+        if (type == Byte.class || type == byte.class) {
+            return new ScalarConverter<>(text -> Byte.valueOf(text.trim()));
+        }
+        if (type == Character.class || type == char.class) {
+            return new ScalarConverter<>(text -> {
+                if (text.length() != 1) {
+                    throw new IllegalArgumentException("Not a single character: \"" + text + "\"");
+                }
+                return text.charAt(0);
+            });
+        }
+        return null;
+    }
+
+    private Converter<?> arrayConverterOf(Class<?> componentType) {
+        if (componentType == int.class) {
+            return new IntArrayConverter(separator);
+        }
+        if (componentType == long.class) {
+            return new LongArrayConverter(separator);
+        }
+        Converter<Object> elementConverter = converterFor(componentType);
+        return elementConverter != null ? new ArrayConverter(componentType, elementConverter, separator) : null;
+    }
+
+    // upper bound of the number of tokens
+    private static int countTokens(String text, char separator) {
+        int count = 1;
+        for (int i = text.indexOf(separator); i >= 0; i = text.indexOf(separator, i + 1)) {
+            count++;
+        }
+        return count;
+    }
+
+    /**
+     * Converts values of a type from and to strings; parse() is never called with null, format() never with null.
+     */
+    public interface Converter<TYPE> {
+        TYPE parse(String text);
+
+        // the value of text[from, to), a token of an array or collection
+        default TYPE parse(String text, int from, int to) {
+            return parse(text.substring(from, to));
+        }
+
+        default String format(TYPE value) {
+            StringBuilder builder = new StringBuilder();
+            format(value, builder);
+            return builder.toString();
+        }
+
+        default void format(TYPE value, StringBuilder builder) {
+            builder.append(value);
+        }
+    }
+
+    // the trimmed bounds of the non-empty tokens of a text, one after the other
+    private static final class Tokenizer {
+        private final String text;
+        private final char   separator;
+        private int          start;
+        private int          from;
+        private int          to;
+
+        private Tokenizer(String text, char separator) {
+            this.text = text;
+            this.separator = separator;
+        }
+
+        private boolean next() {
+            int length = text.length();
+            while (start <= length) {
+                int end = text.indexOf(separator, start);
+                if (end < 0) {
+                    end = length;
+                }
+                from = start;
+                to = end;
+                start = end + 1;
+                while (from < to && Character.isWhitespace(text.charAt(from))) {
+                    from++;
+                }
+                while (to > from && Character.isWhitespace(text.charAt(to - 1))) {
+                    to--;
+                }
+                if (from < to) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // distinguishes unsupported types from types not resolved yet, ConcurrentHashMap doesn't take null values
+    private static final class Resolved {
+        private final Converter<?> converter;
+
+        private Resolved(Converter<?> converter) {
+            this.converter = converter;
+        }
+    }
+
+    private static final class EnumLookup {
+        // ranged lookups scan the names below this size instead of hashing a substring
+        private static final int SCAN_LIMIT = 16;
+
+        private final Object[]            constants;
+        private final String[]            names;
+        private final Map<String, Object> byName      = new HashMap<>();
+        private final Map<String, Object> byLowerName = new HashMap<>();
+
+        private EnumLookup(Object[] constants) {
+            this.constants = constants;
+            this.names = new String[constants.length];
+            // the first of names equal ignoring case wins, as with a linear scan
+            for (int i = constants.length - 1; i >= 0; i--) {
+                String name = constants[i].toString();
+                names[i] = name;
+                byName.put(name, constants[i]);
+                byLowerName.put(name.toLowerCase(Locale.ROOT), constants[i]);
+            }
+        }
+
+        @SuppressWarnings("unchecked")
+        private <TYPE> TYPE find(String name) {
+            // exact matches, the common case, don't allocate a lower-cased name
+            Object value = byName.get(name);
+            return (TYPE) (value != null ? value : byLowerName.get(name.toLowerCase(Locale.ROOT)));
+        }
+
+        // the constant named text[from, to) ignoring case, null if there's none
+        @SuppressWarnings("unchecked")
+        private <TYPE> TYPE find(String text, int from, int to) {
+            if (names.length > SCAN_LIMIT) {
+                return find(text.substring(from, to));
+            }
+            int length = to - from;
+            for (int i = 0; i < names.length; i++) {
+                if (names[i].length() == length && text.regionMatches(true, from, names[i], 0, length)) {
+                    return (TYPE) constants[i];
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final class ScalarConverter<TYPE> implements Converter<TYPE> {
+        private final Function<String, TYPE> parser;
+
+        private ScalarConverter(Function<String, TYPE> parser) {
+            this.parser = parser;
+        }
+
+        @Override
+        public TYPE parse(String text) {
+            return parser.apply(text);
+        }
+
+        @Override
+        public String format(TYPE value) {
+            return value.toString();
+        }
+    }
+
+    private static final class IntegerConverter implements Converter<Integer> {
+        @Override
+        public Integer parse(String text) {
+            return parseInt(text, 0, text.length());
+        }
+
+        @Override
+        public Integer parse(String text, int from, int to) {
+            return parseInt(text, from, to);
+        }
+
+        @Override
+        public String format(Integer value) {
+            return value.toString();
+        }
+    }
+
+    private static final class LongConverter implements Converter<Long> {
+        @Override
+        public Long parse(String text) {
+            return parseLong(text, 0, text.length());
+        }
+
+        @Override
+        public Long parse(String text, int from, int to) {
+            return parseLong(text, from, to);
+        }
+
+        @Override
+        public String format(Long value) {
+            return value.toString();
+        }
+    }
+
+    private static final class EnumConverter<TYPE> implements Converter<TYPE> {
+        private final EnumLookup lookup;
+        private final Class<?>   type;
+
+        private EnumConverter(Class<?> type) {
+            this.lookup = ENUM_LOOKUPS.get(type);
+            this.type = type;
+        }
+
+        @Override
+        public TYPE parse(String text) {
+            TYPE value = lookup.find(text.trim());
+            if (value == null) {
+                throw new IllegalArgumentException("No constant of " + type.getName() + " named \"" + text + "\"");
+            }
+            return value;
+        }
+    }
+
+    private static final class EnumMaskConverter<TYPE extends Enum<TYPE>> implements Converter<Set<TYPE>> {
+        private final Class<TYPE> type;
+        private final EnumLookup  lookup;
+        private final boolean     asEnumSet;
+        private final char        separator;
+
+        @SuppressWarnings("unchecked")
+        private EnumMaskConverter(Class<?> type, boolean asEnumSet, char separator) {
+            this.type = (Class<TYPE>) type;
+            this.lookup = ENUM_LOOKUPS.get(type);
+            this.asEnumSet = asEnumSet;
+            this.separator = separator;
+        }
+
+        @Override
+        public Set<TYPE> parse(String text) {
+            long bits = 0;
+            long[] words = null;
+            Tokenizer tokens = new Tokenizer(text, separator);
+            while (tokens.next()) {
+                TYPE value = lookup.find(text, tokens.from, tokens.to);
+                if (value == null) {
+                    throw new IllegalArgumentException("No constant of " + type.getName() + " named \""
+                            + text.substring(tokens.from, tokens.to) + "\"");
+                }
+                int ordinal = value.ordinal();
+                if (ordinal < 64) {
+                    bits |= 1L << ordinal;
+                } else {
+                    if (words == null) {
+                        words = new long[(ordinal >>> 6) + 1];
+                    } else if (words.length <= ordinal >>> 6) {
+                        words = Arrays.copyOf(words, (ordinal >>> 6) + 1);
+                    }
+                    words[ordinal >>> 6] |= 1L << ordinal;
+                }
+            }
+            EnumMask<TYPE> mask;
+            if (words != null) {
+                words[0] = bits;
+                mask = EnumMask.ofWords(type, words);
+            } else {
+                mask = EnumMask.ofBits(type, bits);
+            }
+            return asEnumSet ? mask.toEnumSet() : mask;
+        }
+
+        @Override
+        public void format(Set<TYPE> values, StringBuilder builder) {
+            // EnumMask and EnumSet both iterate in ordinal order
+            boolean first = true;
+            for (TYPE value : values) {
+                if (!first) {
+                    builder.append(separator);
+                }
+                builder.append(value);
+                first = false;
+            }
+        }
+    }
+
+    private static final class CollectionConverter<TYPE> implements Converter<Collection<TYPE>> {
+        private final Converter<TYPE>               elementConverter;
+        private final IntFunction<Collection<TYPE>> factory;
+        private final char                          separator;
+
+        private CollectionConverter(Converter<TYPE> elementConverter, IntFunction<Collection<TYPE>> factory,
+                                    char separator) {
+            this.elementConverter = elementConverter;
+            this.factory = factory;
+            this.separator = separator;
+        }
+
+        @Override
+        public Collection<TYPE> parse(String text) {
+            Collection<TYPE> values = factory.apply(countTokens(text, separator));
+            Tokenizer tokens = new Tokenizer(text, separator);
+            while (tokens.next()) {
+                values.add(elementConverter.parse(text, tokens.from, tokens.to));
+            }
+            return values;
+        }
+
+        @Override
+        public void format(Collection<TYPE> values, StringBuilder builder) {
+            boolean first = true;
+            for (TYPE value : values) {
+                if (!first) {
+                    builder.append(separator);
+                }
+                elementConverter.format(value, builder);
+                first = false;
+            }
+        }
+    }
+
+    private static final class ArrayConverter implements Converter<Object> {
+        private final Class<?>          componentType;
+        private final Converter<Object> elementConverter;
+        private final char              separator;
+
+        private ArrayConverter(Class<?> componentType, Converter<Object> elementConverter, char separator) {
+            this.componentType = componentType;
+            this.elementConverter = elementConverter;
+            this.separator = separator;
+        }
+
+        @Override
+        public Object parse(String text) {
+            Object[] values = new Object[countTokens(text, separator)];
+            int count = 0;
+            Tokenizer tokens = new Tokenizer(text, separator);
+            while (tokens.next()) {
+                values[count++] = elementConverter.parse(text, tokens.from, tokens.to);
+            }
+            Object array = Array.newInstance(componentType, count);
+            if (!componentType.isPrimitive()) {
+                System.arraycopy(values, 0, array, 0, count);
+            } else {
+                // unboxes
+                for (int i = 0; i < count; i++) {
+                    Array.set(array, i, values[i]);
+                }
+            }
+            return array;
+        }
+
+        @Override
+        public void format(Object array, StringBuilder builder) {
+            for (int i = 0, length = Array.getLength(array); i < length; i++) {
+                if (i > 0) {
+                    builder.append(separator);
+                }
+                elementConverter.format(Array.get(array, i), builder);
+            }
+        }
+    }
+
+    private static final class IntArrayConverter implements Converter<int[]> {
+        private final char separator;
+
+        private IntArrayConverter(char separator) {
+            this.separator = separator;
+        }
+
+        @Override
+        public int[] parse(String text) {
+            int[] values = new int[countTokens(text, separator)];
+            int count = 0;
+            Tokenizer tokens = new Tokenizer(text, separator);
+            while (tokens.next()) {
+                values[count++] = parseInt(text, tokens.from, tokens.to);
+            }
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+
+        @Override
+        public void format(int[] values, StringBuilder builder) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    builder.append(separator);
+                }
+                builder.append(values[i]);
+            }
+        }
+    }
+
+    private static final class LongArrayConverter implements Converter<long[]> {
+        private final char separator;
+
+        private LongArrayConverter(char separator) {
+            this.separator = separator;
+        }
+
+        @Override
+        public long[] parse(String text) {
+            long[] values = new long[countTokens(text, separator)];
+            int count = 0;
+            Tokenizer tokens = new Tokenizer(text, separator);
+            while (tokens.next()) {
+                values[count++] = parseLong(text, tokens.from, tokens.to);
+            }
+            return count == values.length ? values : Arrays.copyOf(values, count);
+        }
+
+        @Override
+        public void format(long[] values, StringBuilder builder) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    builder.append(separator);
+                }
+                builder.append(values[i]);
+            }
+        }
+    }
+}
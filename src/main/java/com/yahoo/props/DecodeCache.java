@@ -0,0 +1,143 @@
+package com.yahoo.props;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.MapMaker;
+import com.yahoo.props.PropDefinerBuilder.TypeGetter;
+import com.yahoo.props.PropDefinerBuilder.TypeSetter;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+// memoizes decoded values per context and prop ordinal, valid as long as the raw value is the very same object;
+// every reader gets the same cached value, so only immutable types are cached as they are, lists, sets and maps are
+// frozen into immutable copies once at decode time and other types aren't cached
+class DecodeCache<CONTEXT> {
+    private static final Decoded[] NO_ENTRIES      = {};
+    private static final Set<Type> IMMUTABLE_TYPES = ImmutableSet.of(String.class, Integer.class, Long.class,
+            Double.class, Float.class, Short.class, Byte.class, Character.class, Boolean.class, BigInteger.class,
+            BigDecimal.class);
+
+    private final TypeGetter<CONTEXT, ?>           rawGetter;
+    private final ConcurrentMap<Object, Decoded[]> entries = new MapMaker().weakKeys().makeMap();
+
+    DecodeCache(TypeGetter<CONTEXT, ?> rawGetter) {
+        this.rawGetter = rawGetter;
+    }
+
+    static boolean isCacheable(Type type) {
+        return freezerOf(type) != null;
+    }
+
+    // turns a decoded value into one that can be handed out to every reader, null if the type can't be
+    @SuppressWarnings("unchecked")
+    private static UnaryOperator<Object> freezerOf(Type type) {
+        Type rawType = type instanceof ParameterizedType ? ((ParameterizedType) type).getRawType() : type;
+        if (IMMUTABLE_TYPES.contains(rawType) || rawType == EnumMask.class
+                || rawType instanceof Class && ((Class<?>) rawType).isEnum()) {
+            return UnaryOperator.identity();
+        }
+        // guava's immutable collections reject nulls, values holding them get an unmodifiable copy instead
+        if (rawType == List.class) {
+            return value -> value == null ? null : hasNull((Collection<Object>) value)
+                    ? Collections.unmodifiableList(new ArrayList<>((Collection<Object>) value))
+                    : ImmutableList.copyOf((Collection<Object>) value);
+        }
+        if (rawType == Set.class) {
+            return value -> value == null ? null : hasNull((Collection<Object>) value)
+                    ? Collections.unmodifiableSet(new LinkedHashSet<>((Collection<Object>) value))
+                    : ImmutableSet.copyOf((Collection<Object>) value);
+        }
+        if (rawType == Map.class) {
+            return value -> {
+                if (value == null) {
+                    return null;
+                }
+                Map<Object, Object> map = (Map<Object, Object>) value;
+                return hasNull(map.keySet()) || hasNull(map.values())
+                        ? Collections.unmodifiableMap(new LinkedHashMap<>(map)) : ImmutableMap.copyOf(map);
+            };
+        }
+        return null;
+    }
+
+    private static boolean hasNull(Collection<?> values) {
+        for (Object value : values) {
+            if (value == null) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    <TYPE> TypeGetter<CONTEXT, TYPE> wrap(TypeGetter<CONTEXT, TYPE> typeGetter, int ordinal, Type type) {
+        UnaryOperator<Object> freezer = freezerOf(type);
+        return (context, name) -> {
+            Object raw = rawGetter.getFrom(context, name);
+            if (raw == null) {
+                return typeGetter.getFrom(context, name);
+            }
+            Decoded decoded = read(context, ordinal);
+            if (decoded == null || decoded.raw != raw) {
+                decoded = new Decoded(raw, freezer.apply(typeGetter.getFrom(context, name)));
+                write(context, ordinal, decoded);
+            }
+            @SuppressWarnings("unchecked")
+            TYPE value = (TYPE) decoded.value;
+            return value;
+        };
+    }
+
+    <TYPE> TypeSetter<CONTEXT, TYPE> wrap(TypeSetter<CONTEXT, TYPE> typeSetter, int ordinal) {
+        return (context, name, value) -> {
+            if (read(context, ordinal) != null) {
+                write(context, ordinal, null);
+            }
+            typeSetter.setTo(context, name, value);
+        };
+    }
+
+    private Decoded read(CONTEXT context, int ordinal) {
+        Decoded[] contextEntries = entries.get(context);
+        return contextEntries != null && ordinal < contextEntries.length ? contextEntries[ordinal] : null;
+    }
+
+    // copies on write, so that concurrent writes of one context don't lose each other's entries
+    private void write(CONTEXT context, int ordinal, Decoded decoded) {
+        entries.compute(context, (key, contextEntries) -> {
+            if (contextEntries == null) {
+                contextEntries = NO_ENTRIES;
+            }
+            if (ordinal >= contextEntries.length && decoded == null) {
+                return contextEntries != NO_ENTRIES ? contextEntries : null;
+            }
+            Decoded[] written = Arrays.copyOf(contextEntries, Math.max(ordinal + 1, contextEntries.length));
+            written[ordinal] = decoded;
+            return written;
+        });
+    }
+
+    private static class Decoded {
+        private final Object raw;
+        private final Object value;
+
+        private Decoded(Object raw, Object value) {
+            this.raw = raw;
+            this.value = value;
+        }
+    }
+}
@@ -0,0 +1,237 @@
+package com.yahoo.props;
+
+import com.google.common.collect.MapMaker;
+
+import java.lang.ref.WeakReference;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.UnaryOperator;
+
+// prop-to-prop reset dependencies of one definer; in push mode setTo marks the transitive downstream props dirty
+// per context so that their reads skip dependency evaluation until then
+class DependencyGraph {
+    private static final int[] NO_ORDINALS = {};
+
+    private final boolean                          pushInvalidation;
+    // null if contexts aren't layered
+    private final UnaryOperator<Object>            parentGetter;
+    private final List<Set<PropImpl<?, ?>>>        downstreamByOrdinal = new ArrayList<>();
+    private final List<Set<PropImpl<?, ?>>>        upstreamByOrdinal   = new ArrayList<>();
+    private volatile int[][]                       transitiveDownstream;
+    // weak keys are compared by identity
+    private final ConcurrentMap<Object, DirtyBits> dirtyBits           = new MapMaker().weakKeys().makeMap();
+    // most requests touch one context at a time, spare the map lookup for it
+    private volatile DirtyBits                     lastDirtyBits;
+
+    DependencyGraph(boolean pushInvalidation, UnaryOperator<Object> parentGetter) {
+        this.pushInvalidation = pushInvalidation;
+        this.parentGetter = parentGetter;
+    }
+
+    // returns whether the edge is tracked by push invalidation, otherwise the caller has to poll upstream
+    synchronized boolean addEdge(Prop<?, ?> upstream, PropImpl<?, ?> downstream) {
+        if (!(upstream instanceof PropImpl) || ((PropImpl<?, ?>) upstream).getDependencyGraph() != this) {
+            return false;
+        }
+        List<String> cycle = findPath(downstream, (PropImpl<?, ?>) upstream);
+        if (cycle != null) {
+            cycle.add(downstream.getName());
+            throw new IllegalArgumentException("Reset dependency cycle: " + String.join(" -> ", cycle));
+        }
+        while (downstreamByOrdinal.size() <= upstream.getOrdinal()) {
+            downstreamByOrdinal.add(new LinkedHashSet<>());
+        }
+        downstreamByOrdinal.get(upstream.getOrdinal()).add(downstream);
+        while (upstreamByOrdinal.size() <= downstream.getOrdinal()) {
+            upstreamByOrdinal.add(new LinkedHashSet<>());
+        }
+        upstreamByOrdinal.get(downstream.getOrdinal()).add((PropImpl<?, ?>) upstream);
+        transitiveDownstream = null;
+        return pushInvalidation;
+    }
+
+    // names along a downstream path from 'from' to 'to', null if there is none
+    private List<String> findPath(PropImpl<?, ?> from, PropImpl<?, ?> to) {
+        if (from == to) {
+            List<String> path = new ArrayList<>();
+            path.add(from.getName());
+            return path;
+        }
+        if (from.getOrdinal() < downstreamByOrdinal.size()) {
+            for (PropImpl<?, ?> next : downstreamByOrdinal.get(from.getOrdinal())) {
+                List<String> path = findPath(next, to);
+                if (path != null) {
+                    path.add(0, from.getName());
+                    return path;
+                }
+            }
+        }
+        return null;
+    }
+
+    synchronized List<PropImpl<?, ?>> upstreamOf(int ordinal) {
+        return ordinal < upstreamByOrdinal.size()
+                ? new ArrayList<>(upstreamByOrdinal.get(ordinal)) : new ArrayList<>();
+    }
+
+    // ordinals 0 until ordinalCount with every prop after the props it depends on, otherwise in ordinal order
+    synchronized int[] topologicalOrder(int ordinalCount) {
+        int[] order = new int[ordinalCount];
+        int[] pendingUpstream = new int[ordinalCount];
+        for (int ordinal = 0; ordinal < Math.min(ordinalCount, upstreamByOrdinal.size()); ordinal++) {
+            pendingUpstream[ordinal] = upstreamByOrdinal.get(ordinal).size();
+        }
+        int count = 0;
+        for (int ordinal = 0; ordinal < ordinalCount; ordinal++) {
+            if (pendingUpstream[ordinal] == 0) {
+                order[count++] = ordinal;
+            }
+        }
+        // edges are acyclic, see addEdge
+        for (int next = 0; next < count; next++) {
+            int ordinal = order[next];
+            if (ordinal < downstreamByOrdinal.size()) {
+                for (PropImpl<?, ?> downstream : downstreamByOrdinal.get(ordinal)) {
+                    if (--pendingUpstream[downstream.getOrdinal()] == 0) {
+                        order[count++] = downstream.getOrdinal();
+                    }
+                }
+            }
+        }
+        return order;
+    }
+
+    boolean isPushInvalidation() {
+        return pushInvalidation;
+    }
+
+    boolean isDirty(Object context, int ordinal) {
+        DirtyBits bits = dirtyBitsOf(context);
+        if (bits == null) {
+            bits = inheritedDirtyBitsOf(context);
+        }
+        return bits != null && bits.get(ordinal);
+    }
+
+    private DirtyBits dirtyBitsOf(Object context) {
+        DirtyBits bits = lastDirtyBits;
+        if (bits != null && bits.context.get() == context) {
+            return bits;
+        }
+        bits = dirtyBits.get(context);
+        if (bits != null) {
+            lastDirtyBits = bits;
+        }
+        return bits;
+    }
+
+    // a layered context without bits of its own sees those of its closest ancestor
+    private DirtyBits inheritedDirtyBitsOf(Object context) {
+        if (parentGetter == null) {
+            return null;
+        }
+        DirtyBits bits = null;
+        while (bits == null && context != null) {
+            context = parentGetter.apply(context);
+            bits = context != null ? dirtyBits.get(context) : null;
+        }
+        return bits;
+    }
+
+    // the prop at ordinal got a new value in context: it's clean, everything downstream of it is dirty
+    void onSet(Object context, int ordinal) {
+        int[] downstream = transitiveDownstream(ordinal);
+        DirtyBits bits = dirtyBitsOf(context);
+        if (bits == null) {
+            DirtyBits inherited = inheritedDirtyBitsOf(context);
+            if (downstream.length == 0 && (inherited == null || !inherited.get(ordinal))) {
+                return;
+            }
+            bits = dirtyBits.computeIfAbsent(context, c -> new DirtyBits(c, inherited));
+        }
+        if (!bits.isMarked(ordinal, downstream)) {
+            bits.clearAndSet(ordinal, downstream);
+        }
+    }
+
+    private int[] transitiveDownstream(int ordinal) {
+        int[][] closures = transitiveDownstream;
+        if (closures == null) {
+            closures = computeTransitiveDownstream();
+        }
+        return ordinal < closures.length ? closures[ordinal] : NO_ORDINALS;
+    }
+
+    private synchronized int[][] computeTransitiveDownstream() {
+        if (transitiveDownstream != null) {
+            return transitiveDownstream;
+        }
+        int[][] closures = new int[downstreamByOrdinal.size()][];
+        for (int ordinal = 0; ordinal < closures.length; ordinal++) {
+            Set<Integer> reached = new LinkedHashSet<>();
+            Deque<PropImpl<?, ?>> queue = new ArrayDeque<>(downstreamByOrdinal.get(ordinal));
+            while (!queue.isEmpty()) {
+                PropImpl<?, ?> prop = queue.poll();
+                if (reached.add(prop.getOrdinal()) && prop.getOrdinal() < downstreamByOrdinal.size()) {
+                    queue.addAll(downstreamByOrdinal.get(prop.getOrdinal()));
+                }
+            }
+            closures[ordinal] = reached.stream().mapToInt(Integer::intValue).toArray();
+        }
+        transitiveDownstream = closures;
+        return closures;
+    }
+
+    // written under its lock, read without: a reader racing a writer of the same context sees either state
+    private static final class DirtyBits {
+        private final WeakReference<Object> context;
+        private volatile long[]             words = new long[1];
+
+        DirtyBits(Object context, DirtyBits inherited) {
+            this.context = new WeakReference<>(context);
+            if (inherited != null) {
+                this.words = inherited.words.clone();
+            }
+        }
+
+        boolean get(int ordinal) {
+            long[] words = this.words;
+            int word = ordinal >>> 6;
+            return word < words.length && (words[word] & (1L << ordinal)) != 0;
+        }
+
+        boolean isMarked(int cleanOrdinal, int[] dirtyOrdinals) {
+            if (get(cleanOrdinal)) {
+                return false;
+            }
+            for (int ordinal : dirtyOrdinals) {
+                if (!get(ordinal)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        synchronized void clearAndSet(int cleanOrdinal, int[] dirtyOrdinals) {
+            long[] words = this.words;
+            int word = cleanOrdinal >>> 6;
+            if (word < words.length) {
+                words[word] &= ~(1L << cleanOrdinal);
+            }
+            for (int ordinal : dirtyOrdinals) {
+                word = ordinal >>> 6;
+                if (word >= words.length) {
+                    words = Arrays.copyOf(words, Math.max(word + 1, words.length * 2));
+                }
+                words[word] |= 1L << ordinal;
+            }
+            this.words = words;
+        }
+    }
+}
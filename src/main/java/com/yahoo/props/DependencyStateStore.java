@@ -0,0 +1,27 @@
+package com.yahoo.props;
+
+/**
+ * Keeps the reset dependency stamps of props per context. Keys are precomputed per prop and dependency, so
+ * implementations may rely on key identity and should not allocate on {@link #readStamp}.
+ */
+public interface DependencyStateStore<CONTEXT> {
+    long NO_STAMP   = Long.MIN_VALUE;
+    long NULL_STAMP = Long.MAX_VALUE;
+
+    static long stampOf(Object nullableTarget) {
+        return (nullableTarget == null) ? NULL_STAMP : nullableTarget.hashCode();
+    }
+
+    /**
+     * Side table keyed by context identity which holds onto contexts weakly, so nothing is written to contexts.
+     */
+    static <CONTEXT> DependencyStateStore<CONTEXT> newWeakIdentityStore() {
+        return new WeakIdentityDependencyStateStore<>();
+    }
+
+    long readStamp(CONTEXT context, String key);
+
+    void writeStamp(CONTEXT context, String key, long stamp);
+
+    void clearStamp(CONTEXT context, String key);
+}
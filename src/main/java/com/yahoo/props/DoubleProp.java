@@ -0,0 +1,11 @@
+package com.yahoo.props;
+
+public interface DoubleProp<CONTEXT> extends Prop<CONTEXT, Double> {
+    default double getAsDouble(CONTEXT context) {
+        return getAsDouble(context, 0.0d);
+    }
+
+    double getAsDouble(CONTEXT context, double substIfNull);
+
+    void setAsDouble(CONTEXT context, double value);
+}
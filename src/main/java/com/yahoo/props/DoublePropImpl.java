@@ -0,0 +1,106 @@
+package com.yahoo.props;
+
+import com.yahoo.props.PropDefinerBuilder.*;
+
+import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+class DoublePropImpl<CONTEXT> extends PropImpl<CONTEXT, Double> implements DoubleProp<CONTEXT> {
+    private final DoubleGetter<CONTEXT> doubleGetter;
+    private final DoubleSetter<CONTEXT> doubleSetter;
+    private final boolean               primitiveCapable;
+    private ToDoubleFunction<CONTEXT>   doubleInitializer;
+
+    DoublePropImpl(String name,
+                   int ordinal,
+                   TypeGetter<CONTEXT, Double> typeGetter,
+                   TypeSetter<CONTEXT, Double> typeSetter,
+                   DependencyStateStore<CONTEXT> dependencyStateStore,
+                   InitFlights initFlights,
+                   DependencyGraph dependencyGraph,
+                   PropCounters counters,
+                   EventHandler<CONTEXT> afterInitEventHandler,
+                   EventHandler<CONTEXT> afterGetEventHandler,
+                   EventHandler<CONTEXT> afterSetEventHandler,
+                   DoubleGetter<CONTEXT> doubleGetter,
+                   DoubleSetter<CONTEXT> doubleSetter,
+                   ToDoubleFunction<CONTEXT> doubleInitializer) {
+        super(name, ordinal, Double.class, typeGetter, typeSetter, dependencyStateStore, initFlights, dependencyGraph,
+                counters, afterInitEventHandler, afterGetEventHandler, afterSetEventHandler,
+                doubleInitializer == null ? null : doubleInitializer::applyAsDouble);
+        this.doubleGetter = doubleGetter;
+        this.doubleSetter = doubleSetter;
+        this.doubleInitializer = doubleInitializer;
+        // event handlers take boxed values anyway, counting is done on the boxed path
+        this.primitiveCapable = doubleGetter != null && doubleSetter != null
+                && afterInitEventHandler == null && afterGetEventHandler == null && afterSetEventHandler == null
+                && counters == null;
+    }
+
+    private boolean isPrimitivePath() {
+        return primitiveCapable && !hasDependencies() && (doubleInitializer != null || !hasDefaultInitializer());
+    }
+
+    @Override
+    public double getAsDouble(CONTEXT context, double substIfNull) {
+        if (!isPrimitivePath()) {
+            Double value = getFrom(context, null);
+            return value != null ? value : substIfNull;
+        }
+
+        requireNonNull(context, () -> nonNullMessage("context"));
+
+        if (doubleInitializer == null) {
+            return doubleGetter.getFrom(context, getName(), substIfNull);
+        }
+        double value = doubleGetter.getFrom(context, getName(), Double.NEGATIVE_INFINITY);
+        if (!isAbsentValue(context, value)) {
+            return value;
+        }
+        if (isWatched()) {
+            // the boxed initialization notifies the listeners
+            Double initialized = getFrom(context, null);
+            return initialized != null ? initialized : substIfNull;
+        }
+        if (!isConcurrentInitialization()) {
+            return initializeDouble(context);
+        }
+        return runInitialization(context, () -> {
+            double current = doubleGetter.getFrom(context, getName(), Double.NEGATIVE_INFINITY);
+            return isAbsentValue(context, current) ? initializeDouble(context) : current;
+        });
+    }
+
+    // absent only if the getter returns both substitutes
+    private boolean isAbsentValue(CONTEXT context, double value) {
+        return value == Double.NEGATIVE_INFINITY
+                && doubleGetter.getFrom(context, getName(), Double.POSITIVE_INFINITY) == Double.POSITIVE_INFINITY;
+    }
+
+    private double initializeDouble(CONTEXT context) {
+        double value = doubleInitializer.applyAsDouble(context);
+        doubleSetter.setTo(context, getName(), value);
+        markSet(context);
+        return value;
+    }
+
+    @Override
+    public void setAsDouble(CONTEXT context, double value) {
+        // watched props take the boxed path, which reads the old value to compare
+        if (isPrimitivePath() && !isWatched()) {
+            doubleSetter.setTo(context, getName(), value);
+            markSet(context);
+        } else {
+            setTo(context, value);
+        }
+    }
+
+    @Override
+    public void overrideDefaultInitializer(Function<CONTEXT, Double> defaultInitializer) {
+        this.doubleInitializer = null;
+        super.overrideDefaultInitializer(defaultInitializer);
+    }
+}
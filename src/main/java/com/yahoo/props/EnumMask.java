@@ -0,0 +1,328 @@
+package com.yahoo.props;
+
+import com.google.common.reflect.TypeParameter;
+import com.google.common.reflect.TypeToken;
+
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Immutable set of the constants of an enum type kept as a bitmask over their ordinals, a single {@code long} for
+ * enums of up to 64 constants and a {@code long[]} for larger ones. Membership tests, size, equality and the hash
+ * code, which is also the reset dependency stamp of props of this type, take a few machine operations and no
+ * allocation; the hash code is computed once per instance.
+ * <p>
+ * Props of type {@code EnumMask<E>} are defined with {@link PropDefiner#defineEnumMask(String, Class)} and matched
+ * by {@link TypeFilter#ENUM_MASK}. Mutators return new instances.
+ */
+public final class EnumMask<E extends Enum<E>> extends AbstractSet<E> {
+    // enum constants by type without cloning the array per call, as getEnumConstants() does
+    private static final ClassValue<Object[]> UNIVERSES = new ClassValue<Object[]>() {
+        @Override
+        protected Object[] computeValue(Class<?> type) {
+            return type.getEnumConstants();
+        }
+    };
+
+    private final Class<E> type;
+    // ordinals below 64, only if the enum has no more than 64 constants
+    private final long     bits;
+    // all ordinals, only if the enum has more than 64 constants
+    private final long[]   words;
+    // Set.hashCode(), computed lazily; 0 may also mean not computed yet
+    private int            hash;
+
+    private EnumMask(Class<E> type, long bits, long[] words) {
+        this.type = type;
+        this.bits = bits;
+        this.words = words;
+    }
+
+    public static <E extends Enum<E>> EnumMask<E> noneOf(Class<E> type) {
+
+        requireNonNull(type, nonNullMessage("type"));
+        if (!type.isEnum()) {
+            throw new IllegalArgumentException("Not an enum type: " + type.getName());
+        }
+
+        return isLarge(type) ? new EnumMask<>(type, 0, new long[wordCountOf(type)]) : new EnumMask<>(type, 0, null);
+    }
+
+    public static <E extends Enum<E>> EnumMask<E> allOf(Class<E> type) {
+        EnumMask<E> none = noneOf(type);
+        int size = universeOf(type).length;
+        if (none.words == null) {
+            return new EnumMask<>(type, size == 64 ? -1L : (1L << size) - 1, null);
+        }
+        long[] words = none.words;
+        Arrays.fill(words, -1L);
+        words[words.length - 1] = -1L >>> (64 * words.length - size);
+        return new EnumMask<>(type, 0, words);
+    }
+
+    @SafeVarargs
+    public static <E extends Enum<E>> EnumMask<E> of(E first, E... rest) {
+
+        requireNonNull(first, nonNullMessage("first"));
+
+        EnumMask<E> mask = noneOf(first.getDeclaringClass());
+        long[] words = mask.words;
+        long bits = 0;
+        bits = set(bits, words, first.ordinal());
+        for (E value : rest) {
+            bits = set(bits, words, value.ordinal());
+        }
+        return new EnumMask<>(mask.type, bits, words);
+    }
+
+    @SuppressWarnings("unchecked")
+    public static <E extends Enum<E>> EnumMask<E> copyOf(Class<E> type, Collection<E> values) {
+
+        requireNonNull(values, nonNullMessage("values"));
+
+        if (values instanceof EnumMask && ((EnumMask<?>) values).type == type) {
+            return (EnumMask<E>) values;
+        }
+        EnumMask<E> mask = noneOf(type);
+        long[] words = mask.words;
+        long bits = 0;
+        for (E value : values) {
+            bits = set(bits, words, type.cast(value).ordinal());
+        }
+        return new EnumMask<>(type, bits, words);
+    }
+
+    // the set of the ordinals whose bits are set, bit 0 for ordinal 0
+    public static <E extends Enum<E>> EnumMask<E> ofBits(Class<E> type, long bits) {
+        EnumMask<E> none = noneOf(type);
+        if (none.words != null) {
+            none.words[0] = bits;
+            return none;
+        }
+        checkBits(type, bits);
+        return new EnumMask<>(type, bits, null);
+    }
+
+    public static <E extends Enum<E>> EnumMask<E> ofWords(Class<E> type, long[] words) {
+
+        requireNonNull(words, nonNullMessage("words"));
+
+        if (!isLarge(type)) {
+            long bits = 0;
+            for (int i = 0; i < words.length; i++) {
+                if (i == 0) {
+                    bits = words[0];
+                } else if (words[i] != 0) {
+                    throw new IllegalArgumentException("Ordinal out of range for " + type.getName());
+                }
+            }
+            return ofBits(type, bits);
+        }
+        EnumMask<E> none = noneOf(type);
+        if (words.length > none.words.length) {
+            for (int i = none.words.length; i < words.length; i++) {
+                if (words[i] != 0) {
+                    throw new IllegalArgumentException("Ordinal out of range for " + type.getName());
+                }
+            }
+        }
+        System.arraycopy(words, 0, none.words, 0, Math.min(words.length, none.words.length));
+        checkBits(type, none.words[none.words.length - 1], none.words.length - 1);
+        return none;
+    }
+
+    @SuppressWarnings("serial")
+    public static <E extends Enum<E>> TypeToken<EnumMask<E>> typeTokenOf(Class<E> type) {
+
+        requireNonNull(type, nonNullMessage("type"));
+
+        return new TypeToken<EnumMask<E>>() {}.where(new TypeParameter<E>() {}, type);
+    }
+
+    public Class<E> getType() {
+        return type;
+    }
+
+    // the bits of ordinals below 64
+    public long bits() {
+        return words == null ? bits : words[0];
+    }
+
+    public long[] words() {
+        return words == null ? new long[] {bits} : words.clone();
+    }
+
+    public boolean contains(E value) {
+        int ordinal = value.ordinal();
+        if (words == null) {
+            return (bits & (1L << ordinal)) != 0;
+        }
+        return (words[ordinal >>> 6] & (1L << ordinal)) != 0;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public boolean contains(Object value) {
+        return type.isInstance(value) && contains((E) value);
+    }
+
+    public EnumMask<E> with(E value) {
+        if (contains(value)) {
+            return this;
+        }
+        long[] copy = words != null ? words.clone() : null;
+        return new EnumMask<>(type, set(bits, copy, value.ordinal()), copy);
+    }
+
+    public EnumMask<E> without(E value) {
+        if (!contains(value)) {
+            return this;
+        }
+        int ordinal = value.ordinal();
+        if (words == null) {
+            return new EnumMask<>(type, bits & ~(1L << ordinal), null);
+        }
+        long[] copy = words.clone();
+        copy[ordinal >>> 6] &= ~(1L << ordinal);
+        return new EnumMask<>(type, 0, copy);
+    }
+
+    public EnumSet<E> toEnumSet() {
+        EnumSet<E> set = EnumSet.noneOf(type);
+        for (E value : this) {
+            set.add(value);
+        }
+        return set;
+    }
+
+    @Override
+    public int size() {
+        if (words == null) {
+            return Long.bitCount(bits);
+        }
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    @Override
+    public boolean isEmpty() {
+        if (words == null) {
+            return bits == 0;
+        }
+        for (long word : words) {
+            if (word != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new Iterator<E>() {
+            private final Object[] universe = universeOf(type);
+            private int            next     = nextOrdinal(0);
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            public E next() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                E value = (E) universe[next];
+                next = nextOrdinal(next + 1);
+                return value;
+            }
+        };
+    }
+
+    // the least ordinal in the set not below from, -1 if there's none
+    private int nextOrdinal(int from) {
+        if (words == null) {
+            if (from >= 64) {
+                return -1;
+            }
+            long remaining = bits & (-1L << from);
+            return remaining != 0 ? Long.numberOfTrailingZeros(remaining) : -1;
+        }
+        for (int index = from >>> 6; index < words.length; index++) {
+            long remaining = words[index] & (index == from >>> 6 ? -1L << from : -1L);
+            if (remaining != 0) {
+                return index * 64 + Long.numberOfTrailingZeros(remaining);
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this) {
+            return true;
+        }
+        if (other instanceof EnumMask) {
+            EnumMask<?> mask = (EnumMask<?>) other;
+            if (mask.type != type) {
+                return isEmpty() && mask.isEmpty();
+            }
+            return words == null ? bits == mask.bits : Arrays.equals(words, mask.words);
+        }
+        return super.equals(other);
+    }
+
+    @Override
+    public int hashCode() {
+        int hash = this.hash;
+        if (hash == 0) {
+            // the Set contract sums the elements' identity hash codes
+            hash = super.hashCode();
+            this.hash = hash;
+        }
+        return hash;
+    }
+
+    private static long set(long bits, long[] words, int ordinal) {
+        if (words == null) {
+            return bits | (1L << ordinal);
+        }
+        words[ordinal >>> 6] |= 1L << ordinal;
+        return bits;
+    }
+
+    private static void checkBits(Class<?> type, long bits) {
+        checkBits(type, bits, 0);
+    }
+
+    private static void checkBits(Class<?> type, long word, int index) {
+        int size = universeOf(type).length - index * 64;
+        if (size < 64 && (word >>> size) != 0) {
+            throw new IllegalArgumentException("Ordinal out of range for " + type.getName());
+        }
+    }
+
+    private static Object[] universeOf(Class<?> type) {
+        return UNIVERSES.get(type);
+    }
+
+    private static boolean isLarge(Class<?> type) {
+        return universeOf(type).length > 64;
+    }
+
+    private static int wordCountOf(Class<?> type) {
+        return (universeOf(type).length + 63) >>> 6;
+    }
+}
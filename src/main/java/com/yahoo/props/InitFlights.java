@@ -0,0 +1,90 @@
+package com.yahoo.props;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+// initializations in flight by (context identity, prop ordinal), entries live only while the initializer runs so
+// that no lock shared between contexts or props is held while user code runs
+final class InitFlights {
+    private final ConcurrentMap<Key, Flight> flights = new ConcurrentHashMap<>();
+
+    // null if the calling thread got to run the initialization and must end() it, else the flight of another thread
+    Flight join(Object context, int ordinal) {
+        Flight flight = new Flight();
+        Flight running = flights.putIfAbsent(new Key(context, ordinal), flight);
+        if (running != null && running.owner == Thread.currentThread()) {
+            throw new IllegalStateException("Circular initialization of prop #" + ordinal);
+        }
+        return running;
+    }
+
+    void end(Object context, int ordinal, Object value, Throwable failure) {
+        Flight flight = flights.remove(new Key(context, ordinal));
+        if (failure != null) {
+            flight.future.completeExceptionally(failure);
+        } else {
+            flight.future.complete(value);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> T run(Object context, int ordinal, Supplier<T> initialization) {
+        Flight running = join(context, ordinal);
+        if (running != null) {
+            return (T) running.await();
+        }
+        T value;
+        try {
+            value = initialization.get();
+        } catch (RuntimeException | Error e) {
+            end(context, ordinal, null, e);
+            throw e;
+        }
+        end(context, ordinal, value, null);
+        return value;
+    }
+
+    static final class Flight {
+        private final Thread                    owner  = Thread.currentThread();
+        private final CompletableFuture<Object> future = new CompletableFuture<>();
+
+        // the initialized value, or the failure of the initializing thread rethrown
+        Object await() {
+            try {
+                return future.join();
+            } catch (CompletionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                if (cause instanceof Error) {
+                    throw (Error) cause;
+                }
+                throw e;
+            }
+        }
+    }
+
+    private static final class Key {
+        private final Object context;
+        private final int    ordinal;
+
+        Key(Object context, int ordinal) {
+            this.context = context;
+            this.ordinal = ordinal;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Key && ((Key) other).context == context && ((Key) other).ordinal == ordinal;
+        }
+
+        @Override
+        public int hashCode() {
+            return System.identityHashCode(context) * 31 + ordinal;
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.yahoo.props;
+
+import com.yahoo.props.PropDefinerBuilder.TypeGetter;
+import com.yahoo.props.PropDefinerBuilder.TypeSetter;
+
+import java.lang.reflect.Type;
+import java.util.function.Function;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+// defined with a default initializer but without event handlers
+final class InitializedPropImpl<CONTEXT, TYPE> extends PropImpl<CONTEXT, TYPE> {
+
+    InitializedPropImpl(String name,
+                        int ordinal,
+                        Type type,
+                        TypeGetter<CONTEXT, TYPE> typeGetter,
+                        TypeSetter<CONTEXT, TYPE> typeSetter,
+                        DependencyStateStore<CONTEXT> dependencyStateStore,
+                        InitFlights initFlights,
+                        DependencyGraph dependencyGraph,
+                        Function<CONTEXT, TYPE> defaultInitializer) {
+        super(name, ordinal, type, typeGetter, typeSetter, dependencyStateStore, initFlights,
+                dependencyGraph, null, null, null, null, defaultInitializer);
+    }
+
+    @Override
+    public TYPE getFrom(CONTEXT context, TYPE substIfNull) {
+
+        requireNonNull(context, () -> nonNullMessage("context"));
+
+        TYPE value = callTypeGetter(context);
+
+        if (value != null) {
+            if (!hasDefaultInitializer() || !hasDependencies() || !hasAnyDependencyChanged(context)) {
+                return value;
+            }
+        }
+        return hasDefaultInitializer() ? initializeIfNeeded(context, value) : substIfNull;
+    }
+
+    @Override
+    public void setTo(CONTEXT context, TYPE value) {
+        callTypeSetter(context, value);
+    }
+}
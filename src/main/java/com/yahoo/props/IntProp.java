@@ -0,0 +1,11 @@
+package com.yahoo.props;
+
+public interface IntProp<CONTEXT> extends Prop<CONTEXT, Integer> {
+    default int getAsInt(CONTEXT context) {
+        return getAsInt(context, 0);
+    }
+
+    int getAsInt(CONTEXT context, int substIfNull);
+
+    void setAsInt(CONTEXT context, int value);
+}
@@ -0,0 +1,106 @@
+package com.yahoo.props;
+
+import com.yahoo.props.PropDefinerBuilder.*;
+
+import java.util.function.Function;
+import java.util.function.ToIntFunction;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+class IntPropImpl<CONTEXT> extends PropImpl<CONTEXT, Integer> implements IntProp<CONTEXT> {
+    private final IntGetter<CONTEXT> intGetter;
+    private final IntSetter<CONTEXT> intSetter;
+    private final boolean            primitiveCapable;
+    private ToIntFunction<CONTEXT>   intInitializer;
+
+    IntPropImpl(String name,
+                int ordinal,
+                TypeGetter<CONTEXT, Integer> typeGetter,
+                TypeSetter<CONTEXT, Integer> typeSetter,
+                DependencyStateStore<CONTEXT> dependencyStateStore,
+                InitFlights initFlights,
+                DependencyGraph dependencyGraph,
+                PropCounters counters,
+                EventHandler<CONTEXT> afterInitEventHandler,
+                EventHandler<CONTEXT> afterGetEventHandler,
+                EventHandler<CONTEXT> afterSetEventHandler,
+                IntGetter<CONTEXT> intGetter,
+                IntSetter<CONTEXT> intSetter,
+                ToIntFunction<CONTEXT> intInitializer) {
+        super(name, ordinal, Integer.class, typeGetter, typeSetter, dependencyStateStore, initFlights, dependencyGraph,
+                counters, afterInitEventHandler, afterGetEventHandler, afterSetEventHandler,
+                intInitializer == null ? null : intInitializer::applyAsInt);
+        this.intGetter = intGetter;
+        this.intSetter = intSetter;
+        this.intInitializer = intInitializer;
+        // event handlers take boxed values anyway, counting is done on the boxed path
+        this.primitiveCapable = intGetter != null && intSetter != null
+                && afterInitEventHandler == null && afterGetEventHandler == null && afterSetEventHandler == null
+                && counters == null;
+    }
+
+    private boolean isPrimitivePath() {
+        return primitiveCapable && !hasDependencies() && (intInitializer != null || !hasDefaultInitializer());
+    }
+
+    @Override
+    public int getAsInt(CONTEXT context, int substIfNull) {
+        if (!isPrimitivePath()) {
+            Integer value = getFrom(context, null);
+            return value != null ? value : substIfNull;
+        }
+
+        requireNonNull(context, () -> nonNullMessage("context"));
+
+        if (intInitializer == null) {
+            return intGetter.getFrom(context, getName(), substIfNull);
+        }
+        int value = intGetter.getFrom(context, getName(), Integer.MIN_VALUE);
+        if (!isAbsentValue(context, value)) {
+            return value;
+        }
+        if (isWatched()) {
+            // the boxed initialization notifies the listeners
+            Integer initialized = getFrom(context, null);
+            return initialized != null ? initialized : substIfNull;
+        }
+        if (!isConcurrentInitialization()) {
+            return initializeInt(context);
+        }
+        return runInitialization(context, () -> {
+            int current = intGetter.getFrom(context, getName(), Integer.MIN_VALUE);
+            return isAbsentValue(context, current) ? initializeInt(context) : current;
+        });
+    }
+
+    // absent only if the getter returns both substitutes
+    private boolean isAbsentValue(CONTEXT context, int value) {
+        return value == Integer.MIN_VALUE
+                && intGetter.getFrom(context, getName(), Integer.MAX_VALUE) == Integer.MAX_VALUE;
+    }
+
+    private int initializeInt(CONTEXT context) {
+        int value = intInitializer.applyAsInt(context);
+        intSetter.setTo(context, getName(), value);
+        markSet(context);
+        return value;
+    }
+
+    @Override
+    public void setAsInt(CONTEXT context, int value) {
+        // watched props take the boxed path, which reads the old value to compare
+        if (isPrimitivePath() && !isWatched()) {
+            intSetter.setTo(context, getName(), value);
+            markSet(context);
+        } else {
+            setTo(context, value);
+        }
+    }
+
+    @Override
+    public void overrideDefaultInitializer(Function<CONTEXT, Integer> defaultInitializer) {
+        this.intInitializer = null;
+        super.overrideDefaultInitializer(defaultInitializer);
+    }
+}
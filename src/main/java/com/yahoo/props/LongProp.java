@@ -0,0 +1,11 @@
+package com.yahoo.props;
+
+public interface LongProp<CONTEXT> extends Prop<CONTEXT, Long> {
+    default long getAsLong(CONTEXT context) {
+        return getAsLong(context, 0L);
+    }
+
+    long getAsLong(CONTEXT context, long substIfNull);
+
+    void setAsLong(CONTEXT context, long value);
+}
@@ -0,0 +1,106 @@
+package com.yahoo.props;
+
+import com.yahoo.props.PropDefinerBuilder.*;
+
+import java.util.function.Function;
+import java.util.function.ToLongFunction;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+class LongPropImpl<CONTEXT> extends PropImpl<CONTEXT, Long> implements LongProp<CONTEXT> {
+    private final LongGetter<CONTEXT> longGetter;
+    private final LongSetter<CONTEXT> longSetter;
+    private final boolean             primitiveCapable;
+    private ToLongFunction<CONTEXT>   longInitializer;
+
+    LongPropImpl(String name,
+                 int ordinal,
+                 TypeGetter<CONTEXT, Long> typeGetter,
+                 TypeSetter<CONTEXT, Long> typeSetter,
+                 DependencyStateStore<CONTEXT> dependencyStateStore,
+                 InitFlights initFlights,
+                 DependencyGraph dependencyGraph,
+                 PropCounters counters,
+                 EventHandler<CONTEXT> afterInitEventHandler,
+                 EventHandler<CONTEXT> afterGetEventHandler,
+                 EventHandler<CONTEXT> afterSetEventHandler,
+                 LongGetter<CONTEXT> longGetter,
+                 LongSetter<CONTEXT> longSetter,
+                 ToLongFunction<CONTEXT> longInitializer) {
+        super(name, ordinal, Long.class, typeGetter, typeSetter, dependencyStateStore, initFlights, dependencyGraph,
+                counters, afterInitEventHandler, afterGetEventHandler, afterSetEventHandler,
+                longInitializer == null ? null : longInitializer::applyAsLong);
+        this.longGetter = longGetter;
+        this.longSetter = longSetter;
+        this.longInitializer = longInitializer;
+        // event handlers take boxed values anyway, counting is done on the boxed path
+        this.primitiveCapable = longGetter != null && longSetter != null
+                && afterInitEventHandler == null && afterGetEventHandler == null && afterSetEventHandler == null
+                && counters == null;
+    }
+
+    private boolean isPrimitivePath() {
+        return primitiveCapable && !hasDependencies() && (longInitializer != null || !hasDefaultInitializer());
+    }
+
+    @Override
+    public long getAsLong(CONTEXT context, long substIfNull) {
+        if (!isPrimitivePath()) {
+            Long value = getFrom(context, null);
+            return value != null ? value : substIfNull;
+        }
+
+        requireNonNull(context, () -> nonNullMessage("context"));
+
+        if (longInitializer == null) {
+            return longGetter.getFrom(context, getName(), substIfNull);
+        }
+        long value = longGetter.getFrom(context, getName(), Long.MIN_VALUE);
+        if (!isAbsentValue(context, value)) {
+            return value;
+        }
+        if (isWatched()) {
+            // the boxed initialization notifies the listeners
+            Long initialized = getFrom(context, null);
+            return initialized != null ? initialized : substIfNull;
+        }
+        if (!isConcurrentInitialization()) {
+            return initializeLong(context);
+        }
+        return runInitialization(context, () -> {
+            long current = longGetter.getFrom(context, getName(), Long.MIN_VALUE);
+            return isAbsentValue(context, current) ? initializeLong(context) : current;
+        });
+    }
+
+    // absent only if the getter returns both substitutes
+    private boolean isAbsentValue(CONTEXT context, long value) {
+        return value == Long.MIN_VALUE
+                && longGetter.getFrom(context, getName(), Long.MAX_VALUE) == Long.MAX_VALUE;
+    }
+
+    private long initializeLong(CONTEXT context) {
+        long value = longInitializer.applyAsLong(context);
+        longSetter.setTo(context, getName(), value);
+        markSet(context);
+        return value;
+    }
+
+    @Override
+    public void setAsLong(CONTEXT context, long value) {
+        // watched props take the boxed path, which reads the old value to compare
+        if (isPrimitivePath() && !isWatched()) {
+            longSetter.setTo(context, getName(), value);
+            markSet(context);
+        } else {
+            setTo(context, value);
+        }
+    }
+
+    @Override
+    public void overrideDefaultInitializer(Function<CONTEXT, Long> defaultInitializer) {
+        this.longInitializer = null;
+        super.overrideDefaultInitializer(defaultInitializer);
+    }
+}
@@ -0,0 +1,318 @@
+package com.yahoo.props;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Read-only configuration context over a memory-mapped file of UTF-8 {@code key=value} lines, for props of a definer
+ * built by {@link #newDefinerBuilder()}. Opening only builds an index of key and value offsets; a value is decoded
+ * from the file on the first read of a prop and kept per key, so heap use grows with the keys actually read.
+ * Reads are lock-free and safe from any thread.
+ * <p>
+ * Like {@link java.util.Properties}, blank lines and lines starting with {@code #} or {@code !} are skipped, key and
+ * value are separated by the first {@code =} or {@code :} and trimmed, and later lines override earlier ones;
+ * escapes and continuation lines aren't supported. Values set through props, e.g. by initializers, are kept in
+ * memory on top of the file.
+ * <p>
+ * The file stays mapped until the config is garbage collected, as Java offers no supported way to unmap it
+ * earlier; on some platforms, e.g. Windows, the file can't be deleted or replaced in place until then.
+ */
+public class MappedConfig {
+    // per entry: key offset, key length, value offset, value length
+    private static final int ENTRY_INTS = 4;
+
+    private final MappedByteBuffer    buffer;
+    private final int[]               entries;
+    private final int                 size;
+    // open addressing over key hashes, slots hold entry index + 1 so that 0 marks a free slot
+    private final int[]               table;
+    // String.hashCode() of the keys, so that lookups use the hash cached in the prop name
+    private final int[]               hashes;
+    // the last key string found per entry, later lookups with the same instance skip comparing bytes
+    private final String[]            foundKeys;
+    // values by entry as strings and as last decoded to another type, written racily: decoding the same bytes
+    // twice yields equal values
+    private final String[]            strings;
+    private final Object[]            decoded;
+    private final Map<String, Object> overrides = new ConcurrentHashMap<>();
+    private volatile boolean          overridden;
+
+    private MappedConfig(MappedByteBuffer buffer) {
+        this.buffer = buffer;
+
+        int[] entries = new int[64 * ENTRY_INTS];
+        int[] hashes = new int[64];
+        int count = 0;
+        int limit = buffer.limit();
+        for (int lineStart = 0; lineStart < limit; ) {
+            int lineEnd = lineStart;
+            while (lineEnd < limit && buffer.get(lineEnd) != '\n' && buffer.get(lineEnd) != '\r') {
+                lineEnd++;
+            }
+            int keyStart = skipWhitespace(lineStart, lineEnd);
+            if (keyStart < lineEnd && buffer.get(keyStart) != '#' && buffer.get(keyStart) != '!') {
+                int separator = keyStart;
+                while (separator < lineEnd && buffer.get(separator) != '=' && buffer.get(separator) != ':') {
+                    separator++;
+                }
+                int keyEnd = trimWhitespace(keyStart, separator);
+                int valueStart = separator < lineEnd ? skipWhitespace(separator + 1, lineEnd) : lineEnd;
+                int valueEnd = trimWhitespace(valueStart, lineEnd);
+                if (count == hashes.length) {
+                    entries = Arrays.copyOf(entries, entries.length * 2);
+                    hashes = Arrays.copyOf(hashes, hashes.length * 2);
+                }
+                entries[count * ENTRY_INTS] = keyStart;
+                entries[count * ENTRY_INTS + 1] = keyEnd - keyStart;
+                entries[count * ENTRY_INTS + 2] = valueStart;
+                entries[count * ENTRY_INTS + 3] = valueEnd - valueStart;
+                hashes[count] = hashBytes(keyStart, keyEnd);
+                count++;
+            }
+            lineStart = lineEnd + 1;
+        }
+
+        this.table = new int[Math.max(2, Integer.highestOneBit(Math.max(1, count) * 2 - 1) << 1)];
+        this.entries = entries;
+        this.hashes = hashes;
+        int distinct = 0;
+        for (int entry = 0; entry < count; entry++) {
+            int slot = findSlot(hashes[entry], entry);
+            if (table[slot] == 0) {
+                distinct++;
+            }
+            // a later line overrides an earlier one
+            table[slot] = entry + 1;
+        }
+        this.size = distinct;
+        this.strings = new String[count];
+        this.decoded = new Object[count];
+        this.foundKeys = new String[count];
+    }
+
+    public static MappedConfig open(Path path) throws IOException {
+
+        requireNonNull(path, nonNullMessage("path"));
+
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Config file too large to map: " + path);
+            }
+            // the mapping stays valid after the channel is closed
+            return new MappedConfig(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    public static PropDefinerBuilder<MappedConfig> newDefinerBuilder() {
+        return PropDefinerBuilder.newBuilder(MappedConfig.class)
+                .setTypeGetter(String.class, (config, key) -> config.get(key, String.class, Function.identity()))
+                .setTypeGetter(Integer.class, (config, key) -> config.get(key, Integer.class, Integer::valueOf))
+                .setTypeGetter(Long.class, (config, key) -> config.get(key, Long.class, Long::valueOf))
+                .setTypeGetter(Double.class, (config, key) -> config.get(key, Double.class, Double::valueOf))
+                .setTypeGetter(Boolean.class, (config, key) -> config.get(key, Boolean.class, Boolean::valueOf))
+                .setTypeGetter(TypeFilter.ENUM, (config, type, key) -> config.get(key, (Class<?>) type,
+                        value -> Utils.resolveEnumValue(type, value)))
+                .setObjectGetter(MappedConfig::get)
+                .setObjectSetter(MappedConfig::set);
+    }
+
+    // number of distinct keys in the file
+    public int size() {
+        return size;
+    }
+
+    // the value set in memory, else the value in the file as a string
+    public Object get(String key) {
+        if (overridden) {
+            Object value = overrides.get(key);
+            if (value != null) {
+                return value != NullValue.INSTANCE ? value : null;
+            }
+        }
+        int entry = findEntry(key);
+        return entry >= 0 ? stringOf(entry) : null;
+    }
+
+    // the value set in memory if it is a TYPE, else the value in the file decoded once
+    public <TYPE> TYPE get(String key, Class<TYPE> type, Function<String, ? extends TYPE> decoder) {
+        if (overridden) {
+            Object value = overrides.get(key);
+            if (type.isInstance(value)) {
+                return type.cast(value);
+            }
+            if (value != null) {
+                return value != NullValue.INSTANCE ? decoder.apply(value.toString()) : null;
+            }
+        }
+        int entry = findEntry(key);
+        return entry >= 0 ? decode(entry, type, decoder) : null;
+    }
+
+    // shadows the file's value in memory, a null value hides it
+    public void set(String key, Object value) {
+
+        requireNonNull(key, nonNullMessage("key"));
+
+        overrides.put(key, value != null ? value : NullValue.INSTANCE);
+        overridden = true;
+    }
+
+    private <TYPE> TYPE decode(int entry, Class<TYPE> type, Function<String, ? extends TYPE> decoder) {
+        if (type == String.class) {
+            return type.cast(stringOf(entry));
+        }
+        Object value = decoded[entry];
+        if (type.isInstance(value)) {
+            return type.cast(value);
+        }
+        TYPE decodedValue = decoder.apply(stringOf(entry));
+        decoded[entry] = decodedValue;
+        return decodedValue;
+    }
+
+    private String stringOf(int entry) {
+        String value = strings[entry];
+        if (value == null) {
+            value = readString(entries[entry * ENTRY_INTS + 2], entries[entry * ENTRY_INTS + 3]);
+            strings[entry] = value;
+        }
+        return value;
+    }
+
+    private int findEntry(String key) {
+        int hash = key.hashCode();
+        int mask = table.length - 1;
+        for (int slot = mix(hash) & mask; table[slot] != 0; slot = (slot + 1) & mask) {
+            int entry = table[slot] - 1;
+            if (hashes[entry] == hash && (foundKeys[entry] == key || keyEquals(entry, key))) {
+                foundKeys[entry] = key;
+                return entry;
+            }
+        }
+        return -1;
+    }
+
+    // the slot of the entry's key, or the free slot it goes to
+    private int findSlot(int hash, int entry) {
+        int mask = table.length - 1;
+        int slot = mix(hash) & mask;
+        while (table[slot] != 0) {
+            int other = table[slot] - 1;
+            if (hashes[other] == hash && sameKey(other, entry)) {
+                return slot;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private boolean keyEquals(int entry, String key) {
+        int offset = entries[entry * ENTRY_INTS];
+        int length = entries[entry * ENTRY_INTS + 1];
+        byte[] keyBytes = isAscii(key) ? null : key.getBytes(UTF_8);
+        if (keyBytes == null) {
+            if (length != key.length()) {
+                return false;
+            }
+            for (int i = 0; i < length; i++) {
+                if (buffer.get(offset + i) != key.charAt(i)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+        if (length != keyBytes.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + i) != keyBytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private boolean sameKey(int entry, int other) {
+        int length = entries[entry * ENTRY_INTS + 1];
+        if (length != entries[other * ENTRY_INTS + 1]) {
+            return false;
+        }
+        int offset = entries[entry * ENTRY_INTS];
+        int otherOffset = entries[other * ENTRY_INTS];
+        for (int i = 0; i < length; i++) {
+            if (buffer.get(offset + i) != buffer.get(otherOffset + i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isAscii(String key) {
+        for (int i = 0; i < key.length(); i++) {
+            if (key.charAt(i) >= 0x80) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    // String.hashCode() of the UTF-8 bytes, computed on the bytes as long as they are ASCII
+    private int hashBytes(int from, int to) {
+        int hash = 0;
+        for (int i = from; i < to; i++) {
+            byte b = buffer.get(i);
+            if (b < 0) {
+                return readString(from, to - from).hashCode();
+            }
+            hash = 31 * hash + b;
+        }
+        return hash;
+    }
+
+    // absolute reads only, the buffer's position is never touched so readers don't interfere
+    private String readString(int offset, int length) {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = buffer.get(offset + i);
+        }
+        return new String(bytes, UTF_8);
+    }
+
+    private int skipWhitespace(int from, int to) {
+        while (from < to && isWhitespace(buffer.get(from))) {
+            from++;
+        }
+        return from;
+    }
+
+    private int trimWhitespace(int from, int to) {
+        while (to > from && isWhitespace(buffer.get(to - 1))) {
+            to--;
+        }
+        return to;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return b == ' ' || b == '\t' || b == '\f';
+    }
+
+    // marks a key cleared in memory, ConcurrentHashMap doesn't take null values
+    private enum NullValue {
+        INSTANCE
+    }
+}
@@ -0,0 +1,107 @@
+package com.yahoo.props;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Bounded cache shared across contexts of the results of default initializers declared pure with
+ * {@link Prop#memoize(MemoCache)}, keyed by the prop and the values of its reset dependencies, so contexts with equal
+ * inputs reuse one computation. Least recently used entries are evicted beyond the maximum size, and entries expire
+ * the given time after they were computed. Cached values are shared by every context reading them and must not be
+ * modified. One cache may serve props of several definers.
+ */
+public final class MemoCache {
+    private final Cache<Key, Object> cache;
+
+    public MemoCache(long maximumSize) {
+        this(maximumSize, 0, TimeUnit.NANOSECONDS);
+    }
+
+    // a zero ttl keeps entries until evicted
+    public MemoCache(long maximumSize, long ttl, TimeUnit unit) {
+
+        requireNonNull(unit, nonNullMessage("unit"));
+        if (maximumSize < 1 || ttl < 0) {
+            throw new IllegalArgumentException("maximumSize must be positive and ttl not negative");
+        }
+
+        CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                .maximumSize(maximumSize)
+                .recordStats();
+        if (ttl > 0) {
+            builder.expireAfterWrite(ttl, unit);
+        }
+        this.cache = builder.build();
+    }
+
+    // keyed by the initializer too, so that overriding it doesn't return results of the previous one
+    Object get(Object prop, Object initializer, Object[] dependencyValues) {
+        return cache.getIfPresent(new Key(prop, initializer, dependencyValues));
+    }
+
+    // null values aren't cached, the initializer runs again for such inputs
+    void put(Object prop, Object initializer, Object[] dependencyValues, Object value) {
+        if (value != null) {
+            cache.put(new Key(prop, initializer, dependencyValues), value);
+        }
+    }
+
+    public long getHitCount() {
+        return cache.stats().hitCount();
+    }
+
+    public long getMissCount() {
+        return cache.stats().missCount();
+    }
+
+    public double getHitRate() {
+        return cache.stats().hitRate();
+    }
+
+    public long getEvictionCount() {
+        return cache.stats().evictionCount();
+    }
+
+    public long size() {
+        return cache.size();
+    }
+
+    public void invalidateAll() {
+        cache.invalidateAll();
+    }
+
+    private static final class Key {
+        private final Object   prop;
+        private final Object   initializer;
+        private final Object[] dependencyValues;
+        private final int      hash;
+
+        private Key(Object prop, Object initializer, Object[] dependencyValues) {
+            this.prop = prop;
+            this.initializer = initializer;
+            this.dependencyValues = dependencyValues;
+            this.hash = 31 * System.identityHashCode(prop) + Arrays.hashCode(dependencyValues);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return prop == other.prop && initializer == other.initializer && hash == other.hash
+                    && Arrays.equals(dependencyValues, other.dependencyValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+}
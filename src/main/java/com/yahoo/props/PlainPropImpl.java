@@ -0,0 +1,43 @@
+package com.yahoo.props;
+
+import com.yahoo.props.PropDefinerBuilder.TypeGetter;
+import com.yahoo.props.PropDefinerBuilder.TypeSetter;
+
+import java.lang.reflect.Type;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+// defined with neither default initializer nor event handlers: a get is a plain getter call
+final class PlainPropImpl<CONTEXT, TYPE> extends PropImpl<CONTEXT, TYPE> {
+
+    PlainPropImpl(String name,
+                  int ordinal,
+                  Type type,
+                  TypeGetter<CONTEXT, TYPE> typeGetter,
+                  TypeSetter<CONTEXT, TYPE> typeSetter,
+                  DependencyStateStore<CONTEXT> dependencyStateStore,
+                  InitFlights initFlights,
+                  DependencyGraph dependencyGraph) {
+        super(name, ordinal, type, typeGetter, typeSetter, dependencyStateStore, initFlights,
+                dependencyGraph, null, null, null, null, null);
+    }
+
+    @Override
+    public TYPE getFrom(CONTEXT context, TYPE substIfNull) {
+        if (hasDefaultInitializer()) {
+            // overridden after define()
+            return super.getFrom(context, substIfNull);
+        }
+
+        requireNonNull(context, () -> nonNullMessage("context"));
+
+        TYPE value = callTypeGetter(context);
+        return value != null ? value : substIfNull;
+    }
+
+    @Override
+    public void setTo(CONTEXT context, TYPE value) {
+        callTypeSetter(context, value);
+    }
+}
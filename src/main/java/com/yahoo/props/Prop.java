@@ -12,6 +12,10 @@ public interface Prop<CONTEXT, TYPE> {
 
     String getName();
 
+    // dense index of the prop in its definer, starting at 0; definers, groups, codecs and tables index by it, so
+    // implementations outside this library must provide one
+    int getOrdinal();
+
     default TYPE getFrom(CONTEXT context) {
         return getFrom(context, null);
     }
@@ -38,12 +42,21 @@ public interface Prop<CONTEXT, TYPE> {
         return !isAbsent(context);
     }
 
+    // calls the listener on changes of the value in this context until unwatched; the context is held weakly
+    void watch(CONTEXT context, ChangeListener<CONTEXT, ? super TYPE> listener);
+
+    void unwatch(CONTEXT context, ChangeListener<CONTEXT, ? super TYPE> listener);
+
     Optional<Function<CONTEXT, TYPE>> getDefaultInitializer();
 
     void overrideDefaultInitializer(Function<CONTEXT, TYPE> defaultInitializer);
 
     Prop<CONTEXT, TYPE> addResetDependency(Function<CONTEXT, Object> dependencyAccess);
 
+    // declares the default initializer a pure function of the reset dependencies added so far and later, so that
+    // contexts with equal dependency values share its results through the cache
+    Prop<CONTEXT, TYPE> memoize(MemoCache memoCache);
+
     default Prop<CONTEXT, TYPE> addResetDependency(Prop<CONTEXT, ?> propDependency) {
         return addResetDependency(context -> propDependency.getFrom(context));
     }
@@ -0,0 +1,211 @@
+package com.yahoo.props;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates props over a fixed list of contexts into columns, one element per context in list order, splitting the
+ * contexts into ranges evaluated in parallel on a fork-join pool. Each context is read by a single task, so its
+ * default initializers and reset dependencies behave as with sequential getFrom calls; contexts listed more than
+ * once may be read concurrently and need a definer built with concurrent initialization.
+ * <p>
+ * Primitive columns are filled through the props' primitive paths without boxing where the definer supports it.
+ */
+public final class PropBatch<CONTEXT> {
+    // fewer contexts are evaluated in the calling thread
+    private static final int MIN_RANGE = 64;
+    // ranges per worker, so that workers slowed by expensive initializers get their share stolen
+    private static final int RANGES_PER_WORKER = 8;
+
+    private final Object[]     contexts;
+    private final ForkJoinPool pool;
+    private final int          rangeSize;
+
+    public PropBatch(List<? extends CONTEXT> contexts) {
+        this(contexts, ForkJoinPool.commonPool());
+    }
+
+    public PropBatch(List<? extends CONTEXT> contexts, ForkJoinPool pool) {
+
+        requireNonNull(contexts, nonNullMessage("contexts"));
+        requireNonNull(pool, nonNullMessage("pool"));
+
+        this.contexts = contexts.toArray();
+        for (Object context : this.contexts) {
+            requireNonNull(context, () -> nonNullMessage("context"));
+        }
+        this.pool = pool;
+        this.rangeSize = Math.max(MIN_RANGE, this.contexts.length / (pool.getParallelism() * RANGES_PER_WORKER));
+    }
+
+    public int size() {
+        return contexts.length;
+    }
+
+    public int[] getInts(IntProp<CONTEXT> prop, int substIfNull) {
+        int[] column = new int[contexts.length];
+        getInts(prop, substIfNull, column);
+        return column;
+    }
+
+    public void getInts(IntProp<CONTEXT> prop, int substIfNull, int[] column) {
+
+        requireNonNull(prop, nonNullMessage("prop"));
+        checkLength(column.length);
+
+        run((from, to) -> {
+            for (int i = from; i < to; i++) {
+                column[i] = prop.getAsInt(contextAt(i), substIfNull);
+            }
+        });
+    }
+
+    public long[] getLongs(LongProp<CONTEXT> prop, long substIfNull) {
+        long[] column = new long[contexts.length];
+        getLongs(prop, substIfNull, column);
+        return column;
+    }
+
+    public void getLongs(LongProp<CONTEXT> prop, long substIfNull, long[] column) {
+
+        requireNonNull(prop, nonNullMessage("prop"));
+        checkLength(column.length);
+
+        run((from, to) -> {
+            for (int i = from; i < to; i++) {
+                column[i] = prop.getAsLong(contextAt(i), substIfNull);
+            }
+        });
+    }
+
+    public double[] getDoubles(DoubleProp<CONTEXT> prop, double substIfNull) {
+        double[] column = new double[contexts.length];
+        getDoubles(prop, substIfNull, column);
+        return column;
+    }
+
+    public void getDoubles(DoubleProp<CONTEXT> prop, double substIfNull, double[] column) {
+
+        requireNonNull(prop, nonNullMessage("prop"));
+        checkLength(column.length);
+
+        run((from, to) -> {
+            for (int i = from; i < to; i++) {
+                column[i] = prop.getAsDouble(contextAt(i), substIfNull);
+            }
+        });
+    }
+
+    public boolean[] getBooleans(BooleanProp<CONTEXT> prop, boolean substIfNull) {
+        boolean[] column = new boolean[contexts.length];
+        getBooleans(prop, substIfNull, column);
+        return column;
+    }
+
+    public void getBooleans(BooleanProp<CONTEXT> prop, boolean substIfNull, boolean[] column) {
+
+        requireNonNull(prop, nonNullMessage("prop"));
+        checkLength(column.length);
+
+        run((from, to) -> {
+            for (int i = from; i < to; i++) {
+                column[i] = prop.getAsBoolean(contextAt(i), substIfNull);
+            }
+        });
+    }
+
+    // any prop, as a column of its values or null where absent
+    public Object[] getFrom(Prop<CONTEXT, ?> prop) {
+        Object[] column = new Object[contexts.length];
+        getFrom(prop, column);
+        return column;
+    }
+
+    // the column may be an array of the prop's type, e.g. String[]
+    public <TYPE> void getFrom(Prop<CONTEXT, ? extends TYPE> prop, TYPE[] column) {
+
+        requireNonNull(prop, nonNullMessage("prop"));
+        checkLength(column.length);
+
+        run((from, to) -> {
+            for (int i = from; i < to; i++) {
+                column[i] = prop.getFrom(contextAt(i));
+            }
+        });
+    }
+
+    // one column per prop of the group, indexed by the prop's position in the group
+    public Object[][] getFrom(PropGroup<CONTEXT> group) {
+
+        requireNonNull(group, nonNullMessage("group"));
+
+        Object[][] columns = new Object[group.size()][contexts.length];
+        run((from, to) -> {
+            Object[] row = new Object[group.size()];
+            for (int i = from; i < to; i++) {
+                group.getFrom(contextAt(i), row);
+                for (int index = 0; index < row.length; index++) {
+                    columns[index][i] = row[index];
+                }
+            }
+        });
+        return columns;
+    }
+
+    @SuppressWarnings("unchecked")
+    private CONTEXT contextAt(int index) {
+        return (CONTEXT) contexts[index];
+    }
+
+    private void checkLength(int length) {
+        if (length < contexts.length) {
+            throw new IllegalArgumentException("column holds " + length + " of " + contexts.length + " contexts");
+        }
+    }
+
+    private void run(RangeTask task) {
+        if (contexts.length <= rangeSize || pool.getParallelism() == 1) {
+            task.run(0, contexts.length);
+        } else if (ForkJoinTask.getPool() == pool) {
+            // called from a task of the pool, which helps with the work instead of blocking
+            new RangeAction(task, 0, contexts.length, rangeSize).invoke();
+        } else {
+            pool.invoke(new RangeAction(task, 0, contexts.length, rangeSize));
+        }
+    }
+
+    @FunctionalInterface
+    private interface RangeTask {
+        void run(int from, int to);
+    }
+
+    @SuppressWarnings("serial")
+    private static final class RangeAction extends RecursiveAction {
+        private final RangeTask task;
+        private final int       from;
+        private final int       to;
+        private final int       rangeSize;
+
+        private RangeAction(RangeTask task, int from, int to, int rangeSize) {
+            this.task = task;
+            this.from = from;
+            this.to = to;
+            this.rangeSize = rangeSize;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= rangeSize) {
+                task.run(from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            invokeAll(new RangeAction(task, from, middle, rangeSize), new RangeAction(task, middle, to, rangeSize));
+        }
+    }
+}
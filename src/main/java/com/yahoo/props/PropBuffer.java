@@ -0,0 +1,91 @@
+package com.yahoo.props;
+
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Context over props encoded by a {@link PropCodec}, for props of a definer built by {@link #newDefinerBuilder()}.
+ * Wrapping only locates the encoded values; each prop is decoded from the buffer on its first read, so a receiver
+ * pays for the props it touches. Values set afterwards are kept aside and take precedence. Not thread-safe.
+ */
+public class PropBuffer {
+    private final PropCodec<PropBuffer> codec;
+    private final ByteBuffer            in;
+    private final int[]                 offsets;
+    // decoded or set values by ordinal
+    private Object[]                    values;
+    private Map<String, Object>         namedValues;
+
+    // the buffer's content from its position on must not be modified while the PropBuffer is in use
+    public PropBuffer(PropCodec<PropBuffer> codec, ByteBuffer buffer) {
+        this.codec = requireNonNull(codec, nonNullMessage("codec"));
+        this.in = requireNonNull(buffer, nonNullMessage("buffer")).duplicate();
+        this.offsets = codec.indexOffsets(in);
+        this.values = new Object[offsets.length];
+    }
+
+    public static PropDefinerBuilder<PropBuffer> newDefinerBuilder() {
+        return PropDefinerBuilder.newBuilder(PropBuffer.class)
+                .setSlotGetter(PropBuffer::get)
+                .setSlotSetter(PropBuffer::set)
+                .setBatchGetter(PropBuffer::get)
+                .setObjectGetter(PropBuffer::get)
+                .setObjectSetter(PropBuffer::set);
+    }
+
+    public Object get(int ordinal) {
+        if (ordinal >= values.length) {
+            return null;
+        }
+        Object value = values[ordinal];
+        if (value == null && offsets[ordinal] >= 0) {
+            in.position(offsets[ordinal]);
+            value = codec.readValueOf(ordinal, in);
+            values[ordinal] = value;
+        }
+        return value;
+    }
+
+    public void get(String[] names, int[] ordinals, Type[] types, Object[] values) {
+        for (int i = 0; i < ordinals.length; i++) {
+            values[i] = get(ordinals[i]);
+        }
+    }
+
+    public void set(int ordinal, Object value) {
+        if (ordinal >= values.length) {
+            if (value == null) {
+                return;
+            }
+            values = Arrays.copyOf(values, ordinal + 1);
+        }
+        values[ordinal] = value;
+        if (ordinal < offsets.length) {
+            // a reset hides the encoded value
+            offsets[ordinal] = -1;
+        }
+    }
+
+    public Object get(String name) {
+        return namedValues != null ? namedValues.get(name) : null;
+    }
+
+    public void set(String name, Object value) {
+        if (value == null) {
+            if (namedValues != null) {
+                namedValues.remove(name);
+            }
+        } else {
+            if (namedValues == null) {
+                namedValues = new HashMap<>();
+            }
+            namedValues.put(name, value);
+        }
+    }
+}
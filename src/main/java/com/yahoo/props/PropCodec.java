@@ -0,0 +1,352 @@
+package com.yahoo.props;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Compact binary form of the values of a fixed list of props, for shipping a context to another node. The encoding
+ * starts with a fingerprint of the prop names and types and the number of values that follow; each value is
+ * preceded by the prop's position in the list. Integral numbers are zigzag varints, enums are varint ordinals,
+ * {@link EnumMask}s are their bitmask words as varints and strings are length-prefixed UTF-8. Absent props are left
+ * out.
+ * <p>
+ * The receiving side defines the same props and either decodes eagerly with {@link #decode(ByteBuffer, Object)} or
+ * wraps the buffer into a {@link PropBuffer}, which decodes each prop on first read.
+ */
+public final class PropCodec<CONTEXT> {
+    private static final int INITIAL_BUFFER_SIZE = 256;
+
+    enum Kind {
+        BOOLEAN, BYTE, SHORT, INT, LONG, FLOAT, DOUBLE, STRING, ENUM, ENUM_MASK
+    }
+
+    private final List<Prop<CONTEXT, ?>> props;
+    private final Kind[]                 kinds;
+    private final Object[][]             enumConstants;
+    // element types of ENUM_MASK props
+    private final Class<?>[]             maskTypes;
+    private final int                    fingerprint;
+    private final int[]                  indexByOrdinal;
+    // encodings of one codec tend to have similar sizes, start from the last one that fit
+    private volatile int                 bufferSize = INITIAL_BUFFER_SIZE;
+
+    PropCodec(List<PropImpl<CONTEXT, ?>> props) {
+        this.props = Collections.unmodifiableList(new ArrayList<>(props));
+        this.kinds = new Kind[props.size()];
+        this.enumConstants = new Object[props.size()][];
+        this.maskTypes = new Class<?>[props.size()];
+
+        int fingerprint = 1;
+        int ordinalCount = 0;
+        for (int i = 0; i < props.size(); i++) {
+            PropImpl<CONTEXT, ?> prop = props.get(i);
+            Type type = prop.getType();
+            kinds[i] = kindOf(prop.getName(), type);
+            fingerprint = 31 * fingerprint + prop.getName().hashCode();
+            fingerprint = 31 * fingerprint + kinds[i].ordinal();
+            if (kinds[i] == Kind.ENUM_MASK) {
+                maskTypes[i] = (Class<?>) ((ParameterizedType) type).getActualTypeArguments()[0];
+            }
+            if (kinds[i] == Kind.ENUM || kinds[i] == Kind.ENUM_MASK) {
+                enumConstants[i] = (maskTypes[i] != null ? maskTypes[i] : (Class<?>) type).getEnumConstants();
+                for (Object constant : enumConstants[i]) {
+                    fingerprint = 31 * fingerprint + ((Enum<?>) constant).name().hashCode();
+                }
+            }
+            ordinalCount = Math.max(ordinalCount, prop.getOrdinal() + 1);
+        }
+        this.fingerprint = fingerprint;
+        this.indexByOrdinal = new int[ordinalCount];
+        Arrays.fill(indexByOrdinal, -1);
+        for (int i = 0; i < props.size(); i++) {
+            indexByOrdinal[props.get(i).getOrdinal()] = i;
+        }
+    }
+
+    private static Kind kindOf(String name, Type type) {
+        if (type == Boolean.class) {
+            return Kind.BOOLEAN;
+        } else if (type == Byte.class) {
+            return Kind.BYTE;
+        } else if (type == Short.class) {
+            return Kind.SHORT;
+        } else if (type == Integer.class) {
+            return Kind.INT;
+        } else if (type == Long.class) {
+            return Kind.LONG;
+        } else if (type == Float.class) {
+            return Kind.FLOAT;
+        } else if (type == Double.class) {
+            return Kind.DOUBLE;
+        } else if (type == String.class) {
+            return Kind.STRING;
+        } else if (type instanceof Class && ((Class<?>) type).isEnum()) {
+            return Kind.ENUM;
+        } else if (TypeFilter.ENUM_MASK.test(type)
+                && ((ParameterizedType) type).getActualTypeArguments()[0] instanceof Class) {
+            return Kind.ENUM_MASK;
+        }
+        throw new IllegalArgumentException("Prop type not supported by codec: " + name + " " + type.getTypeName());
+    }
+
+    public List<Prop<CONTEXT, ?>> getProps() {
+        return props;
+    }
+
+    public int getFingerprint() {
+        return fingerprint;
+    }
+
+    public ByteBuffer encode(CONTEXT context) {
+        Object[] values = readValues(context);
+        for (int size = bufferSize; ; size *= 2) {
+            ByteBuffer buffer = ByteBuffer.allocate(size);
+            try {
+                encode(values, buffer);
+                buffer.flip();
+                bufferSize = size;
+                return buffer;
+            } catch (BufferOverflowException e) {
+                // retry with a larger buffer
+            }
+        }
+    }
+
+    // throws BufferOverflowException if the values don't fit into the remaining buffer
+    public void encode(CONTEXT context, ByteBuffer buffer) {
+
+        requireNonNull(buffer, nonNullMessage("buffer"));
+
+        encode(readValues(context), buffer);
+    }
+
+    private Object[] readValues(CONTEXT context) {
+
+        requireNonNull(context, nonNullMessage("context"));
+
+        Object[] values = new Object[props.size()];
+        for (int i = 0; i < values.length; i++) {
+            values[i] = props.get(i).getFrom(context);
+        }
+        return values;
+    }
+
+    private void encode(Object[] values, ByteBuffer buffer) {
+        int count = 0;
+        for (Object value : values) {
+            if (value != null) {
+                count++;
+            }
+        }
+        buffer.putInt(fingerprint);
+        putVarLong(buffer, count);
+        for (int i = 0; i < values.length; i++) {
+            if (values[i] != null) {
+                putVarLong(buffer, i);
+                writeValue(kinds[i], values[i], buffer);
+            }
+        }
+    }
+
+    private static void writeValue(Kind kind, Object value, ByteBuffer buffer) {
+        switch (kind) {
+        case BOOLEAN:
+            buffer.put((byte) ((Boolean) value ? 1 : 0));
+            break;
+        case BYTE:
+        case SHORT:
+        case INT:
+        case LONG:
+            putVarLong(buffer, zigzag(((Number) value).longValue()));
+            break;
+        case FLOAT:
+            buffer.putFloat((Float) value);
+            break;
+        case DOUBLE:
+            buffer.putDouble((Double) value);
+            break;
+        case STRING:
+            byte[] bytes = ((String) value).getBytes(UTF_8);
+            putVarLong(buffer, bytes.length);
+            buffer.put(bytes);
+            break;
+        case ENUM_MASK:
+            long[] words = ((EnumMask<?>) value).words();
+            putVarLong(buffer, words.length);
+            for (long word : words) {
+                putVarLong(buffer, word);
+            }
+            break;
+        default:
+            putVarLong(buffer, ((Enum<?>) value).ordinal());
+        }
+    }
+
+    // sets every encoded value to the context
+    @SuppressWarnings("unchecked")
+    public void decode(ByteBuffer buffer, CONTEXT context) {
+
+        requireNonNull(buffer, nonNullMessage("buffer"));
+        requireNonNull(context, nonNullMessage("context"));
+
+        ByteBuffer in = buffer.duplicate();
+        int count = readHeader(in);
+        for (int i = 0; i < count; i++) {
+            int index = readIndex(in);
+            ((Prop<CONTEXT, Object>) props.get(index)).setTo(context, readValue(index, in));
+        }
+    }
+
+    // offsets of the encoded values by prop ordinal, -1 for absent props
+    int[] indexOffsets(ByteBuffer in) {
+        int[] offsets = new int[indexByOrdinal.length];
+        Arrays.fill(offsets, -1);
+        int count = readHeader(in);
+        for (int i = 0; i < count; i++) {
+            int index = readIndex(in);
+            offsets[props.get(index).getOrdinal()] = in.position();
+            skipValue(kinds[index], in);
+        }
+        return offsets;
+    }
+
+    // the value encoded at in's position for the prop with the given ordinal
+    Object readValueOf(int ordinal, ByteBuffer in) {
+        return readValue(indexByOrdinal[ordinal], in);
+    }
+
+    private int readHeader(ByteBuffer in) {
+        int encodedFingerprint = in.getInt();
+        if (encodedFingerprint != fingerprint) {
+            throw new IllegalArgumentException("Encoded props don't match the codec's props: fingerprint "
+                    + Integer.toHexString(encodedFingerprint) + " instead of " + Integer.toHexString(fingerprint));
+        }
+        return (int) getVarLong(in);
+    }
+
+    private int readIndex(ByteBuffer in) {
+        long index = getVarLong(in);
+        if (index < 0 || index >= props.size()) {
+            throw new IllegalArgumentException("Encoded prop index out of range: " + index);
+        }
+        return (int) index;
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Object readValue(int index, ByteBuffer in) {
+        switch (kinds[index]) {
+        case BOOLEAN:
+            return in.get() != 0;
+        case BYTE:
+            return (byte) unzigzag(getVarLong(in));
+        case SHORT:
+            return (short) unzigzag(getVarLong(in));
+        case INT:
+            return (int) unzigzag(getVarLong(in));
+        case LONG:
+            return unzigzag(getVarLong(in));
+        case FLOAT:
+            return in.getFloat();
+        case DOUBLE:
+            return in.getDouble();
+        case STRING:
+            int length = getLength(in);
+            String value;
+            if (in.hasArray()) {
+                value = new String(in.array(), in.arrayOffset() + in.position(), length, UTF_8);
+                in.position(in.position() + length);
+            } else {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                value = new String(bytes, UTF_8);
+            }
+            return value;
+        case ENUM_MASK:
+            long[] words = new long[getLength(in)];
+            for (int i = 0; i < words.length; i++) {
+                words[i] = getVarLong(in);
+            }
+            return EnumMask.ofWords((Class) maskTypes[index], words);
+        default:
+            long ordinal = getVarLong(in);
+            if (ordinal < 0 || ordinal >= enumConstants[index].length) {
+                throw new IllegalArgumentException("Encoded enum ordinal out of range for prop "
+                        + props.get(index).getName() + ": " + ordinal);
+            }
+            return enumConstants[index][(int) ordinal];
+        }
+    }
+
+    private static void skipValue(Kind kind, ByteBuffer in) {
+        switch (kind) {
+        case BOOLEAN:
+            in.get();
+            break;
+        case FLOAT:
+            in.position(in.position() + Float.BYTES);
+            break;
+        case DOUBLE:
+            in.position(in.position() + Double.BYTES);
+            break;
+        case STRING:
+            int length = getLength(in);
+            in.position(in.position() + length);
+            break;
+        case ENUM_MASK:
+            for (int count = getLength(in); count > 0; count--) {
+                getVarLong(in);
+            }
+            break;
+        default:
+            getVarLong(in);
+        }
+    }
+
+    private static long zigzag(long value) {
+        return (value << 1) ^ (value >> 63);
+    }
+
+    private static long unzigzag(long value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    private static void putVarLong(ByteBuffer buffer, long value) {
+        while ((value & ~0x7FL) != 0) {
+            buffer.put((byte) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        buffer.put((byte) value);
+    }
+
+    // a byte length or element count, every unit takes at least a byte of the remaining input
+    private static int getLength(ByteBuffer in) {
+        long length = getVarLong(in);
+        if (length < 0 || length > in.remaining()) {
+            throw new IllegalArgumentException("Encoded length out of range: " + length + " with " + in.remaining()
+                    + " bytes remaining");
+        }
+        return (int) length;
+    }
+
+    private static long getVarLong(ByteBuffer in) {
+        long value = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            value |= (long) (b & 0x7F) << shift;
+            if (b >= 0) {
+                return value;
+            }
+        }
+        throw new IllegalArgumentException("Malformed varint");
+    }
+}
@@ -0,0 +1,31 @@
+package com.yahoo.props;
+
+import java.util.concurrent.atomic.LongAdder;
+
+// per-prop counters of a PropMetrics; LongAdder stripes updates across threads
+final class PropCounters {
+    // bucket i counts initializer runs taking [2^(i-1), 2^i) ns
+    static final int LATENCY_BUCKETS = 64;
+
+    final String      name;
+    final LongAdder   gets            = new LongAdder();
+    final LongAdder   sets            = new LongAdder();
+    final LongAdder   initializations = new LongAdder();
+    final LongAdder   resets          = new LongAdder();
+    final LongAdder   substitutions   = new LongAdder();
+    final LongAdder   initNanos       = new LongAdder();
+    final LongAdder[] initLatencies   = new LongAdder[LATENCY_BUCKETS];
+
+    PropCounters(String name) {
+        this.name = name;
+        for (int i = 0; i < LATENCY_BUCKETS; i++) {
+            initLatencies[i] = new LongAdder();
+        }
+    }
+
+    void recordInitialization(long nanos) {
+        initializations.increment();
+        initNanos.add(nanos);
+        initLatencies[Math.min(LATENCY_BUCKETS - 1, 64 - Long.numberOfLeadingZeros(Math.max(0, nanos)))].increment();
+    }
+}
@@ -1,6 +1,14 @@
 package com.yahoo.props;
 
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
 
 import com.google.common.reflect.TypeToken;
 
@@ -14,4 +22,70 @@ public interface PropDefiner<CONTEXT> {
     
     <TYPE> Prop<CONTEXT, TYPE> define(String name, TypeToken<TYPE> typeToken,
             Function<CONTEXT, TYPE> defaultInitializer);
+
+    // initialized by joining the future, see prefetch
+    <TYPE> Prop<CONTEXT, TYPE> defineAsync(String name, Class<TYPE> typeClass,
+            Function<CONTEXT, CompletableFuture<TYPE>> asyncInitializer);
+
+    <TYPE> Prop<CONTEXT, TYPE> defineAsync(String name, TypeToken<TYPE> typeToken,
+            Function<CONTEXT, CompletableFuture<TYPE>> asyncInitializer);
+
+    // a set of constants of enumType kept as a bitmask, see EnumMask
+    default <E extends Enum<E>> Prop<CONTEXT, EnumMask<E>> defineEnumMask(String name, Class<E> enumType) {
+        return define(name, EnumMask.typeTokenOf(enumType));
+    }
+
+    default <E extends Enum<E>> Prop<CONTEXT, EnumMask<E>> defineEnumMask(String name, Class<E> enumType,
+            Function<CONTEXT, EnumMask<E>> defaultInitializer) {
+        return define(name, EnumMask.typeTokenOf(enumType), defaultInitializer);
+    }
+
+    IntProp<CONTEXT> defineInt(String name);
+
+    IntProp<CONTEXT> defineInt(String name, ToIntFunction<CONTEXT> defaultInitializer);
+
+    LongProp<CONTEXT> defineLong(String name);
+
+    LongProp<CONTEXT> defineLong(String name, ToLongFunction<CONTEXT> defaultInitializer);
+
+    DoubleProp<CONTEXT> defineDouble(String name);
+
+    DoubleProp<CONTEXT> defineDouble(String name, ToDoubleFunction<CONTEXT> defaultInitializer);
+
+    BooleanProp<CONTEXT> defineBoolean(String name);
+
+    BooleanProp<CONTEXT> defineBoolean(String name, Predicate<CONTEXT> defaultInitializer);
+
+    List<Prop<CONTEXT, ?>> getProps();
+
+    PropGroup<CONTEXT> newGroup(Collection<? extends Prop<CONTEXT, ?>> props);
+
+    // starts the async initializers of the given props that are absent in the context, in parallel on the async
+    // executor; a later getFrom joins the running future instead of starting its own
+    CompletableFuture<Void> prefetch(CONTEXT context, Collection<? extends Prop<CONTEXT, ?>> props);
+
+    // wildcard element type so call sites create no generic array; props of other definers are rejected as above
+    @SuppressWarnings("unchecked")
+    default CompletableFuture<Void> prefetch(CONTEXT context, Prop<?, ?>... props) {
+        return prefetch(context, (List<Prop<CONTEXT, ?>>) (List<?>) Arrays.asList(props));
+    }
+
+    // calls the listener on changes of the prop's value in any context; props without listeners set at no extra cost
+    <TYPE> void onChange(Prop<CONTEXT, TYPE> prop, ChangeListener<CONTEXT, ? super TYPE> listener);
+
+    <TYPE> void removeOnChange(Prop<CONTEXT, TYPE> prop, ChangeListener<CONTEXT, ? super TYPE> listener);
+
+    // covers every prop defined so far
+    PropSnapshot<CONTEXT> snapshot(CONTEXT context);
+
+    // binary codec for the values of the given props; receivers need the same props in the same order
+    PropCodec<CONTEXT> newCodec(Collection<? extends Prop<CONTEXT, ?>> props);
+
+    // covers every prop defined so far
+    default PropCodec<CONTEXT> newCodec() {
+        return newCodec(getProps());
+    }
+
+    // holder of the current version of a context, see ReloadableContext
+    ReloadableContext<CONTEXT> newReloadable(CONTEXT initial);
 }
@@ -6,8 +6,10 @@ import java.lang.reflect.Type;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.function.Predicate;
+import java.util.function.UnaryOperator;
 
 import static com.yahoo.props.Utils.nonNullMessage;
 import static java.util.Objects.requireNonNull;
@@ -20,6 +22,29 @@ public class PropDefinerBuilder<CONTEXT> {
     private EventHandler<CONTEXT> afterInitEventHandler;
     private EventHandler<CONTEXT> afterGetEventHandler;
     private EventHandler<CONTEXT> afterSetEventHandler;
+    private DependencyStateStore<CONTEXT> dependencyStateStore;
+    private SlotGetter<CONTEXT>           slotGetter;
+    private SlotSetter<CONTEXT>           slotSetter;
+    private TypeGetter<CONTEXT, ?>        decodeCacheRawGetter;
+    private IntGetter<CONTEXT>            intGetter;
+    private IntSetter<CONTEXT>            intSetter;
+    private LongGetter<CONTEXT>           longGetter;
+    private LongSetter<CONTEXT>           longSetter;
+    private DoubleGetter<CONTEXT>         doubleGetter;
+    private DoubleSetter<CONTEXT>         doubleSetter;
+    private BooleanGetter<CONTEXT>        booleanGetter;
+    private BooleanSetter<CONTEXT>        booleanSetter;
+    private PrimitiveSlotAccess<CONTEXT>  primitiveSlotAccess;
+    private BatchGetter<CONTEXT>          batchGetter;
+    private boolean                       concurrentInitialization;
+    private Executor                      asyncExecutor;
+    private boolean                       pushInvalidation;
+    private UnaryOperator<CONTEXT>        parentGetter;
+    private PropMetrics                   metrics;
+    private Converters                    converters;
+    private TypeGetter<CONTEXT, String>   stringGetter;
+    private TypeSetter<CONTEXT, String>   stringSetter;
+    private AccessRecorder<CONTEXT>       accessRecorder;
 
     private PropDefinerBuilder() {
     }
@@ -103,7 +128,262 @@ public class PropDefinerBuilder<CONTEXT> {
         return this;
     }
 
-    private TypeGetter<CONTEXT, Object> getObjectGetter() {
+    public PropDefinerBuilder<CONTEXT> setDependencyStateStore(DependencyStateStore<CONTEXT> dependencyStateStore) {
+        this.dependencyStateStore = requireNonNull(dependencyStateStore, nonNullMessage("dependencyStateStore"));
+        return this;
+    }
+
+    public PropDefinerBuilder<CONTEXT> setSlotGetter(SlotGetter<CONTEXT> slotGetter) {
+        this.slotGetter = requireNonNull(slotGetter, nonNullMessage("slotGetter"));
+        return this;
+    }
+
+    public PropDefinerBuilder<CONTEXT> setSlotSetter(SlotSetter<CONTEXT> slotSetter) {
+        this.slotSetter = requireNonNull(slotSetter, nonNullMessage("slotSetter"));
+        return this;
+    }
+
+    // opt-in memoization of decoded values per context, invalidated by setTo or when the raw value object changes
+    public PropDefinerBuilder<CONTEXT> setDecodeCache(TypeGetter<CONTEXT, ?> rawGetter) {
+        this.decodeCacheRawGetter = requireNonNull(rawGetter, nonNullMessage("rawGetter"));
+        return this;
+    }
+
+    public PropDefinerBuilder<CONTEXT> setIntGetter(IntGetter<CONTEXT> intGetter) {
+        this.intGetter = requireNonNull(intGetter, nonNullMessage("intGetter"));
+        return this;
+    }
+
+    public PropDefinerBuilder<CONTEXT> setIntSetter(IntSetter<CONTEXT> intSetter) {
+        this.intSetter = requireNonNull(intSetter, nonNullMessage("intSetter"));
+        return this;
+    }
+
+    public PropDefinerBuilder<CONTEXT> setLongGetter(LongGetter<CONTEXT> longGetter) {
+        this.longGetter = requireNonNull(longGetter, nonNullMessage("longGetter"));
+        return this;
+    }
+
+    public PropDefinerBuilder<CONTEXT> setLongSetter(LongSetter<CONTEXT> longSetter) {
+        this.longSetter = requireNonNull(longSetter, nonNullMessage("longSetter"));
+        return this;
+    }
+
+    public PropDefinerBuilder<CONTEXT> setDoubleGetter(DoubleGetter<CONTEXT> doubleGetter) {
+        this.doubleGetter = requireNonNull(doubleGetter, nonNullMessage("doubleGetter"));
+        return this;
+    }
+
+    public PropDefinerBuilder<CONTEXT> setDoubleSetter(DoubleSetter<CONTEXT> doubleSetter) {
+        this.doubleSetter = requireNonNull(doubleSetter, nonNullMessage("doubleSetter"));
+        return this;
+    }
+
+    public PropDefinerBuilder<CONTEXT> setBooleanGetter(BooleanGetter<CONTEXT> booleanGetter) {
+        this.booleanGetter = requireNonNull(booleanGetter, nonNullMessage("booleanGetter"));
+        return this;
+    }
+
+    public PropDefinerBuilder<CONTEXT> setBooleanSetter(BooleanSetter<CONTEXT> booleanSetter) {
+        this.booleanSetter = requireNonNull(booleanSetter, nonNullMessage("booleanSetter"));
+        return this;
+    }
+
+    // ordinal-indexed primitive access, preferred over the named primitive getters and setters
+    public PropDefinerBuilder<CONTEXT> setPrimitiveSlotAccess(PrimitiveSlotAccess<CONTEXT> primitiveSlotAccess) {
+        this.primitiveSlotAccess = requireNonNull(primitiveSlotAccess, nonNullMessage("primitiveSlotAccess"));
+        return this;
+    }
+
+    public PropDefinerBuilder<CONTEXT> setBatchGetter(BatchGetter<CONTEXT> batchGetter) {
+        this.batchGetter = requireNonNull(batchGetter, nonNullMessage("batchGetter"));
+        return this;
+    }
+
+    // default initializers run once per context and prop even when contexts are read from several threads;
+    // the context's own getters and setters still have to be thread-safe
+    public PropDefinerBuilder<CONTEXT> setConcurrentInitialization(boolean concurrentInitialization) {
+        this.concurrentInitialization = concurrentInitialization;
+        return this;
+    }
+
+    // runs the async initializers started by PropDefiner.prefetch, ForkJoinPool.commonPool() by default
+    public PropDefinerBuilder<CONTEXT> setAsyncExecutor(Executor asyncExecutor) {
+        this.asyncExecutor = requireNonNull(asyncExecutor, nonNullMessage("asyncExecutor"));
+        return this;
+    }
+
+    // reset dependencies added with Prop.addResetDependency(Prop) are invalidated by the upstream setTo instead of
+    // being polled on every get; changes made to the context behind the props' back go unnoticed
+    public PropDefinerBuilder<CONTEXT> setPushInvalidation(boolean pushInvalidation) {
+        this.pushInvalidation = pushInvalidation;
+        return this;
+    }
+
+    // for contexts that read through to a parent context, like PropLayer: with push invalidation a context without
+    // invalidations of its own sees those of its closest ancestor; the getter returns null for a root context
+    public PropDefinerBuilder<CONTEXT> setParentGetter(UnaryOperator<CONTEXT> parentGetter) {
+        this.parentGetter = requireNonNull(parentGetter, nonNullMessage("parentGetter"));
+        return this;
+    }
+
+    // counts accesses of every prop defined afterwards; props take the general, unspecialized path then
+    public PropDefinerBuilder<CONTEXT> setMetrics(PropMetrics metrics) {
+        this.metrics = requireNonNull(metrics, nonNullMessage("metrics"));
+        return this;
+    }
+
+    // types without a getter or setter of their own are read and written as strings through the converters,
+    // primitive props too unless they have primitive getters and setters
+    public PropDefinerBuilder<CONTEXT> setConverters(Converters converters,
+                                                     TypeGetter<CONTEXT, String> stringGetter,
+                                                     TypeSetter<CONTEXT, String> stringSetter) {
+
+        requireNonNull(converters, nonNullMessage("converters"));
+        requireNonNull(stringGetter, nonNullMessage("stringGetter"));
+        requireNonNull(stringSetter, nonNullMessage("stringSetter"));
+
+        this.converters = converters;
+        this.stringGetter = stringGetter;
+        this.stringSetter = stringSetter;
+        return this;
+    }
+
+    // samples the reads of every prop defined afterwards, so that the recorder can warm contexts with their hot props
+    public PropDefinerBuilder<CONTEXT> setAccessRecorder(AccessRecorder<CONTEXT> accessRecorder) {
+        this.accessRecorder = requireNonNull(accessRecorder, nonNullMessage("accessRecorder"));
+        return this;
+    }
+
+    EventHandler<CONTEXT> getAfterInitEventHandler() {
+        return afterInitEventHandler;
+    }
+
+    EventHandler<CONTEXT> getAfterGetEventHandler() {
+        return afterGetEventHandler;
+    }
+
+    EventHandler<CONTEXT> getAfterSetEventHandler() {
+        return afterSetEventHandler;
+    }
+
+    DependencyStateStore<CONTEXT> getDependencyStateStore() {
+        return dependencyStateStore;
+    }
+
+    SlotGetter<CONTEXT> getSlotGetter() {
+        return slotGetter;
+    }
+
+    SlotSetter<CONTEXT> getSlotSetter() {
+        return slotSetter;
+    }
+
+    TypeGetter<CONTEXT, ?> getDecodeCacheRawGetter() {
+        return decodeCacheRawGetter;
+    }
+
+    IntGetter<CONTEXT> getIntGetter() {
+        if (intGetter == null && converters != null) {
+            return (context, name, substIfAbsent) -> {
+                String text = stringGetter.getFrom(context, name);
+                return text != null ? Converters.parseInt(text) : substIfAbsent;
+            };
+        }
+        return intGetter;
+    }
+
+    IntSetter<CONTEXT> getIntSetter() {
+        if (intSetter == null && converters != null) {
+            return (context, name, value) -> stringSetter.setTo(context, name, Integer.toString(value));
+        }
+        return intSetter;
+    }
+
+    LongGetter<CONTEXT> getLongGetter() {
+        if (longGetter == null && converters != null) {
+            return (context, name, substIfAbsent) -> {
+                String text = stringGetter.getFrom(context, name);
+                return text != null ? Converters.parseLong(text) : substIfAbsent;
+            };
+        }
+        return longGetter;
+    }
+
+    LongSetter<CONTEXT> getLongSetter() {
+        if (longSetter == null && converters != null) {
+            return (context, name, value) -> stringSetter.setTo(context, name, Long.toString(value));
+        }
+        return longSetter;
+    }
+
+    DoubleGetter<CONTEXT> getDoubleGetter() {
+        if (doubleGetter == null && converters != null) {
+            return (context, name, substIfAbsent) -> {
+                String text = stringGetter.getFrom(context, name);
+                return text != null ? Double.parseDouble(text.trim()) : substIfAbsent;
+            };
+        }
+        return doubleGetter;
+    }
+
+    DoubleSetter<CONTEXT> getDoubleSetter() {
+        if (doubleSetter == null && converters != null) {
+            return (context, name, value) -> stringSetter.setTo(context, name, Double.toString(value));
+        }
+        return doubleSetter;
+    }
+
+    BooleanGetter<CONTEXT> getBooleanGetter() {
+        if (booleanGetter == null && converters != null) {
+            return (context, name, substIfAbsent) -> {
+                String text = stringGetter.getFrom(context, name);
+                return text != null ? Boolean.parseBoolean(text.trim()) : substIfAbsent;
+            };
+        }
+        return booleanGetter;
+    }
+
+    BooleanSetter<CONTEXT> getBooleanSetter() {
+        if (booleanSetter == null && converters != null) {
+            return (context, name, value) -> stringSetter.setTo(context, name, Boolean.toString(value));
+        }
+        return booleanSetter;
+    }
+
+    PrimitiveSlotAccess<CONTEXT> getPrimitiveSlotAccess() {
+        return primitiveSlotAccess;
+    }
+
+    BatchGetter<CONTEXT> getBatchGetter() {
+        return batchGetter;
+    }
+
+    boolean isConcurrentInitialization() {
+        return concurrentInitialization;
+    }
+
+    Executor getAsyncExecutor() {
+        return asyncExecutor;
+    }
+
+    boolean isPushInvalidation() {
+        return pushInvalidation;
+    }
+
+    UnaryOperator<CONTEXT> getParentGetter() {
+        return parentGetter;
+    }
+
+    PropMetrics getMetrics() {
+        return metrics;
+    }
+
+    AccessRecorder<CONTEXT> getAccessRecorder() {
+        return accessRecorder;
+    }
+
+    TypeGetter<CONTEXT, Object> getObjectGetter() {
         return getTypeGetter(Object.class);
     }
 
@@ -115,7 +395,7 @@ public class PropDefinerBuilder<CONTEXT> {
         return this;
     }
 
-    private TypeSetter<CONTEXT, Object> getObjectSetter() {
+    TypeSetter<CONTEXT, Object> getObjectSetter() {
         return getTypeSetter(Object.class);
     }
 
@@ -128,7 +408,7 @@ public class PropDefinerBuilder<CONTEXT> {
     }
 
     @SuppressWarnings("unchecked")
-    private <TYPE> TypeGetter<CONTEXT, TYPE> getTypeGetter(Type type) {
+    <TYPE> TypeGetter<CONTEXT, TYPE> getTypeGetter(Type type) {
         TypeGetter<CONTEXT, TYPE> getter = (TypeGetter<CONTEXT, TYPE>) typeGetters.get(type);
         if (getter == null) {
             Optional<Predicate<Type>> typeFilter = comprehensiveTypeGetters.keySet().stream()
@@ -137,11 +417,14 @@ public class PropDefinerBuilder<CONTEXT> {
                 getter = (TypeGetter<CONTEXT, TYPE>) comprehensiveTypeGetters.get(typeFilter.get());
             }
         }
+        if (getter == null && converters != null) {
+            getter = convertingTypeGetter(type);
+        }
         return getter;
     }
 
     @SuppressWarnings("unchecked")
-    private <TYPE> TypeSetter<CONTEXT, TYPE> getTypeSetter(Type type) {
+    <TYPE> TypeSetter<CONTEXT, TYPE> getTypeSetter(Type type) {
         TypeSetter<CONTEXT, TYPE> setter = (TypeSetter<CONTEXT, TYPE>) typeSetters.get(type);
         if (setter == null) {
             Optional<Predicate<Type>> typeFilter = comprehensiveTypeSetters.keySet().stream()
@@ -150,97 +433,43 @@ public class PropDefinerBuilder<CONTEXT> {
                 setter = (TypeSetter<CONTEXT, TYPE>) comprehensiveTypeSetters.get(typeFilter.get());
             }
         }
+        if (setter == null && converters != null) {
+            setter = convertingTypeSetter(type);
+        }
         return setter;
     }
 
-    public PropDefiner<CONTEXT> build() {
-        return new PropDefiner<CONTEXT>() {
-
-            @Override
-            public <TYPE> Prop<CONTEXT, TYPE> define(String name, Class<TYPE> typeClass) {
-                return define(name, typeClass, null);
-            }
-
-            @Override
-            public <TYPE> Prop<CONTEXT, TYPE> define(String name, Class<TYPE> typeClass,
-                                                     Function<CONTEXT, TYPE> defaultInitializer) {
-
-                requireNonNull(name, nonNullMessage("name"));
-                requireNonNull(typeClass, nonNullMessage("typeClass"));
-
-                return new PropImpl<CONTEXT, TYPE>(
-                        name,
-                        typeClass,
-                        resolveTypeGetter(typeClass),
-                        resolveTypeSetter(typeClass),
-                        resolveTypeGetter(String.class),
-                        resolveTypeSetter(String.class),
-                        afterInitEventHandler,
-                        afterGetEventHandler,
-                        afterSetEventHandler,
-                        defaultInitializer);
-            }
-
-            @Override
-            public <TYPE> Prop<CONTEXT, TYPE> define(String name, TypeToken<TYPE> typeToken) {
-                return define(name, typeToken, null);
-            }
-
-            @Override
-            public <TYPE> Prop<CONTEXT, TYPE> define(String name, TypeToken<TYPE> typeToken,
-                                                     Function<CONTEXT, TYPE> defaultInitializer) {
-
-                requireNonNull(name, nonNullMessage("name"));
-                requireNonNull(typeToken, nonNullMessage("typeToken"));
-
-                return new PropImpl<CONTEXT, TYPE>(
-                        name,
-                        typeToken.getType(),
-                        resolveTypeGetter(typeToken),
-                        resolveTypeSetter(typeToken),
-                        resolveTypeGetter(String.class),
-                        resolveTypeSetter(String.class),
-                        afterInitEventHandler,
-                        afterGetEventHandler,
-                        afterSetEventHandler,
-                        defaultInitializer);
-            }
-
-            private <TYPE> TypeGetter<CONTEXT, TYPE> resolveTypeGetter(TypeToken<TYPE> typeToken) {
-                return resolveTypeGetter(typeToken.getType());
-            }
-
-            private <TYPE> TypeSetter<CONTEXT, TYPE> resolveTypeSetter(TypeToken<TYPE> typeToken) {
-                return resolveTypeSetter(typeToken.getType());
-            }
-
-            @SuppressWarnings("unchecked")
-            private <TYPE> TypeGetter<CONTEXT, TYPE> resolveTypeGetter(Type type) {
-                TypeGetter<CONTEXT, TYPE> typeGetter = getTypeGetter(type);
-                if (typeGetter == null) {
-                    TypeGetter<CONTEXT, Object> objectGetter = getObjectGetter();
-
-                    requireNonNull(objectGetter,
-                            "Either objectGetter or typeGetter is required for type: " + type.getTypeName());
-
-                    typeGetter = (context, name) -> (TYPE) objectGetter.getFrom(context, name);
-                }
-                return typeGetter;
-            }
-
-            private <TYPE> TypeSetter<CONTEXT, TYPE> resolveTypeSetter(Type type) {
-                TypeSetter<CONTEXT, TYPE> typeSetter = getTypeSetter(type);
-                if (typeSetter == null) {
-                    TypeSetter<CONTEXT, Object> objectSetter = getObjectSetter();
+    // the converter is resolved once here, at definition time, rather than per access
+    @SuppressWarnings("unchecked")
+    private <TYPE> TypeGetter<CONTEXT, TYPE> convertingTypeGetter(Type type) {
+        if (type == String.class) {
+            return (TypeGetter<CONTEXT, TYPE>) stringGetter;
+        }
+        Converters.Converter<TYPE> converter = converters.converterFor(type);
+        if (converter == null) {
+            return null;
+        }
+        return (context, name) -> {
+            String text = stringGetter.getFrom(context, name);
+            return text != null ? converter.parse(text) : null;
+        };
+    }
 
-                    requireNonNull(objectSetter,
-                            "Either objectSetter or typeSetter is required for type: " + type.getTypeName());
+    @SuppressWarnings("unchecked")
+    private <TYPE> TypeSetter<CONTEXT, TYPE> convertingTypeSetter(Type type) {
+        if (type == String.class) {
+            return (TypeSetter<CONTEXT, TYPE>) stringSetter;
+        }
+        Converters.Converter<TYPE> converter = converters.converterFor(type);
+        if (converter == null) {
+            return null;
+        }
+        return (context, name, value) -> stringSetter.setTo(context, name,
+                value != null ? converter.format(value) : null);
+    }
 
-                    typeSetter = (context, name, value) -> objectSetter.setTo(context, name, value);
-                }
-                return typeSetter;
-            }
-        };
+    public PropDefiner<CONTEXT> build() {
+        return new PropDefinerImpl<CONTEXT>(this);
     }
 
     @FunctionalInterface
@@ -271,6 +500,81 @@ public class PropDefinerBuilder<CONTEXT> {
         void setTo(CONTEXT context, Type type, String name, TYPE value);
     }
 
+    @FunctionalInterface
+    public interface SlotGetter<CONTEXT> {
+        Object getFrom(CONTEXT context, int ordinal);
+    }
+
+    @FunctionalInterface
+    public interface SlotSetter<CONTEXT> {
+        void setTo(CONTEXT context, int ordinal, Object value);
+    }
+
+    @FunctionalInterface
+    public interface IntGetter<CONTEXT> {
+        int getFrom(CONTEXT context, String name, int substIfAbsent);
+    }
+
+    @FunctionalInterface
+    public interface IntSetter<CONTEXT> {
+        void setTo(CONTEXT context, String name, int value);
+    }
+
+    @FunctionalInterface
+    public interface LongGetter<CONTEXT> {
+        long getFrom(CONTEXT context, String name, long substIfAbsent);
+    }
+
+    @FunctionalInterface
+    public interface LongSetter<CONTEXT> {
+        void setTo(CONTEXT context, String name, long value);
+    }
+
+    @FunctionalInterface
+    public interface DoubleGetter<CONTEXT> {
+        double getFrom(CONTEXT context, String name, double substIfAbsent);
+    }
+
+    @FunctionalInterface
+    public interface DoubleSetter<CONTEXT> {
+        void setTo(CONTEXT context, String name, double value);
+    }
+
+    @FunctionalInterface
+    public interface BooleanGetter<CONTEXT> {
+        boolean getFrom(CONTEXT context, String name, boolean substIfAbsent);
+    }
+
+    @FunctionalInterface
+    public interface BooleanSetter<CONTEXT> {
+        void setTo(CONTEXT context, String name, boolean value);
+    }
+
+    public interface PrimitiveSlotAccess<CONTEXT> {
+        int getInt(CONTEXT context, int ordinal, int substIfAbsent);
+
+        void setInt(CONTEXT context, int ordinal, int value);
+
+        long getLong(CONTEXT context, int ordinal, long substIfAbsent);
+
+        void setLong(CONTEXT context, int ordinal, long value);
+
+        double getDouble(CONTEXT context, int ordinal, double substIfAbsent);
+
+        void setDouble(CONTEXT context, int ordinal, double value);
+
+        boolean getBoolean(CONTEXT context, int ordinal, boolean substIfAbsent);
+
+        void setBoolean(CONTEXT context, int ordinal, boolean value);
+    }
+
+    // fills values[i] for names[i] / ordinals[i] with what the prop's own getter would return, null if absent;
+    // types[i] is the prop's declared type so string-backed contexts can decode in the same pass
+    @FunctionalInterface
+    public interface BatchGetter<CONTEXT> {
+        void getFrom(CONTEXT context, String[] names, int[] ordinals, Type[] types, Object[] values);
+    }
+
     @FunctionalInterface
     public interface EventHandler<CONTEXT> {
         void onEvent(CONTEXT context, String name, Object value);
@@ -0,0 +1,551 @@
+package com.yahoo.props;
+
+import com.google.common.reflect.TypeToken;
+import com.yahoo.props.PropDefinerBuilder.*;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.function.ToDoubleFunction;
+import java.util.function.ToIntFunction;
+import java.util.function.ToLongFunction;
+import java.util.function.UnaryOperator;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+class PropDefinerImpl<CONTEXT> implements PropDefiner<CONTEXT> {
+    private final PropDefinerBuilder<CONTEXT> builder;
+    private final List<Prop<CONTEXT, ?>>      props = new ArrayList<>();
+    private final DecodeCache<CONTEXT>        decodeCache;
+    private final InitFlights                 initFlights;
+    private final AsyncInitializers<CONTEXT>  asyncInitializers;
+    private final DependencyGraph             dependencyGraph;
+    private PropGroup<CONTEXT>                allPropsGroup;
+
+    private final Map<Integer, Function<CONTEXT, ? extends CompletableFuture<?>>> asyncInitializerByOrdinal =
+            new ConcurrentHashMap<>();
+
+    PropDefinerImpl(PropDefinerBuilder<CONTEXT> builder) {
+        this.builder = builder;
+        this.decodeCache = builder.getDecodeCacheRawGetter() != null
+                ? new DecodeCache<>(builder.getDecodeCacheRawGetter()) : null;
+        this.initFlights = builder.isConcurrentInitialization() ? new InitFlights() : null;
+        @SuppressWarnings("unchecked")
+        UnaryOperator<Object> parentGetter = (UnaryOperator<Object>) (UnaryOperator<?>) builder.getParentGetter();
+        this.dependencyGraph = new DependencyGraph(builder.isPushInvalidation(), parentGetter);
+        this.asyncInitializers = new AsyncInitializers<>(builder.getAsyncExecutor() != null
+                ? builder.getAsyncExecutor() : ForkJoinPool.commonPool());
+        if (builder.getAccessRecorder() != null) {
+            builder.getAccessRecorder().attach(this);
+        }
+    }
+
+    @Override
+    public <TYPE> Prop<CONTEXT, TYPE> define(String name, Class<TYPE> typeClass) {
+        return define(name, typeClass, null);
+    }
+
+    @Override
+    public <TYPE> Prop<CONTEXT, TYPE> define(String name, Class<TYPE> typeClass,
+                                             Function<CONTEXT, TYPE> defaultInitializer) {
+
+        requireNonNull(name, nonNullMessage("name"));
+        requireNonNull(typeClass, nonNullMessage("typeClass"));
+
+        return this.<TYPE, Prop<CONTEXT, TYPE>>register(typeClass,
+                (ordinal, typeGetter, typeSetter) -> newProp(name, ordinal, typeClass, typeGetter, typeSetter,
+                        defaultInitializer));
+    }
+
+    @Override
+    public <TYPE> Prop<CONTEXT, TYPE> define(String name, TypeToken<TYPE> typeToken) {
+        return define(name, typeToken, null);
+    }
+
+    @Override
+    public <TYPE> Prop<CONTEXT, TYPE> define(String name, TypeToken<TYPE> typeToken,
+                                             Function<CONTEXT, TYPE> defaultInitializer) {
+
+        requireNonNull(name, nonNullMessage("name"));
+        requireNonNull(typeToken, nonNullMessage("typeToken"));
+
+        Type type = typeToken.getType();
+        return this.<TYPE, Prop<CONTEXT, TYPE>>register(type,
+                (ordinal, typeGetter, typeSetter) -> newProp(name, ordinal, type, typeGetter, typeSetter,
+                        defaultInitializer));
+    }
+
+    @Override
+    public <TYPE> Prop<CONTEXT, TYPE> defineAsync(String name, Class<TYPE> typeClass,
+                                                  Function<CONTEXT, CompletableFuture<TYPE>> asyncInitializer) {
+
+        requireNonNull(name, nonNullMessage("name"));
+        requireNonNull(typeClass, nonNullMessage("typeClass"));
+        requireNonNull(asyncInitializer, nonNullMessage("asyncInitializer"));
+
+        return defineAsync(name, (Type) typeClass, asyncInitializer);
+    }
+
+    @Override
+    public <TYPE> Prop<CONTEXT, TYPE> defineAsync(String name, TypeToken<TYPE> typeToken,
+                                                  Function<CONTEXT, CompletableFuture<TYPE>> asyncInitializer) {
+
+        requireNonNull(name, nonNullMessage("name"));
+        requireNonNull(typeToken, nonNullMessage("typeToken"));
+        requireNonNull(asyncInitializer, nonNullMessage("asyncInitializer"));
+
+        return defineAsync(name, typeToken.getType(), asyncInitializer);
+    }
+
+    private <TYPE> Prop<CONTEXT, TYPE> defineAsync(String name, Type type,
+                                                   Function<CONTEXT, CompletableFuture<TYPE>> asyncInitializer) {
+        // the initializer compares prefetched dependency values with those of the prop it initializes
+        AtomicReference<PropImpl<CONTEXT, TYPE>> self = new AtomicReference<>();
+        PropImpl<CONTEXT, TYPE> prop = this.<TYPE, PropImpl<CONTEXT, TYPE>>register(type,
+                (ordinal, typeGetter, typeSetter) -> {
+                    asyncInitializerByOrdinal.put(ordinal, asyncInitializer);
+                    return newProp(name, ordinal, type, typeGetter, typeSetter,
+                            context -> asyncInitializers.join(context, self.get(), asyncInitializer));
+                });
+        self.set(prop);
+        return prop;
+    }
+
+    @Override
+    public IntProp<CONTEXT> defineInt(String name) {
+        return defineInt(name, null);
+    }
+
+    @Override
+    public IntProp<CONTEXT> defineInt(String name, ToIntFunction<CONTEXT> defaultInitializer) {
+
+        requireNonNull(name, nonNullMessage("name"));
+
+        return this.<Integer, IntProp<CONTEXT>>register(Integer.class, (ordinal, typeGetter, typeSetter) ->
+                new IntPropImpl<CONTEXT>(
+                        name,
+                        ordinal,
+                        typeGetter,
+                        typeSetter,
+                        resolveDependencyStateStore(),
+                        initFlights,
+                        dependencyGraph,
+                        newCounters(name),
+                        builder.getAfterInitEventHandler(),
+                        builder.getAfterGetEventHandler(),
+                        builder.getAfterSetEventHandler(),
+                        resolveIntGetter(ordinal),
+                        resolveIntSetter(ordinal),
+                        defaultInitializer));
+    }
+
+    @Override
+    public LongProp<CONTEXT> defineLong(String name) {
+        return defineLong(name, null);
+    }
+
+    @Override
+    public LongProp<CONTEXT> defineLong(String name, ToLongFunction<CONTEXT> defaultInitializer) {
+
+        requireNonNull(name, nonNullMessage("name"));
+
+        return this.<Long, LongProp<CONTEXT>>register(Long.class, (ordinal, typeGetter, typeSetter) ->
+                new LongPropImpl<CONTEXT>(
+                        name,
+                        ordinal,
+                        typeGetter,
+                        typeSetter,
+                        resolveDependencyStateStore(),
+                        initFlights,
+                        dependencyGraph,
+                        newCounters(name),
+                        builder.getAfterInitEventHandler(),
+                        builder.getAfterGetEventHandler(),
+                        builder.getAfterSetEventHandler(),
+                        resolveLongGetter(ordinal),
+                        resolveLongSetter(ordinal),
+                        defaultInitializer));
+    }
+
+    @Override
+    public DoubleProp<CONTEXT> defineDouble(String name) {
+        return defineDouble(name, null);
+    }
+
+    @Override
+    public DoubleProp<CONTEXT> defineDouble(String name, ToDoubleFunction<CONTEXT> defaultInitializer) {
+
+        requireNonNull(name, nonNullMessage("name"));
+
+        return this.<Double, DoubleProp<CONTEXT>>register(Double.class, (ordinal, typeGetter, typeSetter) ->
+                new DoublePropImpl<CONTEXT>(
+                        name,
+                        ordinal,
+                        typeGetter,
+                        typeSetter,
+                        resolveDependencyStateStore(),
+                        initFlights,
+                        dependencyGraph,
+                        newCounters(name),
+                        builder.getAfterInitEventHandler(),
+                        builder.getAfterGetEventHandler(),
+                        builder.getAfterSetEventHandler(),
+                        resolveDoubleGetter(ordinal),
+                        resolveDoubleSetter(ordinal),
+                        defaultInitializer));
+    }
+
+    @Override
+    public BooleanProp<CONTEXT> defineBoolean(String name) {
+        return defineBoolean(name, null);
+    }
+
+    @Override
+    public BooleanProp<CONTEXT> defineBoolean(String name, Predicate<CONTEXT> defaultInitializer) {
+
+        requireNonNull(name, nonNullMessage("name"));
+
+        return this.<Boolean, BooleanProp<CONTEXT>>register(Boolean.class, (ordinal, typeGetter, typeSetter) ->
+                new BooleanPropImpl<CONTEXT>(
+                        name,
+                        ordinal,
+                        typeGetter,
+                        typeSetter,
+                        resolveDependencyStateStore(),
+                        initFlights,
+                        dependencyGraph,
+                        newCounters(name),
+                        builder.getAfterInitEventHandler(),
+                        builder.getAfterGetEventHandler(),
+                        builder.getAfterSetEventHandler(),
+                        resolveBooleanGetter(ordinal),
+                        resolveBooleanSetter(ordinal),
+                        defaultInitializer));
+    }
+
+    @Override
+    public synchronized List<Prop<CONTEXT, ?>> getProps() {
+        return Collections.unmodifiableList(new ArrayList<>(props));
+    }
+
+    @Override
+    public synchronized PropGroup<CONTEXT> newGroup(Collection<? extends Prop<CONTEXT, ?>> props) {
+
+        requireNonNull(props, nonNullMessage("props"));
+
+        List<Prop<CONTEXT, ?>> members = new ArrayList<>(props.size());
+        for (Prop<CONTEXT, ?> prop : props) {
+            members.add(checkDefinedHere(prop));
+        }
+        return new PropGroup<>(members, this.props.size(), builder.getBatchGetter());
+    }
+
+    @Override
+    public CompletableFuture<Void> prefetch(CONTEXT context, Collection<? extends Prop<CONTEXT, ?>> props) {
+
+        requireNonNull(context, nonNullMessage("context"));
+        requireNonNull(props, nonNullMessage("props"));
+
+        List<CompletableFuture<?>> futures = new ArrayList<>();
+        for (Prop<CONTEXT, ?> prop : props) {
+            PropImpl<CONTEXT, ?> propImpl = checkDefinedHere(prop);
+            Function<CONTEXT, ? extends CompletableFuture<?>> asyncInitializer =
+                    asyncInitializerByOrdinal.get(prop.getOrdinal());
+            if (asyncInitializer != null && propImpl.isUninitialized(context)) {
+                futures.add(asyncInitializers.start(context, propImpl, asyncInitializer));
+            }
+        }
+        return CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0]));
+    }
+
+    private synchronized PropImpl<CONTEXT, ?> checkDefinedHere(Prop<CONTEXT, ?> prop) {
+
+        requireNonNull(prop, nonNullMessage("prop"));
+
+        if (prop.getOrdinal() >= props.size() || props.get(prop.getOrdinal()) != prop) {
+            throw new IllegalArgumentException("Prop not defined by this definer: " + prop.getName());
+        }
+        return (PropImpl<CONTEXT, ?>) prop;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <TYPE> void onChange(Prop<CONTEXT, TYPE> prop, ChangeListener<CONTEXT, ? super TYPE> listener) {
+
+        requireNonNull(listener, nonNullMessage("listener"));
+
+        ((PropImpl<CONTEXT, TYPE>) checkDefinedHere(prop)).addListener(null, listener);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <TYPE> void removeOnChange(Prop<CONTEXT, TYPE> prop, ChangeListener<CONTEXT, ? super TYPE> listener) {
+
+        requireNonNull(listener, nonNullMessage("listener"));
+
+        ((PropImpl<CONTEXT, TYPE>) checkDefinedHere(prop)).removeListener(null, listener);
+    }
+
+    @Override
+    public PropSnapshot<CONTEXT> snapshot(CONTEXT context) {
+        return allPropsGroup().snapshot(context);
+    }
+
+    @Override
+    public PropCodec<CONTEXT> newCodec(Collection<? extends Prop<CONTEXT, ?>> props) {
+
+        requireNonNull(props, nonNullMessage("props"));
+
+        List<PropImpl<CONTEXT, ?>> members = new ArrayList<>(props.size());
+        for (Prop<CONTEXT, ?> prop : props) {
+            members.add(checkDefinedHere(prop));
+        }
+        return new PropCodec<>(members);
+    }
+
+    @Override
+    public ReloadableContext<CONTEXT> newReloadable(CONTEXT initial) {
+
+        requireNonNull(initial, nonNullMessage("initial"));
+
+        return new ReloadableContext<>(this, initial);
+    }
+
+    synchronized List<PropImpl<CONTEXT, ?>> getPropsInDependencyOrder() {
+        List<PropImpl<CONTEXT, ?>> ordered = new ArrayList<>(props.size());
+        for (int ordinal : dependencyGraph.topologicalOrder(props.size())) {
+            ordered.add((PropImpl<CONTEXT, ?>) props.get(ordinal));
+        }
+        return ordered;
+    }
+
+    private synchronized PropGroup<CONTEXT> allPropsGroup() {
+        if (allPropsGroup == null || allPropsGroup.size() != props.size()) {
+            allPropsGroup = newGroup(props);
+        }
+        return allPropsGroup;
+    }
+
+    private synchronized <TYPE, PROP extends Prop<CONTEXT, TYPE>> PROP register(
+            Type type, PropFactory<CONTEXT, TYPE, PROP> factory) {
+        int ordinal = props.size();
+        TypeGetter<CONTEXT, TYPE> typeGetter = bindTypeGetter(resolveTypeGetter(type, ordinal), type);
+        TypeSetter<CONTEXT, TYPE> typeSetter = bindTypeSetter(resolveTypeSetter(type, ordinal), type);
+        if (decodeCache != null && DecodeCache.isCacheable(type)) {
+            typeGetter = decodeCache.wrap(typeGetter, ordinal, type);
+            typeSetter = decodeCache.wrap(typeSetter, ordinal);
+        }
+        if (builder.getAccessRecorder() != null) {
+            typeGetter = builder.getAccessRecorder().wrap(typeGetter, ordinal);
+        }
+        PROP prop = factory.newProp(ordinal, typeGetter, typeSetter);
+        props.add(prop);
+        return prop;
+    }
+
+    // specialized implementations keep the per-get checks of what can't happen out of the hot path
+    private <TYPE> PropImpl<CONTEXT, TYPE> newProp(String name, int ordinal, Type type,
+                                                   TypeGetter<CONTEXT, TYPE> typeGetter,
+                                                   TypeSetter<CONTEXT, TYPE> typeSetter,
+                                                   Function<CONTEXT, TYPE> defaultInitializer) {
+        if (hasEventHandlers() || builder.getMetrics() != null) {
+            return new PropImpl<CONTEXT, TYPE>(
+                    name,
+                    ordinal,
+                    type,
+                    typeGetter,
+                    typeSetter,
+                    resolveDependencyStateStore(),
+                    initFlights,
+                    dependencyGraph,
+                    newCounters(name),
+                    builder.getAfterInitEventHandler(),
+                    builder.getAfterGetEventHandler(),
+                    builder.getAfterSetEventHandler(),
+                    defaultInitializer);
+        } else if (defaultInitializer == null) {
+            return new PlainPropImpl<CONTEXT, TYPE>(
+                    name,
+                    ordinal,
+                    type,
+                    typeGetter,
+                    typeSetter,
+                    resolveDependencyStateStore(),
+                    initFlights,
+                    dependencyGraph);
+        } else {
+            return new InitializedPropImpl<CONTEXT, TYPE>(
+                    name,
+                    ordinal,
+                    type,
+                    typeGetter,
+                    typeSetter,
+                    resolveDependencyStateStore(),
+                    initFlights,
+                    dependencyGraph,
+                    defaultInitializer);
+        }
+    }
+
+    private PropCounters newCounters(String name) {
+        return builder.getMetrics() != null ? builder.getMetrics().register(name) : null;
+    }
+
+    private boolean hasEventHandlers() {
+        return builder.getAfterInitEventHandler() != null
+                || builder.getAfterGetEventHandler() != null
+                || builder.getAfterSetEventHandler() != null;
+    }
+
+    private DependencyStateStore<CONTEXT> resolveDependencyStateStore() {
+        if (builder.getDependencyStateStore() != null) {
+            return builder.getDependencyStateStore();
+        }
+        return new ContextDependencyStateStore<CONTEXT>(
+                resolveTypeGetter(String.class),
+                resolveTypeSetter(String.class));
+    }
+
+    private <TYPE> TypeGetter<CONTEXT, TYPE> bindTypeGetter(TypeGetter<CONTEXT, TYPE> typeGetter, Type type) {
+        if (typeGetter instanceof ComprehensiveTypeGetter) {
+            ComprehensiveTypeGetter<CONTEXT, TYPE> getter = (ComprehensiveTypeGetter<CONTEXT, TYPE>) typeGetter;
+            return (context, name) -> getter.getFrom(context, type, name);
+        }
+        return typeGetter;
+    }
+
+    private <TYPE> TypeSetter<CONTEXT, TYPE> bindTypeSetter(TypeSetter<CONTEXT, TYPE> typeSetter, Type type) {
+        if (typeSetter instanceof ComprehensiveTypeSetter) {
+            ComprehensiveTypeSetter<CONTEXT, TYPE> setter = (ComprehensiveTypeSetter<CONTEXT, TYPE>) typeSetter;
+            return (context, name, value) -> setter.setTo(context, type, name, value);
+        }
+        return typeSetter;
+    }
+
+    @SuppressWarnings("unchecked")
+    private <TYPE> TypeGetter<CONTEXT, TYPE> resolveTypeGetter(Type type, int ordinal) {
+        SlotGetter<CONTEXT> slotGetter = builder.getSlotGetter();
+        if (slotGetter != null) {
+            return (context, name) -> (TYPE) slotGetter.getFrom(context, ordinal);
+        }
+        return resolveTypeGetter(type);
+    }
+
+    private <TYPE> TypeSetter<CONTEXT, TYPE> resolveTypeSetter(Type type, int ordinal) {
+        SlotSetter<CONTEXT> slotSetter = builder.getSlotSetter();
+        if (slotSetter != null) {
+            return (context, name, value) -> slotSetter.setTo(context, ordinal, value);
+        }
+        return resolveTypeSetter(type);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <TYPE> TypeGetter<CONTEXT, TYPE> resolveTypeGetter(Type type) {
+        TypeGetter<CONTEXT, TYPE> typeGetter = builder.getTypeGetter(type);
+        if (typeGetter == null) {
+            TypeGetter<CONTEXT, Object> objectGetter = builder.getObjectGetter();
+
+            requireNonNull(objectGetter,
+                    "Either objectGetter or typeGetter is required for type: " + type.getTypeName());
+
+            typeGetter = (context, name) -> (TYPE) objectGetter.getFrom(context, name);
+        }
+        return typeGetter;
+    }
+
+    private <TYPE> TypeSetter<CONTEXT, TYPE> resolveTypeSetter(Type type) {
+        TypeSetter<CONTEXT, TYPE> typeSetter = builder.getTypeSetter(type);
+        if (typeSetter == null) {
+            TypeSetter<CONTEXT, Object> objectSetter = builder.getObjectSetter();
+
+            requireNonNull(objectSetter,
+                    "Either objectSetter or typeSetter is required for type: " + type.getTypeName());
+
+            typeSetter = (context, name, value) -> objectSetter.setTo(context, name, value);
+        }
+        return typeSetter;
+    }
+
+    private IntGetter<CONTEXT> resolveIntGetter(int ordinal) {
+        PrimitiveSlotAccess<CONTEXT> slots = builder.getPrimitiveSlotAccess();
+        IntGetter<CONTEXT> intGetter = slots != null
+                ? (context, name, substIfAbsent) -> slots.getInt(context, ordinal, substIfAbsent)
+                : builder.getIntGetter();
+        return builder.getAccessRecorder() != null
+                ? builder.getAccessRecorder().wrapInt(intGetter, ordinal) : intGetter;
+    }
+
+    private IntSetter<CONTEXT> resolveIntSetter(int ordinal) {
+        PrimitiveSlotAccess<CONTEXT> slots = builder.getPrimitiveSlotAccess();
+        if (slots != null) {
+            return (context, name, value) -> slots.setInt(context, ordinal, value);
+        }
+        return builder.getIntSetter();
+    }
+
+    private LongGetter<CONTEXT> resolveLongGetter(int ordinal) {
+        PrimitiveSlotAccess<CONTEXT> slots = builder.getPrimitiveSlotAccess();
+        LongGetter<CONTEXT> longGetter = slots != null
+                ? (context, name, substIfAbsent) -> slots.getLong(context, ordinal, substIfAbsent)
+                : builder.getLongGetter();
+        return builder.getAccessRecorder() != null
+                ? builder.getAccessRecorder().wrapLong(longGetter, ordinal) : longGetter;
+    }
+
+    private LongSetter<CONTEXT> resolveLongSetter(int ordinal) {
+        PrimitiveSlotAccess<CONTEXT> slots = builder.getPrimitiveSlotAccess();
+        if (slots != null) {
+            return (context, name, value) -> slots.setLong(context, ordinal, value);
+        }
+        return builder.getLongSetter();
+    }
+
+    private DoubleGetter<CONTEXT> resolveDoubleGetter(int ordinal) {
+        PrimitiveSlotAccess<CONTEXT> slots = builder.getPrimitiveSlotAccess();
+        DoubleGetter<CONTEXT> doubleGetter = slots != null
+                ? (context, name, substIfAbsent) -> slots.getDouble(context, ordinal, substIfAbsent)
+                : builder.getDoubleGetter();
+        return builder.getAccessRecorder() != null
+                ? builder.getAccessRecorder().wrapDouble(doubleGetter, ordinal) : doubleGetter;
+    }
+
+    private DoubleSetter<CONTEXT> resolveDoubleSetter(int ordinal) {
+        PrimitiveSlotAccess<CONTEXT> slots = builder.getPrimitiveSlotAccess();
+        if (slots != null) {
+            return (context, name, value) -> slots.setDouble(context, ordinal, value);
+        }
+        return builder.getDoubleSetter();
+    }
+
+    private BooleanGetter<CONTEXT> resolveBooleanGetter(int ordinal) {
+        PrimitiveSlotAccess<CONTEXT> slots = builder.getPrimitiveSlotAccess();
+        BooleanGetter<CONTEXT> booleanGetter = slots != null
+                ? (context, name, substIfAbsent) -> slots.getBoolean(context, ordinal, substIfAbsent)
+                : builder.getBooleanGetter();
+        return builder.getAccessRecorder() != null
+                ? builder.getAccessRecorder().wrapBoolean(booleanGetter, ordinal) : booleanGetter;
+    }
+
+    private BooleanSetter<CONTEXT> resolveBooleanSetter(int ordinal) {
+        PrimitiveSlotAccess<CONTEXT> slots = builder.getPrimitiveSlotAccess();
+        if (slots != null) {
+            return (context, name, value) -> slots.setBoolean(context, ordinal, value);
+        }
+        return builder.getBooleanSetter();
+    }
+
+    @FunctionalInterface
+    private interface PropFactory<CONTEXT, TYPE, PROP extends Prop<CONTEXT, TYPE>> {
+        PROP newProp(int ordinal, TypeGetter<CONTEXT, TYPE> typeGetter, TypeSetter<CONTEXT, TYPE> typeSetter);
+    }
+}
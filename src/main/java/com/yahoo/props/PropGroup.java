@@ -0,0 +1,133 @@
+package com.yahoo.props;
+
+import com.yahoo.props.PropDefinerBuilder.BatchGetter;
+
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * A fixed set of props of one definer read together: {@link #getFrom(Object, Object[])} fills a flat array indexed
+ * by each prop's position in the group. Plain props are served by the definer's {@link BatchGetter} in a single call
+ * when one is set; props with initializers, dependencies or event handlers go through their regular getFrom.
+ */
+public final class PropGroup<CONTEXT> {
+    private final List<Prop<CONTEXT, ?>> props;
+    private final int[]                  indexByOrdinal;
+    private final BatchGetter<CONTEXT>   batchGetter;
+    private final String[]               batchNames;
+    private final int[]                  batchOrdinals;
+    private final Type[]                 batchTypes;
+    private final PropImpl<CONTEXT, ?>[] batchProps;
+    private final int[]                  batchIndexes;
+    private final Prop<CONTEXT, ?>[]     otherProps;
+    private final int[]                  otherIndexes;
+
+    PropGroup(List<Prop<CONTEXT, ?>> props, int ordinalCount, BatchGetter<CONTEXT> batchGetter) {
+        this.props = Collections.unmodifiableList(new ArrayList<>(props));
+        this.indexByOrdinal = new int[ordinalCount];
+        this.batchGetter = batchGetter;
+        Arrays.fill(indexByOrdinal, -1);
+
+        List<Integer> batched = new ArrayList<>();
+        List<Integer> others = new ArrayList<>();
+        for (int i = 0; i < props.size(); i++) {
+            Prop<CONTEXT, ?> prop = props.get(i);
+            if (indexByOrdinal[prop.getOrdinal()] >= 0) {
+                throw new IllegalArgumentException("Duplicate prop in group: " + prop.getName());
+            }
+            indexByOrdinal[prop.getOrdinal()] = i;
+            (batchGetter != null && prop instanceof PlainPropImpl ? batched : others).add(i);
+        }
+
+        this.batchNames = new String[batched.size()];
+        this.batchOrdinals = new int[batched.size()];
+        this.batchTypes = new Type[batched.size()];
+        @SuppressWarnings("unchecked")
+        PropImpl<CONTEXT, ?>[] batchProps = (PropImpl<CONTEXT, ?>[]) new PropImpl<?, ?>[batched.size()];
+        this.batchProps = batchProps;
+        this.batchIndexes = new int[batched.size()];
+        for (int i = 0; i < batched.size(); i++) {
+            int index = batched.get(i);
+            batchProps[i] = (PropImpl<CONTEXT, ?>) props.get(index);
+            batchNames[i] = batchProps[i].getName();
+            batchOrdinals[i] = batchProps[i].getOrdinal();
+            batchTypes[i] = batchProps[i].getType();
+            batchIndexes[i] = index;
+        }
+
+        @SuppressWarnings("unchecked")
+        Prop<CONTEXT, ?>[] otherProps = (Prop<CONTEXT, ?>[]) new Prop<?, ?>[others.size()];
+        this.otherProps = otherProps;
+        this.otherIndexes = new int[others.size()];
+        for (int i = 0; i < others.size(); i++) {
+            otherIndexes[i] = others.get(i);
+            otherProps[i] = props.get(otherIndexes[i]);
+        }
+    }
+
+    public List<Prop<CONTEXT, ?>> getProps() {
+        return props;
+    }
+
+    public int size() {
+        return props.size();
+    }
+
+    public int indexOf(Prop<CONTEXT, ?> prop) {
+        int ordinal = prop.getOrdinal();
+        if (ordinal < indexByOrdinal.length) {
+            int index = indexByOrdinal[ordinal];
+            if (index >= 0 && props.get(index) == prop) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    public Object[] getFrom(CONTEXT context) {
+        Object[] values = new Object[props.size()];
+        getFrom(context, values);
+        return values;
+    }
+
+    public void getFrom(CONTEXT context, Object[] values) {
+
+        requireNonNull(context, () -> nonNullMessage("context"));
+        if (values.length < props.size()) {
+            throw new IllegalArgumentException("values holds " + values.length + " of " + props.size() + " props");
+        }
+
+        if (batchNames.length > 0) {
+            // batch results land in place when the whole group is batched
+            Object[] batchValues = otherProps.length == 0 ? values : new Object[batchNames.length];
+            batchGetter.getFrom(context, batchNames, batchOrdinals, batchTypes, batchValues);
+            for (int i = 0; i < batchProps.length; i++) {
+                // an initializer may have been attached after define()
+                values[batchIndexes[i]] = batchProps[i].hasDefaultInitializer()
+                        ? batchProps[i].getFrom(context) : batchValues[i];
+            }
+        }
+        for (int i = 0; i < otherProps.length; i++) {
+            values[otherIndexes[i]] = otherProps[i].getFrom(context);
+        }
+    }
+
+    public PropSnapshot<CONTEXT> snapshot(CONTEXT context) {
+        return new PropSnapshot<>(this, getFrom(context));
+    }
+
+    @SuppressWarnings("unchecked")
+    public <TYPE> TYPE get(Object[] values, Prop<CONTEXT, TYPE> prop) {
+        int index = indexOf(prop);
+        if (index < 0) {
+            throw new IllegalArgumentException("Prop not in group: " + prop.getName());
+        }
+        return (TYPE) values[index];
+    }
+}
@@ -4,45 +4,67 @@ import com.yahoo.props.PropDefinerBuilder.*;
 
 import java.lang.reflect.Type;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static com.yahoo.props.Utils.nonNullMessage;
 import static java.util.Objects.requireNonNull;
 
 class PropImpl<CONTEXT, TYPE> implements Prop<CONTEXT, TYPE> {
     static final String RESET_DEPENDENCY_KEY_PREFIX = "@PROPS_RESET_DEPENDENCY@";
+    // peeked value of a prop awaiting its initialization
+    private static final Object UNKNOWN = new Object();
 
-    private String                          name;
-    private Type                            type;
-    private Function<CONTEXT, TYPE>         defaultInitializer;
-    private TypeGetter<CONTEXT, TYPE>       typeGetter;
-    private TypeSetter<CONTEXT, TYPE>       typeSetter;
-    private TypeGetter<CONTEXT, String>     internalGetter;
-    private TypeSetter<CONTEXT, String>     internalSetter;
-    private EventHandler<CONTEXT>           afterInitEventHandler;
-    private EventHandler<CONTEXT>           afterGetEventHandler;
-    private EventHandler<CONTEXT>           afterSetEventHandler;
-    private List<Function<CONTEXT, Object>> dependencyAccessList;
+    private final String                        name;
+    private final int                           ordinal;
+    private final Type                          type;
+    private Function<CONTEXT, TYPE>             defaultInitializer;
+    private final TypeGetter<CONTEXT, TYPE>     typeGetter;
+    private final TypeSetter<CONTEXT, TYPE>     typeSetter;
+    private final DependencyStateStore<CONTEXT> dependencyStateStore;
+    private final InitFlights                   initFlights;
+    private final DependencyGraph               dependencyGraph;
+    private final PropCounters                  counters;
+    private final EventHandler<CONTEXT>         afterInitEventHandler;
+    private final EventHandler<CONTEXT>         afterGetEventHandler;
+    private final EventHandler<CONTEXT>         afterSetEventHandler;
+    private List<Function<CONTEXT, Object>>     dependencyAccessList;
+    private List<String>                        dependencyKeys;
+    // upstream props of the pulled dependencies by index, null for plain dependency accesses
+    private List<PropImpl<CONTEXT, ?>>          dependencyProps;
+    private boolean                             pushedDependencies;
+    private MemoCache                           memoCache;
+    // upstream props of pushed dependencies, in the order of their values in memo keys
+    private volatile List<PropImpl<?, ?>>       memoUpstream;
+    // null while nothing subscribed, so that sets of unwatched props skip reading the old value
+    private volatile ChangeListeners<CONTEXT, TYPE> listeners;
 
     PropImpl(String name,
+             int ordinal,
              Type type,
              TypeGetter<CONTEXT, TYPE> typeGetter,
              TypeSetter<CONTEXT, TYPE> typeSetter,
-             TypeGetter<CONTEXT, String> internalGetter,
-             TypeSetter<CONTEXT, String> internalSetter,
+             DependencyStateStore<CONTEXT> dependencyStateStore,
+             InitFlights initFlights,
+             DependencyGraph dependencyGraph,
+             PropCounters counters,
              EventHandler<CONTEXT> afterInitEventHandler,
              EventHandler<CONTEXT> afterGetEventHandler,
              EventHandler<CONTEXT> afterSetEventHandler,
              Function<CONTEXT, TYPE> defaultInitializer) {
         this.name = name;
+        this.ordinal = ordinal;
         this.type = type;
         this.typeGetter = typeGetter;
         this.typeSetter = typeSetter;
-        this.internalGetter = internalGetter;
-        this.internalSetter = internalSetter;
+        this.dependencyStateStore = dependencyStateStore;
+        this.initFlights = initFlights;
+        this.dependencyGraph = dependencyGraph;
+        this.counters = counters;
         this.afterInitEventHandler = afterInitEventHandler;
         this.afterGetEventHandler = afterGetEventHandler;
         this.afterSetEventHandler = afterSetEventHandler;
@@ -54,25 +76,208 @@ class PropImpl<CONTEXT, TYPE> implements Prop<CONTEXT, TYPE> {
         return name;
     }
 
-    private TYPE callTypeGetter(CONTEXT context) {
-        if (typeGetter instanceof ComprehensiveTypeGetter) {
-            return ((ComprehensiveTypeGetter<CONTEXT, TYPE>) typeGetter).getFrom(context, type, name);
-        } else {
-            return typeGetter.getFrom(context, name);
-        }
+    @Override
+    public int getOrdinal() {
+        return ordinal;
+    }
+
+    Type getType() {
+        return type;
     }
 
-    private void callTypeSetter(CONTEXT context, TYPE value) {
-        if (typeSetter instanceof ComprehensiveTypeSetter) {
-            ((ComprehensiveTypeSetter<CONTEXT, TYPE>) typeSetter).setTo(context, type, name, value);
-        } else {
-            typeSetter.setTo(context, name, value);
+    // type getters and setters are bound to the type at define(), see PropDefinerBuilder
+    final TYPE callTypeGetter(CONTEXT context) {
+        return typeGetter.getFrom(context, name);
+    }
+
+    final void callTypeSetter(CONTEXT context, TYPE value) {
+        ChangeListeners<CONTEXT, TYPE> listeners = this.listeners;
+        TYPE oldValue = listeners != null ? typeGetter.getFrom(context, name) : null;
+        storeValue(context, value);
+        if (listeners != null) {
+            listeners.fire(context, oldValue, value);
         }
+    }
+
+    // sets without notifying, readers racing with a set in concurrent mode may see the value before its
+    // dependency stamps and initialize once more
+    final void storeValue(CONTEXT context, TYPE value) {
+        typeSetter.setTo(context, name, value);
         updateDependencyHashes(context, value);
+        markSet(context);
+    }
+
+    // for values stored by storeValue into a context that had none
+    final void fireCarriedOver(CONTEXT context) {
+        ChangeListeners<CONTEXT, TYPE> listeners = this.listeners;
+        if (listeners != null) {
+            listeners.fire(context, null, typeGetter.getFrom(context, name));
+        }
+    }
+
+    final boolean isWatched() {
+        return listeners != null;
+    }
+
+    // context is null for listeners of every context
+    final synchronized void addListener(CONTEXT context, ChangeListener<CONTEXT, ? super TYPE> listener) {
+        ChangeListeners<CONTEXT, TYPE> listeners = this.listeners;
+        if (listeners == null) {
+            listeners = new ChangeListeners<>();
+        }
+        listeners.add(context, listener);
+        this.listeners = listeners;
+    }
+
+    final synchronized void removeListener(CONTEXT context, ChangeListener<CONTEXT, ? super TYPE> listener) {
+        ChangeListeners<CONTEXT, TYPE> listeners = this.listeners;
+        if (listeners != null) {
+            listeners.remove(context, listener);
+            if (listeners.isEmpty()) {
+                this.listeners = null;
+            }
+        }
+    }
+
+    // for setters that bypass callTypeSetter
+    final void markSet(CONTEXT context) {
+        if (dependencyGraph.isPushInvalidation()) {
+            dependencyGraph.onSet(context, ordinal);
+        }
+    }
+
+    DependencyGraph getDependencyGraph() {
+        return dependencyGraph;
+    }
+
+    // stores without notifying, see afterInitialize
+    final TYPE initialize(CONTEXT context) {
+        TYPE value = memoCache != null ? memoizedInitialize(context) : defaultInitializer.apply(context);
+        storeValue(context, value);
+        return value;
+    }
+
+    @SuppressWarnings("unchecked")
+    private TYPE memoizedInitialize(CONTEXT context) {
+        Function<CONTEXT, TYPE> initializer = defaultInitializer;
+        Object[] dependencyValues = dependencyValuesOf(context);
+        TYPE value = (TYPE) memoCache.get(this, initializer, dependencyValues);
+        if (value == null) {
+            // contexts racing on the same inputs may each compute, the last result is kept
+            value = initializer.apply(context);
+            memoCache.put(this, initializer, dependencyValues, value);
+        }
+        return value;
+    }
+
+    // values of the reset dependencies, in the order of memo keys
+    @SuppressWarnings("unchecked")
+    final Object[] dependencyValuesOf(CONTEXT context) {
+        List<PropImpl<?, ?>> upstream = memoUpstream;
+        if (upstream == null) {
+            upstream = pushedDependencies ? dependencyGraph.upstreamOf(ordinal) : Collections.emptyList();
+            memoUpstream = upstream;
+        }
+        int accessCount = dependencyAccessList != null ? dependencyAccessList.size() : 0;
+        Object[] values = new Object[accessCount + upstream.size()];
+        for (int no = 0; no < accessCount; no++) {
+            values[no] = dependencyAccessList.get(no).apply(context);
+        }
+        for (int i = 0; i < upstream.size(); i++) {
+            values[accessCount + i] = ((PropImpl<CONTEXT, ?>) upstream.get(i)).getFrom(context);
+        }
+        return values;
+    }
+
+    final boolean isConcurrentInitialization() {
+        return initFlights != null;
+    }
+
+    // in concurrent mode only one thread per context and prop runs the initialization, the others wait for its
+    // result; no lock is held, so initializers reading other props of any context can't deadlock
+    final <R> R runInitialization(CONTEXT context, Supplier<R> initialization) {
+        return initFlights != null ? initFlights.run(context, ordinal, initialization) : initialization.get();
+    }
+
+    final boolean isUninitialized(CONTEXT context) {
+        return isUninitialized(context, callTypeGetter(context));
+    }
+
+    final boolean isUninitialized(CONTEXT context, TYPE value) {
+        return hasDefaultInitializer() && (value == null || hasDependencies() && hasAnyDependencyChanged(context));
+    }
+
+    // value is what the getter returned and isUninitialized; in concurrent mode only one thread per context
+    // and prop gets to run the initializer, the others wait and return its result
+    @SuppressWarnings("unchecked")
+    final TYPE initializeIfNeeded(CONTEXT context, TYPE value) {
+        if (initFlights == null) {
+            TYPE initialized = reinitialize(context, value);
+            afterInitialize(context, value, initialized);
+            return initialized;
+        }
+        InitFlights.Flight running = initFlights.join(context, ordinal);
+        if (running != null) {
+            return (TYPE) running.await();
+        }
+        TYPE staleValue = null;
+        boolean ran = false;
+        try {
+            value = callTypeGetter(context);
+            if (isUninitialized(context, value)) {
+                staleValue = value;
+                value = reinitialize(context, value);
+                ran = true;
+            }
+        } catch (RuntimeException | Error e) {
+            initFlights.end(context, ordinal, null, e);
+            throw e;
+        }
+        initFlights.end(context, ordinal, value, null);
+        // notified once the flight is over, so that listeners may read the prop
+        if (ran) {
+            afterInitialize(context, staleValue, value);
+        }
+        return value;
+    }
+
+    private TYPE reinitialize(CONTEXT context, TYPE staleValue) {
+        if (staleValue != null) {
+            if (counters != null) {
+                counters.resets.increment();
+            }
+            clearStale(context);
+        }
+        if (counters != null) {
+            long start = System.nanoTime();
+            TYPE value = initialize(context);
+            counters.recordInitialization(System.nanoTime() - start);
+            return value;
+        }
+        return initialize(context);
+    }
+
+    // not counted as a set, the reset is counted instead; listeners see the stale value replaced once recomputed
+    private void clearStale(CONTEXT context) {
+        storeValue(context, null);
+        if (afterSetEventHandler != null) {
+            afterSetEventHandler.onEvent(context, name, null);
+        }
+    }
+
+    // staleValue is what the reset replaced, null for a first initialization
+    private void afterInitialize(CONTEXT context, TYPE staleValue, TYPE value) {
+        ChangeListeners<CONTEXT, TYPE> listeners = this.listeners;
+        if (listeners != null) {
+            listeners.fire(context, staleValue, value);
+        }
+        if (afterInitEventHandler != null) {
+            afterInitEventHandler.onEvent(context, name, value);
+        }
     }
 
     private void updateDependencyHashes(CONTEXT context, TYPE value) {
-        if (hasDependencies()) {
+        if (dependencyAccessList != null) {
             for (int i = 0; i < dependencyAccessList.size(); i++) {
                 Object dependency = dependencyAccessList.get(i).apply(context);
                 if (value == null) {
@@ -85,75 +290,118 @@ class PropImpl<CONTEXT, TYPE> implements Prop<CONTEXT, TYPE> {
     }
 
     private void storeDependencyHash(CONTEXT context, int no, Object nullableTarget) {
-        internalSetter.setTo(context, dependencyKey(no), dependencyHash(nullableTarget));
+        dependencyStateStore.writeStamp(context, dependencyKeys.get(no), DependencyStateStore.stampOf(nullableTarget));
     }
 
     private void clearDependencyHash(CONTEXT context, int no) {
-        internalSetter.setTo(context, dependencyKey(no), null);
+        dependencyStateStore.clearStamp(context, dependencyKeys.get(no));
     }
 
-    private Optional<String> readDependencyHash(CONTEXT context, int no) {
-        return Optional.of(internalGetter.getFrom(context, dependencyKey(no)));
+    private long readDependencyHash(CONTEXT context, int no) {
+        return dependencyStateStore.readStamp(context, dependencyKeys.get(no));
     }
 
     private String dependencyKey(int no) {
-        return String.format("%s%s#%d", RESET_DEPENDENCY_KEY_PREFIX, name, no);
+        return RESET_DEPENDENCY_KEY_PREFIX + name + "#" + no;
     }
 
-    private String dependencyHash(Object nullableTarget) {
-        return (nullableTarget == null) ? "NULL" : String.valueOf(nullableTarget.hashCode());
+    final boolean hasDependencies() {
+        return pushedDependencies || dependencyAccessList != null && dependencyAccessList.size() > 0;
     }
 
-    private boolean isNotNull(TYPE valueNullable) {
-        return valueNullable != null;
+    final boolean hasDefaultInitializer() {
+        return defaultInitializer != null;
     }
 
-    private boolean hasDependencies() {
-        return dependencyAccessList != null && dependencyAccessList.size() > 0;
+    final boolean hasAnyDependencyChanged(CONTEXT context) {
+        if (pushedDependencies && dependencyGraph.isDirty(context, ordinal)) {
+            return true;
+        }
+        for (int no = 0; dependencyAccessList != null && no < dependencyAccessList.size(); no++) {
+            long oldHash = readDependencyHash(context, no);
+            if (oldHash != DependencyStateStore.NO_STAMP
+                    && oldHash != DependencyStateStore.stampOf(dependencyAccessList.get(no).apply(context))) {
+                return true;
+            }
+        }
+        return false;
     }
 
-    private boolean hasDefaultInitializer() {
-        return defaultInitializer != null;
+    // like isUninitialized, but reads upstream props without initializing them, those awaiting their
+    // initialization count as changed
+    final boolean isUninitializedWithoutInitializing(CONTEXT context, TYPE value) {
+        return hasDefaultInitializer()
+                && (value == null || hasDependencies() && hasAnyDependencyChangedWithoutInitializing(context));
     }
 
-    private boolean hasAnyDependencyChanged(CONTEXT context) {
-        for (int no = 0; no < dependencyAccessList.size(); no++) {
-            Object target = dependencyAccessList.get(no).apply(context);
-            String newHash = dependencyHash(target);
-            Optional<String> oldHash = readDependencyHash(context, no);
-            if (oldHash.isPresent() && !oldHash.get().equals(newHash)) {
+    private boolean hasAnyDependencyChangedWithoutInitializing(CONTEXT context) {
+        if (pushedDependencies && dependencyGraph.isDirty(context, ordinal)) {
+            return true;
+        }
+        for (int no = 0; dependencyAccessList != null && no < dependencyAccessList.size(); no++) {
+            long oldHash = readDependencyHash(context, no);
+            if (oldHash == DependencyStateStore.NO_STAMP) {
+                continue;
+            }
+            Object dependency = peekDependency(context, no);
+            if (dependency == UNKNOWN || oldHash != DependencyStateStore.stampOf(dependency)) {
                 return true;
             }
         }
         return false;
     }
 
-    @Override
-    public TYPE getFrom(CONTEXT context, TYPE substIfNull) {
+    // whether the reset dependencies read equal values in both contexts, so a value derived in one holds in the
+    // other; upstream props are read without initializing them
+    final boolean hasSameDependencies(CONTEXT context, CONTEXT otherContext) {
+        for (int no = 0; dependencyAccessList != null && no < dependencyAccessList.size(); no++) {
+            Object dependency = peekDependency(context, no);
+            if (dependency == UNKNOWN || !Objects.equals(dependency, peekDependency(otherContext, no))) {
+                return false;
+            }
+        }
+        if (pushedDependencies) {
+            for (PropImpl<?, ?> upstream : dependencyGraph.upstreamOf(ordinal)) {
+                @SuppressWarnings("unchecked")
+                PropImpl<CONTEXT, ?> upstreamProp = (PropImpl<CONTEXT, ?>) upstream;
+                Object value = upstreamProp.peek(context);
+                if (value == UNKNOWN || !Objects.equals(value, upstreamProp.peek(otherContext))) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
 
-        requireNonNull(context, nonNullMessage("context"));
+    private Object peekDependency(CONTEXT context, int no) {
+        PropImpl<CONTEXT, ?> upstream = dependencyProps.get(no);
+        return upstream != null ? upstream.peek(context) : dependencyAccessList.get(no).apply(context);
+    }
 
+    // the stored value, UNKNOWN if it awaits its initialization
+    private Object peek(CONTEXT context) {
         TYPE value = callTypeGetter(context);
+        return isUninitializedWithoutInitializing(context, value) ? UNKNOWN : value;
+    }
 
-        if (isNotNull(value)
-                && hasDefaultInitializer()
-                && hasDependencies()
-                && hasAnyDependencyChanged(context)) {
-            value = null;
-            setTo(context, null);
+    @Override
+    public TYPE getFrom(CONTEXT context, TYPE substIfNull) {
+
+        requireNonNull(context, () -> nonNullMessage("context"));
+
+        if (counters != null) {
+            counters.gets.increment();
         }
 
-        if (value == null) {
-            if (defaultInitializer != null) {
-                value = defaultInitializer.apply(context);
-                // initialize
-                callTypeSetter(context, value);
-                if (afterInitEventHandler != null) {
-                    afterInitEventHandler.onEvent(context, name, value);
-                }
-            } else {
-                value = substIfNull;
+        TYPE value = callTypeGetter(context);
+
+        if (isUninitialized(context, value)) {
+            value = initializeIfNeeded(context, value);
+        } else if (value == null) {
+            if (counters != null) {
+                counters.substitutions.increment();
             }
+            value = substIfNull;
         }
         if (afterGetEventHandler != null) {
             afterGetEventHandler.onEvent(context, name, value);
@@ -163,12 +411,33 @@ class PropImpl<CONTEXT, TYPE> implements Prop<CONTEXT, TYPE> {
 
     @Override
     public void setTo(CONTEXT context, TYPE value) {
+        if (counters != null) {
+            counters.sets.increment();
+        }
         callTypeSetter(context, value);
         if (afterSetEventHandler != null) {
             afterSetEventHandler.onEvent(context, name, value);
         }
     }
 
+    @Override
+    public void watch(CONTEXT context, ChangeListener<CONTEXT, ? super TYPE> listener) {
+
+        requireNonNull(context, nonNullMessage("context"));
+        requireNonNull(listener, nonNullMessage("listener"));
+
+        addListener(context, listener);
+    }
+
+    @Override
+    public void unwatch(CONTEXT context, ChangeListener<CONTEXT, ? super TYPE> listener) {
+
+        requireNonNull(context, nonNullMessage("context"));
+        requireNonNull(listener, nonNullMessage("listener"));
+
+        removeListener(context, listener);
+    }
+
     @Override
     public String toString() {
         return getName();
@@ -199,12 +468,47 @@ class PropImpl<CONTEXT, TYPE> implements Prop<CONTEXT, TYPE> {
         this.defaultInitializer = defaultInitializer;
     }
 
+    @Override
+    public Prop<CONTEXT, TYPE> addResetDependency(Prop<CONTEXT, ?> propDependency) {
+
+        requireNonNull(propDependency, nonNullMessage("propDependency"));
+
+        if (dependencyGraph.addEdge(propDependency, this)) {
+            pushedDependencies = true;
+            memoUpstream = null;
+            return this;
+        }
+        addDependencyAccess(context -> propDependency.getFrom(context),
+                propDependency instanceof PropImpl ? (PropImpl<CONTEXT, ?>) propDependency : null);
+        return this;
+    }
+
+    @Override
+    public Prop<CONTEXT, TYPE> memoize(MemoCache memoCache) {
+
+        requireNonNull(memoCache, nonNullMessage("memoCache"));
+        if (!hasDependencies()) {
+            throw new IllegalStateException("Memoized prop without reset dependencies: " + name);
+        }
+
+        this.memoCache = memoCache;
+        return this;
+    }
+
     @Override
     public Prop<CONTEXT, TYPE> addResetDependency(Function<CONTEXT, Object> dependencyAccess) {
+        addDependencyAccess(dependencyAccess, null);
+        return this;
+    }
+
+    private void addDependencyAccess(Function<CONTEXT, Object> dependencyAccess, PropImpl<CONTEXT, ?> upstream) {
         if (dependencyAccessList == null) {
             dependencyAccessList = new ArrayList<>();
+            dependencyKeys = new ArrayList<>();
+            dependencyProps = new ArrayList<>();
         }
+        dependencyKeys.add(dependencyKey(dependencyAccessList.size()));
         dependencyAccessList.add(dependencyAccess);
-        return this;
+        dependencyProps.add(upstream);
     }
 }
@@ -0,0 +1,146 @@
+package com.yahoo.props;
+
+import java.lang.reflect.Type;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Layered context for props of a single definer built by {@link #newDefinerBuilder()}. {@link #fork()} creates a
+ * child layer in constant time: it records only what is set in it and reads everything else through to its parent,
+ * so its memory grows with the number of overridden props. Clearing a prop in a child hides the parent's value.
+ * Reset dependency stamps are layered the same way, so derived props are reset in the child only.
+ * <p>
+ * Layers aren't thread-safe; a parent may be read by several children concurrently as long as it isn't modified.
+ * With push invalidation a child inherits the parent's invalidations as of its first set, so parents should not be
+ * modified while their children are in use.
+ */
+public class PropLayer {
+    // hides the parent's value in this layer
+    private static final Object   ABSENT       = new Object();
+    private static final int[]    NO_KEYS      = {};
+    private static final Object[] NO_VALUES    = {};
+    private static final int      MIN_CAPACITY = 8;
+
+    private final PropLayer     parent;
+    // open addressing by ordinal with linear probing, keys hold ordinal + 1 so that 0 marks a free slot
+    private int[]               keys   = NO_KEYS;
+    private Object[]            values = NO_VALUES;
+    private int                 size;
+    private Map<String, Object> namedValues;
+
+    public PropLayer() {
+        this(null);
+    }
+
+    private PropLayer(PropLayer parent) {
+        this.parent = parent;
+    }
+
+    public static PropDefinerBuilder<PropLayer> newDefinerBuilder() {
+        return PropDefinerBuilder.newBuilder(PropLayer.class)
+                .setSlotGetter(PropLayer::get)
+                .setSlotSetter(PropLayer::set)
+                .setBatchGetter(PropLayer::get)
+                .setObjectGetter(PropLayer::get)
+                .setObjectSetter(PropLayer::set)
+                .setParentGetter(PropLayer::getParent);
+    }
+
+    public PropLayer fork() {
+        return new PropLayer(this);
+    }
+
+    public PropLayer getParent() {
+        return parent;
+    }
+
+    // number of props set or cleared in this layer
+    public int getOverrideCount() {
+        return size;
+    }
+
+    public Object get(int ordinal) {
+        for (PropLayer layer = this; layer != null; layer = layer.parent) {
+            Object value = layer.find(ordinal);
+            if (value != null) {
+                return value != ABSENT ? value : null;
+            }
+        }
+        return null;
+    }
+
+    public void get(String[] names, int[] ordinals, Type[] types, Object[] values) {
+        for (int i = 0; i < ordinals.length; i++) {
+            values[i] = get(ordinals[i]);
+        }
+    }
+
+    public void set(int ordinal, Object value) {
+        if (value == null && get(ordinal) == null) {
+            return;
+        }
+        if ((size + 1) * 2 > keys.length) {
+            rehash(Math.max(MIN_CAPACITY, keys.length * 2));
+        }
+        int index = indexOf(keys, ordinal);
+        if (keys[index] == 0) {
+            keys[index] = ordinal + 1;
+            size++;
+        }
+        values[index] = value != null ? value : ABSENT;
+    }
+
+    public Object get(String name) {
+        for (PropLayer layer = this; layer != null; layer = layer.parent) {
+            Object value = layer.namedValues != null ? layer.namedValues.get(name) : null;
+            if (value != null) {
+                return value != ABSENT ? value : null;
+            }
+        }
+        return null;
+    }
+
+    public void set(String name, Object value) {
+        if (value == null && get(name) == null) {
+            return;
+        }
+        if (namedValues == null) {
+            namedValues = new HashMap<>();
+        }
+        namedValues.put(name, value != null ? value : ABSENT);
+    }
+
+    // the value recorded in this layer, ABSENT if cleared here, null if not recorded
+    private Object find(int ordinal) {
+        int[] keys = this.keys;
+        if (keys.length == 0) {
+            return null;
+        }
+        int index = indexOf(keys, ordinal);
+        return keys[index] != 0 ? values[index] : null;
+    }
+
+    // the slot holding ordinal or the free slot it goes to, ordinals are dense so they are their own hash
+    private static int indexOf(int[] keys, int ordinal) {
+        int mask = keys.length - 1;
+        int index = ordinal & mask;
+        while (keys[index] != 0 && keys[index] != ordinal + 1) {
+            index = (index + 1) & mask;
+        }
+        return index;
+    }
+
+    private void rehash(int capacity) {
+        int[] oldKeys = keys;
+        Object[] oldValues = values;
+        keys = new int[capacity];
+        values = new Object[capacity];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int index = indexOf(keys, oldKeys[i] - 1);
+                keys[index] = oldKeys[i];
+                values[index] = oldValues[i];
+            }
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package com.yahoo.props;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Opt-in counters of the props of the definers it is set on, see {@link PropDefinerBuilder#setMetrics}. Counting
+ * costs a few striped, lock-free additions per access; definers without metrics don't pay anything.
+ */
+public class PropMetrics implements PropMetricsMXBean {
+    private final List<PropCounters> counters = new CopyOnWriteArrayList<>();
+
+    PropCounters register(String name) {
+        PropCounters propCounters = new PropCounters(name);
+        counters.add(propCounters);
+        return propCounters;
+    }
+
+    public List<Snapshot> snapshot() {
+        List<Snapshot> snapshots = new ArrayList<>(counters.size());
+        for (PropCounters propCounters : counters) {
+            snapshots.add(new Snapshot(propCounters));
+        }
+        return snapshots;
+    }
+
+    @Override
+    public List<Snapshot> getProps() {
+        return snapshot();
+    }
+
+    public ObjectName registerMBean(String objectName) {
+
+        requireNonNull(objectName, nonNullMessage("objectName"));
+
+        try {
+            ObjectName name = new ObjectName(objectName);
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+            return name;
+        } catch (JMException e) {
+            throw new IllegalStateException("Failed to register " + objectName, e);
+        }
+    }
+
+    public static final class Snapshot {
+        private final String name;
+        private final long   gets;
+        private final long   sets;
+        private final long   initializations;
+        private final long   resets;
+        private final long   substitutions;
+        private final long   initNanos;
+        private final long[] initLatencies = new long[PropCounters.LATENCY_BUCKETS];
+
+        private Snapshot(PropCounters counters) {
+            this.name = counters.name;
+            this.gets = counters.gets.sum();
+            this.sets = counters.sets.sum();
+            this.initializations = counters.initializations.sum();
+            this.resets = counters.resets.sum();
+            this.substitutions = counters.substitutions.sum();
+            this.initNanos = counters.initNanos.sum();
+            for (int i = 0; i < initLatencies.length; i++) {
+                initLatencies[i] = counters.initLatencies[i].sum();
+            }
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getGets() {
+            return gets;
+        }
+
+        public long getSets() {
+            return sets;
+        }
+
+        public long getInitializations() {
+            return initializations;
+        }
+
+        public long getResets() {
+            return resets;
+        }
+
+        // gets that returned substIfNull for want of a value and an initializer
+        public long getSubstitutions() {
+            return substitutions;
+        }
+
+        public long getInitNanosTotal() {
+            return initNanos;
+        }
+
+        public long getInitNanosMedian() {
+            return getInitNanosPercentile(50);
+        }
+
+        public long getInitNanosP99() {
+            return getInitNanosPercentile(99);
+        }
+
+        // upper bound of the power-of-two bucket the percentile falls in, 0 without initializations
+        public long getInitNanosPercentile(double percentile) {
+            long count = 0;
+            for (long bucketCount : initLatencies) {
+                count += bucketCount;
+            }
+            long rank = (long) Math.ceil(count * percentile / 100);
+            long seen = 0;
+            for (int i = 0; i < initLatencies.length; i++) {
+                seen += initLatencies[i];
+                if (seen >= rank && seen > 0) {
+                    return i == 0 ? 0 : (1L << i) - 1;
+                }
+            }
+            return 0;
+        }
+
+        @Override
+        public String toString() {
+            return name + "{gets=" + gets + ", sets=" + sets + ", initializations=" + initializations
+                    + ", resets=" + resets + ", substitutions=" + substitutions
+                    + ", initNanosMedian=" + getInitNanosMedian() + ", initNanosP99=" + getInitNanosP99() + "}";
+        }
+    }
+}
@@ -0,0 +1,7 @@
+package com.yahoo.props;
+
+import java.util.List;
+
+public interface PropMetricsMXBean {
+    List<PropMetrics.Snapshot> getProps();
+}
@@ -0,0 +1,64 @@
+package com.yahoo.props;
+
+import java.util.List;
+
+/**
+ * Immutable view of the values a {@link PropGroup} read from one context. Values are decoded once, as
+ * {@link Prop#getFrom(Object)} returns them, and can then be read from any thread without locks.
+ */
+public final class PropSnapshot<CONTEXT> {
+    private final PropGroup<CONTEXT> group;
+    private final Object[]           values;
+
+    PropSnapshot(PropGroup<CONTEXT> group, Object[] values) {
+        this.group = group;
+        this.values = values;
+    }
+
+    public List<Prop<CONTEXT, ?>> getProps() {
+        return group.getProps();
+    }
+
+    public boolean contains(Prop<CONTEXT, ?> prop) {
+        return group.indexOf(prop) >= 0;
+    }
+
+    public <TYPE> TYPE get(Prop<CONTEXT, TYPE> prop) {
+        return group.get(values, prop);
+    }
+
+    public <TYPE> TYPE get(Prop<CONTEXT, TYPE> prop, TYPE substIfNull) {
+        TYPE value = group.get(values, prop);
+        return value != null ? value : substIfNull;
+    }
+
+    public int getInt(IntProp<CONTEXT> prop, int substIfNull) {
+        Integer value = group.get(values, prop);
+        return value != null ? value : substIfNull;
+    }
+
+    public long getLong(LongProp<CONTEXT> prop, long substIfNull) {
+        Long value = group.get(values, prop);
+        return value != null ? value : substIfNull;
+    }
+
+    public double getDouble(DoubleProp<CONTEXT> prop, double substIfNull) {
+        Double value = group.get(values, prop);
+        return value != null ? value : substIfNull;
+    }
+
+    public boolean getBoolean(BooleanProp<CONTEXT> prop, boolean substIfNull) {
+        Boolean value = group.get(values, prop);
+        return value != null ? value : substIfNull;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder("PropSnapshot{");
+        List<Prop<CONTEXT, ?>> props = group.getProps();
+        for (int i = 0; i < props.size(); i++) {
+            builder.append(i == 0 ? "" : ", ").append(props.get(i).getName()).append('=').append(values[i]);
+        }
+        return builder.append('}').toString();
+    }
+}
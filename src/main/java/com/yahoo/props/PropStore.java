@@ -0,0 +1,207 @@
+package com.yahoo.props;
+
+import com.yahoo.props.PropDefinerBuilder.PrimitiveSlotAccess;
+
+import java.lang.reflect.Type;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Array-backed context for props of a single definer built by {@link #newDefinerBuilder()}: each prop owns the
+ * slot at its ordinal. Primitive props keep their values unboxed. Named entries (e.g. reset dependency state) are
+ * kept aside. Not thread-safe.
+ */
+public class PropStore {
+    private static final Object[] EMPTY_SLOTS = {};
+
+    private static final PrimitiveSlotAccess<PropStore> PRIMITIVE_SLOT_ACCESS = new PrimitiveSlotAccess<PropStore>() {
+        @Override
+        public int getInt(PropStore store, int ordinal, int substIfAbsent) {
+            return store.getInt(ordinal, substIfAbsent);
+        }
+
+        @Override
+        public void setInt(PropStore store, int ordinal, int value) {
+            store.setInt(ordinal, value);
+        }
+
+        @Override
+        public long getLong(PropStore store, int ordinal, long substIfAbsent) {
+            return store.getLong(ordinal, substIfAbsent);
+        }
+
+        @Override
+        public void setLong(PropStore store, int ordinal, long value) {
+            store.setLong(ordinal, value);
+        }
+
+        @Override
+        public double getDouble(PropStore store, int ordinal, double substIfAbsent) {
+            return store.getDouble(ordinal, substIfAbsent);
+        }
+
+        @Override
+        public void setDouble(PropStore store, int ordinal, double value) {
+            store.setDouble(ordinal, value);
+        }
+
+        @Override
+        public boolean getBoolean(PropStore store, int ordinal, boolean substIfAbsent) {
+            return store.getBoolean(ordinal, substIfAbsent);
+        }
+
+        @Override
+        public void setBoolean(PropStore store, int ordinal, boolean value) {
+            store.setBoolean(ordinal, value);
+        }
+    };
+
+    // marks a slot whose value lives unboxed in primitives
+    private enum Primitive {
+        INT, LONG, DOUBLE, BOOLEAN
+    }
+
+    private Object[]            slots;
+    private long[]              primitives;
+    private Map<String, Object> namedValues;
+
+    public PropStore() {
+        this.slots = EMPTY_SLOTS;
+    }
+
+    public PropStore(int capacity) {
+        this.slots = new Object[capacity];
+    }
+
+    public static PropDefinerBuilder<PropStore> newDefinerBuilder() {
+        return PropDefinerBuilder.newBuilder(PropStore.class)
+                .setSlotGetter(PropStore::get)
+                .setSlotSetter(PropStore::set)
+                .setPrimitiveSlotAccess(PRIMITIVE_SLOT_ACCESS)
+                .setBatchGetter(PropStore::get)
+                .setObjectGetter(PropStore::get)
+                .setObjectSetter(PropStore::set);
+    }
+
+    public Object get(int ordinal) {
+        Object[] slots = this.slots;
+        if (ordinal >= slots.length) {
+            return null;
+        }
+        Object value = slots[ordinal];
+        if (value instanceof Primitive) {
+            long bits = primitives[ordinal];
+            switch ((Primitive) value) {
+            case INT:
+                return (int) bits;
+            case LONG:
+                return bits;
+            case DOUBLE:
+                return Double.longBitsToDouble(bits);
+            default:
+                return bits != 0;
+            }
+        }
+        return value;
+    }
+
+    public void get(String[] names, int[] ordinals, Type[] types, Object[] values) {
+        for (int i = 0; i < ordinals.length; i++) {
+            values[i] = get(ordinals[i]);
+        }
+    }
+
+    public void set(int ordinal, Object value) {
+        if (ordinal >= slots.length) {
+            if (value == null) {
+                return;
+            }
+            grow(ordinal);
+        }
+        slots[ordinal] = value;
+    }
+
+    public int getInt(int ordinal, int substIfAbsent) {
+        Object value = ordinal < slots.length ? slots[ordinal] : null;
+        if (value == Primitive.INT) {
+            return (int) primitives[ordinal];
+        }
+        return value != null ? ((Number) get(ordinal)).intValue() : substIfAbsent;
+    }
+
+    public void setInt(int ordinal, int value) {
+        setPrimitive(ordinal, Primitive.INT, value);
+    }
+
+    public long getLong(int ordinal, long substIfAbsent) {
+        Object value = ordinal < slots.length ? slots[ordinal] : null;
+        if (value == Primitive.LONG) {
+            return primitives[ordinal];
+        }
+        return value != null ? ((Number) get(ordinal)).longValue() : substIfAbsent;
+    }
+
+    public void setLong(int ordinal, long value) {
+        setPrimitive(ordinal, Primitive.LONG, value);
+    }
+
+    public double getDouble(int ordinal, double substIfAbsent) {
+        Object value = ordinal < slots.length ? slots[ordinal] : null;
+        if (value == Primitive.DOUBLE) {
+            return Double.longBitsToDouble(primitives[ordinal]);
+        }
+        return value != null ? ((Number) get(ordinal)).doubleValue() : substIfAbsent;
+    }
+
+    public void setDouble(int ordinal, double value) {
+        setPrimitive(ordinal, Primitive.DOUBLE, Double.doubleToRawLongBits(value));
+    }
+
+    public boolean getBoolean(int ordinal, boolean substIfAbsent) {
+        Object value = ordinal < slots.length ? slots[ordinal] : null;
+        if (value == Primitive.BOOLEAN) {
+            return primitives[ordinal] != 0;
+        }
+        return value != null ? (Boolean) value : substIfAbsent;
+    }
+
+    public void setBoolean(int ordinal, boolean value) {
+        setPrimitive(ordinal, Primitive.BOOLEAN, value ? 1 : 0);
+    }
+
+    public Object get(String name) {
+        return namedValues != null ? namedValues.get(name) : null;
+    }
+
+    public void set(String name, Object value) {
+        if (value == null) {
+            if (namedValues != null) {
+                namedValues.remove(name);
+            }
+        } else {
+            if (namedValues == null) {
+                namedValues = new HashMap<>();
+            }
+            namedValues.put(name, value);
+        }
+    }
+
+    private void setPrimitive(int ordinal, Primitive primitive, long bits) {
+        if (ordinal >= slots.length) {
+            grow(ordinal);
+        }
+        if (primitives == null) {
+            primitives = new long[slots.length];
+        }
+        slots[ordinal] = primitive;
+        primitives[ordinal] = bits;
+    }
+
+    private void grow(int ordinal) {
+        slots = Arrays.copyOf(slots, Math.max(ordinal + 1, slots.length * 2));
+        if (primitives != null) {
+            primitives = Arrays.copyOf(primitives, slots.length);
+        }
+    }
+}
@@ -0,0 +1,595 @@
+package com.yahoo.props;
+
+import com.yahoo.props.PropDefinerBuilder.PrimitiveSlotAccess;
+
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Off-heap storage for many long-lived contexts of props of a definer built by {@link #newDefinerBuilder()}. Each
+ * context is a {@link Row} of a direct buffer with a fixed-width column per int, long, double, boolean, enum and
+ * small {@link EnumMask} prop defined before the table was created, and strings go to a separate UTF-8 region that
+ * is compacted as overwritten and freed strings accumulate. Other props, and props defined after the table, are kept
+ * on-heap in the row handle, so a row costs one small object plus its off-heap bytes.
+ * <p>
+ * Rows are allocated with {@link #allocate()} and returned with {@link #free(Row)}, after which the handle throws
+ * {@link IllegalStateException} and its row is reused by a later allocation. Not thread-safe.
+ */
+public final class PropTable {
+    private static final int DEFAULT_ROWS = 1024;
+    // the string region grows by doubling from at most this size
+    private static final int INITIAL_STRING_BYTES = 1 << 20;
+    // string regions below this size are grown rather than compacted
+    private static final int MIN_COMPACTION_BYTES = 64 * 1024;
+
+    private static final PrimitiveSlotAccess<Row> PRIMITIVE_SLOT_ACCESS = new PrimitiveSlotAccess<Row>() {
+        @Override
+        public int getInt(Row row, int ordinal, int substIfAbsent) {
+            return row.table.getInt(row, ordinal, substIfAbsent);
+        }
+
+        @Override
+        public void setInt(Row row, int ordinal, int value) {
+            row.table.setInt(row, ordinal, value);
+        }
+
+        @Override
+        public long getLong(Row row, int ordinal, long substIfAbsent) {
+            return row.table.getLong(row, ordinal, substIfAbsent);
+        }
+
+        @Override
+        public void setLong(Row row, int ordinal, long value) {
+            row.table.setLong(row, ordinal, value);
+        }
+
+        @Override
+        public double getDouble(Row row, int ordinal, double substIfAbsent) {
+            return row.table.getDouble(row, ordinal, substIfAbsent);
+        }
+
+        @Override
+        public void setDouble(Row row, int ordinal, double value) {
+            row.table.setDouble(row, ordinal, value);
+        }
+
+        @Override
+        public boolean getBoolean(Row row, int ordinal, boolean substIfAbsent) {
+            return row.table.getBoolean(row, ordinal, substIfAbsent);
+        }
+
+        @Override
+        public void setBoolean(Row row, int ordinal, boolean value) {
+            row.table.setBoolean(row, ordinal, value);
+        }
+    };
+
+    private enum Kind {
+        INT(4), LONG(8), DOUBLE(8), BOOLEAN(1), ENUM(4), ENUM_MASK(8), STRING(8);
+
+        private final int width;
+
+        Kind(int width) {
+            this.width = width;
+        }
+    }
+
+    // by ordinal, null for props kept on-heap
+    private final Kind[]     kinds;
+    // column offsets within a row, the row starts with a presence bit per ordinal
+    private final int[]      offsets;
+    private final Object[][] enumConstants;
+    private final Class<?>[] maskTypes;
+    private final int[]      stringOrdinals;
+    private final int        stride;
+    private ByteBuffer       rows;
+    private int              capacity;
+    // rows ever allocated, the free ones below are listed in freeRows
+    private int              rowCount;
+    private int[]            freeRows = new int[16];
+    private int              freeCount;
+    // by row, incremented by free so that stale handles are detected
+    private int[]            generations;
+    private boolean[]        live;
+    private ByteBuffer       strings;
+    private int              stringTop;
+    // bytes below stringTop no longer referenced by any row
+    private int              garbage;
+
+    public PropTable(PropDefiner<Row> definer) {
+        this(definer, DEFAULT_ROWS);
+    }
+
+    // the columns are those of the props defined so far
+    public PropTable(PropDefiner<Row> definer, int initialRows) {
+
+        requireNonNull(definer, nonNullMessage("definer"));
+        if (initialRows < 1) {
+            throw new IllegalArgumentException("initialRows must be positive");
+        }
+
+        List<Prop<Row, ?>> props = definer.getProps();
+        this.kinds = new Kind[props.size()];
+        this.offsets = new int[props.size()];
+        this.enumConstants = new Object[props.size()][];
+        this.maskTypes = new Class<?>[props.size()];
+        int stringCount = 0;
+        for (Prop<Row, ?> prop : props) {
+            if (!(prop instanceof PropImpl)) {
+                // type unknown, kept on-heap
+                continue;
+            }
+            int ordinal = prop.getOrdinal();
+            Type type = ((PropImpl<Row, ?>) prop).getType();
+            kinds[ordinal] = kindOf(type);
+            if (kinds[ordinal] == Kind.ENUM) {
+                enumConstants[ordinal] = ((Class<?>) type).getEnumConstants();
+            } else if (kinds[ordinal] == Kind.ENUM_MASK) {
+                maskTypes[ordinal] = (Class<?>) ((ParameterizedType) type).getActualTypeArguments()[0];
+            } else if (kinds[ordinal] == Kind.STRING) {
+                stringCount++;
+            }
+        }
+        this.stringOrdinals = new int[stringCount];
+        // presence bits padded to 8 bytes and columns widest first, so that 8-byte columns stay aligned in rows of
+        // a stride multiple of 8
+        int offset = ((kinds.length + 63) >>> 6) << 3;
+        for (int width = 8; width > 0; width >>>= 1) {
+            for (int ordinal = 0; ordinal < kinds.length; ordinal++) {
+                if (kinds[ordinal] != null && kinds[ordinal].width == width) {
+                    offsets[ordinal] = offset;
+                    offset += width;
+                }
+            }
+        }
+        for (int ordinal = 0, i = 0; ordinal < kinds.length; ordinal++) {
+            if (kinds[ordinal] == Kind.STRING) {
+                stringOrdinals[i++] = ordinal;
+            }
+        }
+        this.stride = Math.max(8, (offset + 7) & ~7);
+        this.capacity = Math.min(initialRows, Integer.MAX_VALUE / stride);
+        this.rows = ByteBuffer.allocateDirect(capacity * stride);
+        this.generations = new int[capacity];
+        this.live = new boolean[capacity];
+        this.strings = ByteBuffer.allocateDirect((int) Math.min(INITIAL_STRING_BYTES, 16L * stringCount * capacity));
+    }
+
+    public static PropDefinerBuilder<Row> newDefinerBuilder() {
+        return PropDefinerBuilder.newBuilder(Row.class)
+                .setSlotGetter((row, ordinal) -> row.table.get(row, ordinal))
+                .setSlotSetter((row, ordinal, value) -> row.table.set(row, ordinal, value))
+                .setPrimitiveSlotAccess(PRIMITIVE_SLOT_ACCESS)
+                .setBatchGetter((row, names, ordinals, types, values) -> {
+                    for (int i = 0; i < ordinals.length; i++) {
+                        values[i] = row.table.get(row, ordinals[i]);
+                    }
+                })
+                .setObjectGetter(Row::get)
+                .setObjectSetter(Row::set);
+    }
+
+    private static Kind kindOf(Type type) {
+        if (type == Integer.class) {
+            return Kind.INT;
+        } else if (type == Long.class) {
+            return Kind.LONG;
+        } else if (type == Double.class) {
+            return Kind.DOUBLE;
+        } else if (type == Boolean.class) {
+            return Kind.BOOLEAN;
+        } else if (type == String.class) {
+            return Kind.STRING;
+        } else if (type instanceof Class && ((Class<?>) type).isEnum()) {
+            return Kind.ENUM;
+        } else if (TypeFilter.ENUM_MASK.test(type)) {
+            Type elementType = ((ParameterizedType) type).getActualTypeArguments()[0];
+            if (elementType instanceof Class && ((Class<?>) elementType).getEnumConstants().length <= 64) {
+                return Kind.ENUM_MASK;
+            }
+        }
+        return null;
+    }
+
+    public Row allocate() {
+        int index;
+        if (freeCount > 0) {
+            index = freeRows[--freeCount];
+        } else {
+            if (rowCount == capacity) {
+                grow();
+            }
+            index = rowCount++;
+        }
+        int base = index * stride;
+        for (int at = base; at < base + stride; at += 8) {
+            rows.putLong(at, 0);
+        }
+        live[index] = true;
+        return new Row(this, index, generations[index]);
+    }
+
+    public void free(Row row) {
+
+        requireNonNull(row, nonNullMessage("row"));
+        if (row.table != this) {
+            throw new IllegalArgumentException("Row of another table");
+        }
+
+        int base = baseOf(row);
+        for (int ordinal : stringOrdinals) {
+            if (isPresent(base, ordinal)) {
+                garbage += rows.getInt(base + offsets[ordinal] + 4);
+            }
+        }
+        live[row.index] = false;
+        generations[row.index]++;
+        if (freeCount == freeRows.length) {
+            freeRows = Arrays.copyOf(freeRows, freeCount * 2);
+        }
+        freeRows[freeCount++] = row.index;
+        row.heapValues = null;
+        row.namedValues = null;
+    }
+
+    // rows allocated and not freed
+    public int size() {
+        return rowCount - freeCount;
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    // bytes of the row and string regions, used or not
+    public long getOffHeapBytes() {
+        return (long) rows.capacity() + strings.capacity();
+    }
+
+    // off-heap bytes per row, not counting its strings
+    public int getRowBytes() {
+        return stride;
+    }
+
+    Object get(Row row, int ordinal) {
+        int base = baseOf(row);
+        Kind kind = ordinal < kinds.length ? kinds[ordinal] : null;
+        if (kind == null) {
+            return row.getHeapValue(ordinal);
+        }
+        if (!isPresent(base, ordinal)) {
+            return null;
+        }
+        int at = base + offsets[ordinal];
+        switch (kind) {
+        case INT:
+            return rows.getInt(at);
+        case LONG:
+            return rows.getLong(at);
+        case DOUBLE:
+            return rows.getDouble(at);
+        case BOOLEAN:
+            return rows.get(at) != 0;
+        case ENUM:
+            return enumConstants[ordinal][rows.getInt(at)];
+        case ENUM_MASK:
+            return ofBits(maskTypes[ordinal], rows.getLong(at));
+        default:
+            return readString(rows.getInt(at), rows.getInt(at + 4));
+        }
+    }
+
+    void set(Row row, int ordinal, Object value) {
+        int base = baseOf(row);
+        Kind kind = ordinal < kinds.length ? kinds[ordinal] : null;
+        if (kind == null) {
+            row.setHeapValue(ordinal, value);
+            return;
+        }
+        int at = base + offsets[ordinal];
+        if (kind == Kind.STRING) {
+            writeString(base, ordinal, at, (String) value);
+            return;
+        }
+        if (value == null) {
+            setPresent(base, ordinal, false);
+            return;
+        }
+        switch (kind) {
+        case INT:
+            rows.putInt(at, (Integer) value);
+            break;
+        case LONG:
+            rows.putLong(at, (Long) value);
+            break;
+        case DOUBLE:
+            rows.putDouble(at, (Double) value);
+            break;
+        case BOOLEAN:
+            rows.put(at, (Boolean) value ? (byte) 1 : 0);
+            break;
+        case ENUM:
+            rows.putInt(at, ((Enum<?>) value).ordinal());
+            break;
+        default:
+            rows.putLong(at, ((EnumMask<?>) value).bits());
+            break;
+        }
+        setPresent(base, ordinal, true);
+    }
+
+    int getInt(Row row, int ordinal, int substIfAbsent) {
+        if (ordinal < kinds.length && kinds[ordinal] == Kind.INT) {
+            int base = baseOf(row);
+            return isPresent(base, ordinal) ? rows.getInt(base + offsets[ordinal]) : substIfAbsent;
+        }
+        Object value = get(row, ordinal);
+        return value != null ? ((Number) value).intValue() : substIfAbsent;
+    }
+
+    void setInt(Row row, int ordinal, int value) {
+        if (ordinal < kinds.length && kinds[ordinal] == Kind.INT) {
+            int base = baseOf(row);
+            rows.putInt(base + offsets[ordinal], value);
+            setPresent(base, ordinal, true);
+        } else {
+            set(row, ordinal, value);
+        }
+    }
+
+    long getLong(Row row, int ordinal, long substIfAbsent) {
+        if (ordinal < kinds.length && kinds[ordinal] == Kind.LONG) {
+            int base = baseOf(row);
+            return isPresent(base, ordinal) ? rows.getLong(base + offsets[ordinal]) : substIfAbsent;
+        }
+        Object value = get(row, ordinal);
+        return value != null ? ((Number) value).longValue() : substIfAbsent;
+    }
+
+    void setLong(Row row, int ordinal, long value) {
+        if (ordinal < kinds.length && kinds[ordinal] == Kind.LONG) {
+            int base = baseOf(row);
+            rows.putLong(base + offsets[ordinal], value);
+            setPresent(base, ordinal, true);
+        } else {
+            set(row, ordinal, value);
+        }
+    }
+
+    double getDouble(Row row, int ordinal, double substIfAbsent) {
+        if (ordinal < kinds.length && kinds[ordinal] == Kind.DOUBLE) {
+            int base = baseOf(row);
+            return isPresent(base, ordinal) ? rows.getDouble(base + offsets[ordinal]) : substIfAbsent;
+        }
+        Object value = get(row, ordinal);
+        return value != null ? ((Number) value).doubleValue() : substIfAbsent;
+    }
+
+    void setDouble(Row row, int ordinal, double value) {
+        if (ordinal < kinds.length && kinds[ordinal] == Kind.DOUBLE) {
+            int base = baseOf(row);
+            rows.putDouble(base + offsets[ordinal], value);
+            setPresent(base, ordinal, true);
+        } else {
+            set(row, ordinal, value);
+        }
+    }
+
+    boolean getBoolean(Row row, int ordinal, boolean substIfAbsent) {
+        if (ordinal < kinds.length && kinds[ordinal] == Kind.BOOLEAN) {
+            int base = baseOf(row);
+            return isPresent(base, ordinal) ? rows.get(base + offsets[ordinal]) != 0 : substIfAbsent;
+        }
+        Object value = get(row, ordinal);
+        return value != null ? (Boolean) value : substIfAbsent;
+    }
+
+    void setBoolean(Row row, int ordinal, boolean value) {
+        if (ordinal < kinds.length && kinds[ordinal] == Kind.BOOLEAN) {
+            int base = baseOf(row);
+            rows.put(base + offsets[ordinal], value ? (byte) 1 : 0);
+            setPresent(base, ordinal, true);
+        } else {
+            set(row, ordinal, value);
+        }
+    }
+
+    private int baseOf(Row row) {
+        if (generations[row.index] != row.generation) {
+            throw new IllegalStateException("Row already freed");
+        }
+        return row.index * stride;
+    }
+
+    private boolean isPresent(int base, int ordinal) {
+        return (rows.get(base + (ordinal >>> 3)) & (1 << (ordinal & 7))) != 0;
+    }
+
+    private void setPresent(int base, int ordinal, boolean present) {
+        int at = base + (ordinal >>> 3);
+        int bits = rows.get(at);
+        rows.put(at, (byte) (present ? bits | 1 << (ordinal & 7) : bits & ~(1 << (ordinal & 7))));
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static EnumMask<?> ofBits(Class<?> type, long bits) {
+        return EnumMask.ofBits((Class) type, bits);
+    }
+
+    private String readString(int offset, int length) {
+        byte[] bytes = new byte[length];
+        ByteBuffer view = strings.duplicate();
+        view.position(offset);
+        view.get(bytes);
+        return new String(bytes, UTF_8);
+    }
+
+    // the column holds the offset and length of the string's bytes
+    private void writeString(int base, int ordinal, int at, String value) {
+        boolean present = isPresent(base, ordinal);
+        int oldLength = present ? rows.getInt(at + 4) : 0;
+        if (value == null) {
+            garbage += oldLength;
+            setPresent(base, ordinal, false);
+            return;
+        }
+        byte[] bytes = value.getBytes(UTF_8);
+        if (present && bytes.length <= oldLength) {
+            // overwritten in place, the tail becomes garbage
+            writeBytes(rows.getInt(at), bytes);
+            rows.putInt(at + 4, bytes.length);
+            garbage += oldLength - bytes.length;
+            return;
+        }
+        garbage += oldLength;
+        // absent while reserving, so that compaction doesn't move the old bytes
+        setPresent(base, ordinal, false);
+        int offset = reserveString(bytes.length);
+        writeBytes(offset, bytes);
+        rows.putInt(at, offset);
+        rows.putInt(at + 4, bytes.length);
+        setPresent(base, ordinal, true);
+    }
+
+    private void writeBytes(int offset, byte[] bytes) {
+        ByteBuffer view = strings.duplicate();
+        view.position(offset);
+        view.put(bytes);
+    }
+
+    private int reserveString(int length) {
+        if (length > strings.capacity() - stringTop) {
+            if (stringTop >= MIN_COMPACTION_BYTES && garbage >= stringTop / 2) {
+                compactStrings(strings.capacity());
+            }
+            if (length > strings.capacity() - stringTop) {
+                long needed = (long) stringTop + length;
+                if (needed > Integer.MAX_VALUE) {
+                    throw new IllegalStateException("PropTable string region full");
+                }
+                compactStrings((int) Math.min(Integer.MAX_VALUE, Math.max(needed, 2L * strings.capacity())));
+            }
+        }
+        int offset = stringTop;
+        stringTop += length;
+        return offset;
+    }
+
+    // copies the strings of live rows into a region of the given capacity, dropping the garbage
+    private void compactStrings(int newCapacity) {
+        ByteBuffer compacted = ByteBuffer.allocateDirect(newCapacity);
+        int top = 0;
+        for (int index = 0; index < rowCount; index++) {
+            if (!live[index]) {
+                continue;
+            }
+            int base = index * stride;
+            for (int ordinal : stringOrdinals) {
+                if (isPresent(base, ordinal)) {
+                    int at = base + offsets[ordinal];
+                    int offset = rows.getInt(at);
+                    int length = rows.getInt(at + 4);
+                    ByteBuffer source = strings.duplicate();
+                    source.limit(offset + length).position(offset);
+                    compacted.position(top);
+                    compacted.put(source);
+                    rows.putInt(at, top);
+                    top += length;
+                }
+            }
+        }
+        strings = compacted;
+        stringTop = top;
+        garbage = 0;
+    }
+
+    private void grow() {
+        int maxRows = Integer.MAX_VALUE / stride;
+        if (capacity == maxRows) {
+            throw new IllegalStateException("PropTable full at " + capacity + " rows");
+        }
+        int newCapacity = (int) Math.min(maxRows, 2L * capacity);
+        ByteBuffer grown = ByteBuffer.allocateDirect(newCapacity * stride);
+        ByteBuffer source = rows.duplicate();
+        source.clear();
+        grown.put(source);
+        grown.clear();
+        rows = grown;
+        generations = Arrays.copyOf(generations, newCapacity);
+        live = Arrays.copyOf(live, newCapacity);
+        capacity = newCapacity;
+    }
+
+    /**
+     * Handle of a row of a {@link PropTable}, the context of its props. Props without a column are kept in the
+     * handle.
+     */
+    public static final class Row {
+        private final PropTable     table;
+        private final int           index;
+        private final int           generation;
+        private Object[]            heapValues;
+        private Map<String, Object> namedValues;
+
+        private Row(PropTable table, int index, int generation) {
+            this.table = table;
+            this.index = index;
+            this.generation = generation;
+        }
+
+        public PropTable getTable() {
+            return table;
+        }
+
+        public int getIndex() {
+            return index;
+        }
+
+        public boolean isFreed() {
+            return table.generations[index] != generation;
+        }
+
+        public Object get(String name) {
+            table.baseOf(this);
+            return namedValues != null ? namedValues.get(name) : null;
+        }
+
+        public void set(String name, Object value) {
+            table.baseOf(this);
+            if (value == null) {
+                if (namedValues != null) {
+                    namedValues.remove(name);
+                }
+            } else {
+                if (namedValues == null) {
+                    namedValues = new HashMap<>();
+                }
+                namedValues.put(name, value);
+            }
+        }
+
+        private Object getHeapValue(int ordinal) {
+            return heapValues != null && ordinal < heapValues.length ? heapValues[ordinal] : null;
+        }
+
+        private void setHeapValue(int ordinal, Object value) {
+            if (heapValues == null || ordinal >= heapValues.length) {
+                if (value == null) {
+                    return;
+                }
+                int length = heapValues == null ? ordinal + 1 : Math.max(ordinal + 1, heapValues.length * 2);
+                heapValues = heapValues == null ? new Object[length] : Arrays.copyOf(heapValues, length);
+            }
+            heapValues[ordinal] = value;
+        }
+    }
+}
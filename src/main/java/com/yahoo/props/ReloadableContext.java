@@ -0,0 +1,69 @@
+package com.yahoo.props;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static com.yahoo.props.Utils.nonNullMessage;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Holds the current version of a context, e.g. a config, and swaps in reloaded versions atomically. Before a new
+ * version is published, derived props (those with reset dependencies) carry their values over from the current
+ * version when their dependencies read equal values in both; only the others are recomputed, lazily on first read.
+ * Readers see either the old or the completely prepared new version, never a mix.
+ * <p>
+ * Reloads are serialized. The new version must not be shared until it is passed to {@link #reload(Object)}.
+ */
+public final class ReloadableContext<CONTEXT> {
+    private final PropDefinerImpl<CONTEXT> definer;
+    private volatile CONTEXT               current;
+
+    ReloadableContext(PropDefinerImpl<CONTEXT> definer, CONTEXT initial) {
+        this.definer = definer;
+        this.current = initial;
+    }
+
+    public CONTEXT get() {
+        return current;
+    }
+
+    // returns the derived props that had a value in the previous version and are recomputed in the new one
+    public synchronized List<Prop<CONTEXT, ?>> reload(CONTEXT next) {
+
+        requireNonNull(next, nonNullMessage("next"));
+
+        CONTEXT previous = current;
+        List<Prop<CONTEXT, ?>> invalidated = new ArrayList<>();
+        List<PropImpl<CONTEXT, ?>> carried = new ArrayList<>();
+        // upstream derived props are carried over before their downstream ones compare dependencies
+        for (PropImpl<CONTEXT, ?> prop : definer.getPropsInDependencyOrder()) {
+            if (prop.hasDependencies() && !carryOver(prop, previous, next, carried)) {
+                invalidated.add(prop);
+            }
+        }
+        current = next;
+        // listeners run once the version is published, so that they may read it through get()
+        for (PropImpl<CONTEXT, ?> prop : carried) {
+            prop.fireCarriedOver(next);
+        }
+        return Collections.unmodifiableList(invalidated);
+    }
+
+    // false if the prop has a value to carry over which doesn't hold in the next version
+    private static <CONTEXT, TYPE> boolean carryOver(PropImpl<CONTEXT, TYPE> prop, CONTEXT previous, CONTEXT next,
+                                                     List<PropImpl<CONTEXT, ?>> carried) {
+        TYPE value = prop.callTypeGetter(previous);
+        if (value == null || prop.callTypeGetter(next) != null) {
+            // nothing derived yet, or the next version brings its own value
+            return true;
+        }
+        if (prop.isUninitializedWithoutInitializing(previous, value) || !prop.hasSameDependencies(previous, next)) {
+            return false;
+        }
+        // also stamps the dependencies as seen in the next version, without notifying before it's published
+        prop.storeValue(next, value);
+        carried.add(prop);
+        return true;
+    }
+}
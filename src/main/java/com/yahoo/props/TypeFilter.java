@@ -5,6 +5,7 @@ import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
 import java.lang.reflect.TypeVariable;
 import java.lang.reflect.WildcardType;
+import java.util.EnumSet;
 import java.util.function.Predicate;
 
 public interface TypeFilter extends Predicate<Type> {
@@ -13,4 +14,10 @@ public interface TypeFilter extends Predicate<Type> {
     TypeFilter GENERIC_ARRAY = type -> type instanceof GenericArrayType;
     TypeFilter WILDCARD      = type -> type instanceof WildcardType;
     TypeFilter TYPE_VARIABLE = type -> type instanceof TypeVariable;
+    TypeFilter ENUM_MASK     = type -> isParameterizedOf(type, EnumMask.class);
+    TypeFilter ENUM_SET      = type -> isParameterizedOf(type, EnumSet.class);
+
+    static boolean isParameterizedOf(Type type, Class<?> rawType) {
+        return type instanceof ParameterizedType && ((ParameterizedType) type).getRawType() == rawType;
+    }
 }
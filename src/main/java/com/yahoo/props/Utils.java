@@ -14,12 +14,8 @@ public class Utils {
                 return (TYPE) valueOrName;
             } else {
                 assert (valueOrName instanceof String);
-                String name = (String) valueOrName;
-                for (TYPE value : ((Class<TYPE>) enumType).getEnumConstants()) {
-                    if (name.equalsIgnoreCase(value.toString())) {
-                        return value;
-                    }
-                }
+                // cached lookup table, rather than scanning a copy of the constants per call
+                return Converters.parseEnum((Class<TYPE>) enumType, (String) valueOrName);
             }
         }
         
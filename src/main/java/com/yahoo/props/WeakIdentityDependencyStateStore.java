@@ -0,0 +1,46 @@
+package com.yahoo.props;
+
+import com.google.common.collect.MapMaker;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+class WeakIdentityDependencyStateStore<CONTEXT> implements DependencyStateStore<CONTEXT> {
+    // weak keys are compared by identity
+    private final ConcurrentMap<Object, Map<String, long[]>> stamps = new MapMaker().weakKeys().makeMap();
+
+    @Override
+    public long readStamp(CONTEXT context, String key) {
+        Map<String, long[]> contextStamps = stamps.get(context);
+        if (contextStamps == null) {
+            return NO_STAMP;
+        }
+        long[] stamp = contextStamps.get(key);
+        return stamp == null ? NO_STAMP : stamp[0];
+    }
+
+    @Override
+    public void writeStamp(CONTEXT context, String key, long stamp) {
+        Map<String, long[]> contextStamps = stamps.get(context);
+        if (contextStamps == null) {
+            contextStamps = stamps.computeIfAbsent(context, c -> new ConcurrentHashMap<>());
+        }
+        long[] cell = contextStamps.get(key);
+        if (cell == null) {
+            cell = contextStamps.computeIfAbsent(key, k -> new long[1]);
+        }
+        cell[0] = stamp;
+    }
+
+    @Override
+    public void clearStamp(CONTEXT context, String key) {
+        Map<String, long[]> contextStamps = stamps.get(context);
+        if (contextStamps != null) {
+            long[] cell = contextStamps.get(key);
+            if (cell != null) {
+                cell[0] = NO_STAMP;
+            }
+        }
+    }
+}
@@ -0,0 +1,26 @@
+package com.yahoo.props.annotation;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks an interface whose methods declare props, for the props-processor annotation processor. Each method takes
+ * the context as its only parameter and returns the prop's type; abstract methods declare plain props and default
+ * methods declare props initialized by the method's body. The prop name is the method name unless given by
+ * {@link PropName}.
+ * <p>
+ * The processor generates a final class in the same package which implements the interface by reading the props,
+ * and adds name and index constants, setters and the underlying props. Names must be unique within an interface.
+ */
+@Documented
+@Retention(RetentionPolicy.CLASS)
+@Target(ElementType.TYPE)
+public @interface PropSpec {
+    /**
+     * Simple name of the generated class, the interface's name with "Props" appended by default.
+     */
+    String value() default "";
+}
@@ -0,0 +1,113 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class AccessRecorderTest {
+
+    @Test
+    public void testWarmReadsLearnedHotProps() {
+        AccessRecorder<Properties> recorder = new AccessRecorder<>(props -> props.get("kind"), 1, 2, 10);
+        PropDefiner<Properties> definer = newDefiner(recorder);
+        AtomicInteger priceInits = new AtomicInteger();
+        AtomicInteger stockInits = new AtomicInteger();
+        Prop<Properties, Integer> price = definer.define("price", Integer.class, props -> {
+            priceInits.incrementAndGet();
+            return 10;
+        });
+        Prop<Properties, Integer> stock = definer.define("stock", Integer.class, props -> {
+            stockInits.incrementAndGet();
+            return 5;
+        });
+        Prop<Properties, String> title = definer.define("title", String.class);
+
+        for (int i = 0; i < 20; i++) {
+            Properties book = newContext("book");
+            price.getFrom(book);
+            title.getFrom(book);
+            stock.getFrom(newContext("car"));
+        }
+        assertEquals(recorder.getHotProps("book"), Arrays.asList(price, title));
+        assertEquals(recorder.getHotProps("car"), Collections.singletonList(stock));
+        assertEquals(new ArrayList<>(recorder.dump().get("book").keySet()), Arrays.asList("price", "title"));
+        priceInits.set(0);
+        stockInits.set(0);
+
+        Properties book = newContext("book");
+        recorder.warm(book);
+
+        // initialized up front, warming isn't recorded as reads
+        assertEquals(priceInits.get(), 1);
+        assertEquals(stockInits.get(), 0);
+        assertEquals(book.get("price"), 10);
+        assertEquals(recorder.dump().get("book").get("price").intValue(), 20);
+    }
+
+    @Test
+    public void testProfilesAreBounded() {
+        AccessRecorder<Properties> recorder = new AccessRecorder<>(props -> props.get("kind"), 1, 2, 10);
+        PropDefiner<Properties> definer = newDefiner(recorder);
+        Prop<Properties, String> title = definer.define("title", String.class, props -> "untitled");
+
+        title.getFrom(newContext("book"));
+        title.getFrom(newContext("car"));
+        title.getFrom(newContext("toy"));
+        title.getFrom(newContext("toy"));
+
+        assertEquals(recorder.getProfileCount(), 2);
+        assertEquals(recorder.getDroppedCount(), 2);
+        assertEquals(recorder.dump().keySet().size(), 2);
+        assertTrue(recorder.getHotProps("toy").isEmpty());
+
+        recorder.reset();
+        title.getFrom(newContext("toy"));
+
+        assertEquals(recorder.dump().keySet(), Collections.singleton("toy"));
+    }
+
+    @Test
+    public void testUnlearnedClassIsNotWarmed() {
+        AccessRecorder<Properties> recorder = new AccessRecorder<>(props -> props.get("kind"), 1, 2, 10);
+        PropDefiner<Properties> definer = newDefiner(recorder);
+        Prop<Properties, String> title = definer.define("title", String.class, props -> "untitled");
+        for (int i = 0; i < 9; i++) {
+            title.getFrom(newContext("book"));
+        }
+
+        Properties book = newContext("book");
+        recorder.warm(book);
+
+        // below minSamples
+        assertEquals(book.get("title"), null);
+        assertTrue(recorder.getHotProps("book").isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testOneDefinerPerRecorder() {
+        AccessRecorder<Properties> recorder = new AccessRecorder<>(props -> props.get("kind"));
+        newDefiner(recorder);
+        newDefiner(recorder);
+    }
+
+    private static PropDefiner<Properties> newDefiner(AccessRecorder<Properties> recorder) {
+        return PropDefinerBuilder.newBuilder(Properties.class)
+                .setObjectGetter(Properties::get)
+                .setObjectSetter(Properties::put)
+                .setAccessRecorder(recorder)
+                .build();
+    }
+
+    private static Properties newContext(String kind) {
+        Properties props = new Properties();
+        props.put("kind", kind);
+        return props;
+    }
+}
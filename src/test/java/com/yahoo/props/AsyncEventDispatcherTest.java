@@ -0,0 +1,132 @@
+package com.yahoo.props;
+
+import com.yahoo.props.AsyncEventDispatcher.Event;
+import com.yahoo.props.AsyncEventDispatcher.OverflowPolicy;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class AsyncEventDispatcherTest {
+
+    @Test
+    public void testEventsDeliveredInOrder() throws Exception {
+        List<Event> events = Collections.synchronizedList(new ArrayList<>());
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(16, OverflowPolicy.BLOCK, events::addAll);
+        Prop<PropStore, Integer> prop = PropStore.newDefinerBuilder()
+                .setAfterSetEventHandler(dispatcher.newEventHandler("afterSet"))
+                .build()
+                .define("prop", Integer.class);
+        PropStore store = new PropStore();
+
+        for (int i = 0; i < 1000; i++) {
+            prop.setTo(store, i);
+        }
+        dispatcher.close();
+
+        assertEquals(events.size(), 1000);
+        assertEquals(dispatcher.getDispatchedCount(), 1000);
+        assertEquals(dispatcher.getDroppedCount(), 0);
+        for (int i = 0; i < 1000; i++) {
+            Event event = events.get(i);
+            assertEquals(event.getHook(), "afterSet");
+            assertEquals(event.getName(), "prop");
+            assertEquals(event.getValue(), i);
+            assertEquals(event.getContextId(), System.identityHashCode(store));
+        }
+    }
+
+    @Test
+    public void testDropWhenFull() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4, OverflowPolicy.DROP, batch -> {
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        });
+
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatch(new Event("afterGet", 0, "prop", i));
+        }
+        release.countDown();
+        dispatcher.close();
+
+        assertTrue(dispatcher.getDroppedCount() > 0);
+        assertEquals(dispatcher.getDroppedCount() + dispatcher.getDispatchedCount(), 100);
+    }
+
+    @Test
+    public void testHandlerFailureDoesNotStopDispatching() throws Exception {
+        List<Event> events = Collections.synchronizedList(new ArrayList<>());
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(16, OverflowPolicy.BLOCK, batch -> {
+            events.addAll(batch);
+            throw new IllegalStateException("handler failure");
+        });
+
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatch(new Event("afterGet", 0, "prop", i));
+        }
+        dispatcher.close();
+
+        assertEquals(events.size(), 100);
+        assertEquals(dispatcher.getFailedCount(), 100);
+        assertEquals(dispatcher.getDispatchedCount(), 0);
+    }
+
+    @Test
+    public void testHandlerErrorDoesNotStopDispatching() throws Exception {
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(4, OverflowPolicy.BLOCK, batch -> {
+            throw new AssertionError("handler error");
+        });
+
+        for (int i = 0; i < 100; i++) {
+            dispatcher.dispatch(new Event("afterGet", 0, "prop", i));
+        }
+        dispatcher.close();
+
+        assertEquals(dispatcher.getFailedCount(), 100);
+    }
+
+    @Test
+    public void testEveryEventIsHandledOrDropped() throws Exception {
+        AtomicInteger handled = new AtomicInteger();
+        AsyncEventDispatcher dispatcher = new AsyncEventDispatcher(64, OverflowPolicy.DROP,
+                batch -> handled.addAndGet(batch.size()));
+        CountDownLatch started = new CountDownLatch(4);
+        List<Thread> producers = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            Thread producer = new Thread(() -> {
+                started.countDown();
+                for (int i = 0; i < 10_000; i++) {
+                    dispatcher.dispatch(new Event("afterGet", 0, "prop", i));
+                }
+            });
+            producer.start();
+            producers.add(producer);
+        }
+        started.await();
+
+        // closes while the producers still dispatch
+        dispatcher.close();
+        for (Thread producer : producers) {
+            producer.join();
+        }
+
+        assertEquals(handled.get() + dispatcher.getDroppedCount(), 40_000);
+        assertEquals(dispatcher.getDispatchedCount(), handled.get());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testCapacityTooSmall() {
+        new AsyncEventDispatcher(1, OverflowPolicy.DROP, batch -> { });
+    }
+}
@@ -0,0 +1,114 @@
+package com.yahoo.props;
+
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class AsyncInitializerTest {
+    private final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+    @AfterClass
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testPrefetchRunsInParallel() throws Exception {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().setAsyncExecutor(executor).build();
+        AtomicInteger initCount = new AtomicInteger();
+        // each initializer only completes once both run at the same time
+        CountDownLatch bothRunning = new CountDownLatch(2);
+        Prop<PropStore, String> first = definer.defineAsync("first", String.class,
+                store -> CompletableFuture.completedFuture(awaitOverlap(bothRunning, initCount, "a")));
+        Prop<PropStore, String> second = definer.defineAsync("second", String.class,
+                store -> CompletableFuture.completedFuture(awaitOverlap(bothRunning, initCount, "b")));
+        Prop<PropStore, String> plain = definer.define("plain", String.class);
+        PropStore store = new PropStore();
+
+        definer.prefetch(store, first, second, plain);
+        assertEquals(first.getFrom(store), "a");
+        assertEquals(second.getFrom(store), "b");
+
+        assertEquals(initCount.get(), 2);
+        assertEquals(first.getFrom(store), "a");
+        assertEquals(initCount.get(), 2);
+    }
+
+    @Test
+    public void testStalePrefetchIsRecomputed() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().setAsyncExecutor(executor).build();
+        Prop<PropStore, String> region = definer.define("region", String.class);
+        Prop<PropStore, String> endpoint = definer.defineAsync("endpoint", String.class,
+                store -> CompletableFuture.completedFuture("https://" + region.getFrom(store) + ".example.com"));
+        endpoint.addResetDependency(region);
+        PropStore store = new PropStore();
+        region.setTo(store, "us");
+
+        definer.prefetch(store, endpoint).join();
+        region.setTo(store, "eu");
+
+        assertEquals(endpoint.getFrom(store), "https://eu.example.com");
+    }
+
+    @Test
+    public void testGetWithoutPrefetch() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        Prop<PropStore, Integer> prop = definer.defineAsync("answer", Integer.class,
+                store -> CompletableFuture.supplyAsync(() -> 42));
+        PropStore store = new PropStore();
+
+        definer.prefetch(store, Collections.emptyList()).join();
+        assertEquals(prop.getFrom(store).intValue(), 42);
+        // present values are not fetched again
+        definer.prefetch(store, prop).join();
+    }
+
+    @Test
+    public void testFailureIsRethrown() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().setAsyncExecutor(executor).build();
+        Prop<PropStore, String> prop = definer.defineAsync("failing", String.class, store -> {
+            CompletableFuture<String> future = new CompletableFuture<>();
+            future.completeExceptionally(new IllegalStateException("boom"));
+            return future;
+        });
+        PropStore store = new PropStore();
+
+        definer.prefetch(store, prop);
+        try {
+            prop.getFrom(store);
+            fail();
+        } catch (IllegalStateException e) {
+            assertEquals(e.getMessage(), "boom");
+        }
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPrefetchRejectsForeignProp() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        Prop<PropStore, String> foreign = PropStore.newDefinerBuilder().build().define("foreign", String.class);
+
+        definer.prefetch(new PropStore(), foreign);
+    }
+
+    private static String awaitOverlap(CountDownLatch bothRunning, AtomicInteger initCount, String value) {
+        initCount.incrementAndGet();
+        bothRunning.countDown();
+        try {
+            assertTrue(bothRunning.await(10, TimeUnit.SECONDS), "initializers didn't run in parallel");
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+        return value;
+    }
+}
@@ -0,0 +1,130 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ChangeListenerTest {
+
+    @Test
+    public void testOnChangeFiresOnActualChanges() {
+        PropDefiner<Properties> definer = newDefiner();
+        Prop<Properties, String> cname = definer.define("cname", String.class);
+        Prop<Properties, String> env = definer.define("env", String.class);
+        List<String> changes = new ArrayList<>();
+        ChangeListener<Properties, String> listener =
+                (context, oldValue, newValue) -> changes.add(oldValue + "->" + newValue);
+        definer.onChange(cname, listener);
+        Properties props = new Properties();
+
+        cname.setTo(props, "a");
+        cname.setTo(props, "a");
+        env.setTo(props, "prod");
+        cname.setTo(props, "b");
+        definer.removeOnChange(cname, listener);
+        cname.setTo(props, "c");
+
+        assertEquals(changes, Arrays.asList("null->a", "a->b"));
+    }
+
+    @Test
+    public void testWatchIsPerContext() {
+        PropDefiner<Properties> definer = newDefiner();
+        Prop<Properties, Integer> port = definer.define("port", Integer.class, props -> 80);
+        List<Integer> changes = new ArrayList<>();
+        ChangeListener<Properties, Integer> listener = (context, oldValue, newValue) -> changes.add(newValue);
+        Properties watched = new Properties();
+        Properties other = new Properties();
+        port.watch(watched, listener);
+
+        // the initialization stores a value too
+        port.getFrom(watched);
+        port.setTo(other, 8080);
+        port.setTo(watched, 4080);
+        port.unwatch(watched, listener);
+        port.setTo(watched, 4443);
+
+        assertEquals(changes, Arrays.asList(80, 4080));
+    }
+
+    @Test
+    public void testPrimitivePropsFireWhenWatched() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        IntProp<PropStore> rank = definer.defineInt("rank");
+        IntProp<PropStore> retries = definer.defineInt("retries", store -> 3);
+        List<String> changes = new ArrayList<>();
+        definer.onChange(rank, (store, oldValue, newValue) -> changes.add("rank " + oldValue + "->" + newValue));
+        definer.onChange(retries, (store, oldValue, newValue) -> changes.add("retries " + oldValue + "->" + newValue));
+        PropStore store = new PropStore();
+
+        rank.setAsInt(store, 1);
+        rank.setAsInt(store, 1);
+        rank.setAsInt(store, 2);
+        retries.getAsInt(store, 0);
+
+        assertEquals(changes, Arrays.asList("rank null->1", "rank 1->2", "retries null->3"));
+        assertEquals(rank.getAsInt(store, 0), 2);
+    }
+
+    @Test
+    public void testResetFiresOnceWithRecomputedValue() {
+        PropDefiner<Properties> definer = newDefiner();
+        Prop<Properties, String> region = definer.define("region", String.class);
+        Prop<Properties, Integer> shards = definer.define("shards", Integer.class,
+                props -> "us".equals(region.getFrom(props)) ? 5 : 3);
+        shards.addResetDependency(region);
+        List<String> changes = new ArrayList<>();
+        definer.onChange(shards, (context, oldValue, newValue) -> changes.add(oldValue + "->" + newValue));
+        Properties props = new Properties();
+        region.setTo(props, "us");
+
+        shards.getFrom(props);
+        region.setTo(props, "us-east");
+        shards.getFrom(props);
+        region.setTo(props, "eu");
+        shards.getFrom(props);
+
+        // the reset to "eu" recomputes an equal value
+        assertEquals(changes, Arrays.asList("null->5", "5->3"));
+    }
+
+    @Test
+    public void testRemovedAndOtherContextListenersDontFire() {
+        PropDefiner<Properties> definer = newDefiner();
+        Prop<Properties, String> cname = definer.define("cname", String.class);
+        List<String> changes = new ArrayList<>();
+        ChangeListener<Properties, Object> listener = (context, oldValue, newValue) -> changes.add("fired");
+        definer.onChange(cname, listener);
+        definer.removeOnChange(cname, listener);
+        cname.watch(new Properties(), listener);
+
+        cname.setTo(new Properties(), "a");
+
+        assertTrue(changes.isEmpty());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testOnChangeOfForeignProp() {
+        Prop<Properties, String> foreign = newDefiner().define("cname", String.class);
+        newDefiner().onChange(foreign, (context, oldValue, newValue) -> {});
+    }
+
+    private static PropDefiner<Properties> newDefiner() {
+        return PropDefinerBuilder.newBuilder(Properties.class)
+                .setObjectGetter(Properties::get)
+                .setObjectSetter((props, key, value) -> {
+                    if (value == null) {
+                        props.remove(key);
+                    } else {
+                        props.put(key, value);
+                    }
+                })
+                .build();
+    }
+}
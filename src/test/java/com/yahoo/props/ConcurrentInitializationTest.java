@@ -0,0 +1,181 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class ConcurrentInitializationTest {
+    private static final int THREADS = 8;
+
+    private volatile CountDownLatch readersStarted = new CountDownLatch(0);
+
+    @SuppressWarnings("unchecked")
+    private static PropDefinerBuilder<Map<String, Object>> newBuilder() {
+        PropDefinerBuilder<Map<String, Object>> builder = PropDefinerBuilder.newBuilder((Class) Map.class);
+        return builder
+                .setObjectGetter((map, name) -> map.get(name))
+                .setObjectSetter((map, name, value) -> {
+                    if (value == null) {
+                        map.remove(name);
+                    } else {
+                        map.put(name, value);
+                    }
+                })
+                .setConcurrentInitialization(true);
+    }
+
+    @Test
+    public void testInitializerRunsOnce() throws Exception {
+        AtomicInteger initCount = new AtomicInteger();
+        Prop<Map<String, Object>, String> prop = newBuilder().build().define("expensive", String.class,
+                map -> awaitReaders(initCount, "value"));
+
+        assertEquals(readConcurrently(new ConcurrentHashMap<>(), map -> prop.getFrom(map)), "value");
+        assertEquals(initCount.get(), 1);
+    }
+
+    @Test
+    public void testInitializerWithEventHandlerRunsOnce() throws Exception {
+        AtomicInteger initCount = new AtomicInteger();
+        AtomicInteger eventCount = new AtomicInteger();
+        Prop<Map<String, Object>, String> prop = newBuilder()
+                .setAfterInitEventHandler((map, name, value) -> eventCount.incrementAndGet())
+                .build()
+                .define("expensive", String.class, map -> awaitReaders(initCount, "value"));
+
+        assertEquals(readConcurrently(new ConcurrentHashMap<>(), map -> prop.getFrom(map)), "value");
+        assertEquals(initCount.get(), 1);
+        assertEquals(eventCount.get(), 1);
+    }
+
+    @Test
+    public void testResetRunsOnce() throws Exception {
+        AtomicInteger initCount = new AtomicInteger();
+        PropDefiner<Map<String, Object>> definer = newBuilder().build();
+        Prop<Map<String, Object>, String> upstream = definer.define("upstream", String.class);
+        Prop<Map<String, Object>, String> dependent = definer.define("dependent", String.class,
+                map -> awaitReaders(initCount, upstream.getFrom(map) + "!"));
+        dependent.addResetDependency(upstream);
+        Map<String, Object> map = new ConcurrentHashMap<>();
+        upstream.setTo(map, "a");
+        assertEquals(dependent.getFrom(map), "a!");
+
+        upstream.setTo(map, "b");
+
+        assertEquals(readConcurrently(map, context -> dependent.getFrom(context)), "b!");
+        assertEquals(initCount.get(), 2);
+    }
+
+    @Test
+    public void testNestedInitializationAcrossContexts() throws Exception {
+        PropDefiner<Properties> definer = PropDefinerBuilder.newBuilder(Properties.class)
+                .setObjectGetter(Properties::get)
+                .setObjectSetter(Properties::put)
+                .setConcurrentInitialization(true)
+                .build();
+        Properties first = new Properties();
+        Properties second = new Properties();
+        CyclicBarrier bothInitializing = new CyclicBarrier(2);
+        Prop<Properties, String> q = definer.define("q", String.class, props -> props == first ? "first" : "second");
+        // each initializer of p reads q of the other context while the other thread initializes p there
+        Prop<Properties, String> p = definer.define("p", String.class, props -> {
+            await(bothInitializing);
+            return "p of " + q.getFrom(props == first ? second : first);
+        });
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<String> ofFirst = executor.submit(() -> p.getFrom(first));
+            Future<String> ofSecond = executor.submit(() -> p.getFrom(second));
+
+            assertEquals(ofFirst.get(10, TimeUnit.SECONDS), "p of second");
+            assertEquals(ofSecond.get(10, TimeUnit.SECONDS), "p of first");
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testListenerMayReadInitializedProp() {
+        PropDefiner<Map<String, Object>> definer = newBuilder().build();
+        Prop<Map<String, Object>, String> prop = definer.define("prop", String.class, map -> "value");
+        List<String> reads = new ArrayList<>();
+        definer.onChange(prop, (map, oldValue, newValue) -> reads.add(prop.getFrom(map)));
+
+        assertEquals(prop.getFrom(new ConcurrentHashMap<>()), "value");
+        assertEquals(reads, Collections.singletonList("value"));
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testCircularInitializationThrows() {
+        PropDefiner<Map<String, Object>> definer = newBuilder().build();
+        AtomicReference<Prop<Map<String, Object>, String>> self = new AtomicReference<>();
+        self.set(definer.define("self", String.class, map -> self.get().getFrom(map)));
+
+        self.get().getFrom(new ConcurrentHashMap<>());
+    }
+
+    // holds the initialization until every reader started, the readers that find it running wait for its result
+    private String awaitReaders(AtomicInteger initCount, String value) {
+        initCount.incrementAndGet();
+        await(readersStarted);
+        return value;
+    }
+
+    private static void await(CyclicBarrier barrier) {
+        try {
+            barrier.await(10, TimeUnit.SECONDS);
+        } catch (Exception e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(10, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private <T> T readConcurrently(Map<String, Object> map,
+                                          Function<Map<String, Object>, T> read) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        try {
+            CountDownLatch start = new CountDownLatch(1);
+            readersStarted = new CountDownLatch(THREADS);
+            List<Future<T>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(executor.submit(() -> {
+                    start.await();
+                    readersStarted.countDown();
+                    return read.apply(map);
+                }));
+            }
+            start.countDown();
+            T result = futures.get(0).get(10, TimeUnit.SECONDS);
+            for (Future<T> future : futures) {
+                assertEquals(future.get(10, TimeUnit.SECONDS), result);
+            }
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,125 @@
+package com.yahoo.props;
+
+import com.google.common.reflect.TypeToken;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.SortedSet;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+@SuppressWarnings("serial")
+public class ConvertersTest {
+    enum Region {
+        BF1, GQ1, NE1
+    }
+
+    private static PropDefiner<Properties> newDefiner(Converters converters) {
+        return PropDefinerBuilder.newBuilder(Properties.class)
+                .setConverters(converters, Properties::getProperty, (props, key, value) -> {
+                    if (value == null) {
+                        props.remove(key);
+                    } else {
+                        props.setProperty(key, value);
+                    }
+                })
+                .build();
+    }
+
+    @Test
+    public void testScalarsAndEnums() {
+        PropDefiner<Properties> definer = newDefiner(new Converters());
+        Prop<Properties, String> cname = definer.define("cname", String.class);
+        Prop<Properties, Integer> port = definer.define("port", Integer.class);
+        IntProp<Properties> weight = definer.defineInt("weight");
+        Prop<Properties, Double> ratio = definer.define("ratio", Double.class);
+        BooleanProp<Properties> trace = definer.defineBoolean("trace");
+        Prop<Properties, Region> main = definer.define("main", Region.class);
+        Properties props = new Properties();
+        props.setProperty("cname", "v1.yahooapis.com");
+        props.setProperty("port", " 4080 ");
+        props.setProperty("ratio", "0.25");
+        props.setProperty("trace", "TRUE");
+        props.setProperty("main", "gq1");
+
+        assertEquals(cname.getFrom(props), "v1.yahooapis.com");
+        assertEquals(port.getFrom(props), (Integer) 4080);
+        assertEquals(weight.getAsInt(props, -1), -1);
+        assertEquals(ratio.getFrom(props), 0.25);
+        assertTrue(trace.getAsBoolean(props, false));
+        assertEquals(main.getFrom(props), Region.GQ1);
+
+        weight.setAsInt(props, -7);
+        main.setTo(props, Region.NE1);
+        port.setTo(props, null);
+        assertEquals(props.getProperty("weight"), "-7");
+        assertEquals(props.getProperty("main"), "NE1");
+        assertFalse(props.containsKey("port"));
+    }
+
+    @Test
+    public void testArraysAndCollections() {
+        PropDefiner<Properties> definer = newDefiner(new Converters());
+        Prop<Properties, String[]> roles = definer.define("roles", String[].class);
+        Prop<Properties, int[]> ports = definer.define("ports", int[].class);
+        Prop<Properties, List<Long>> ids = definer.define("ids", new TypeToken<List<Long>>() {});
+        Prop<Properties, Set<Region>> replicas = definer.define("replicas", new TypeToken<Set<Region>>() {});
+        Prop<Properties, SortedSet<String>> tags = definer.define("tags", new TypeToken<SortedSet<String>>() {});
+        Properties props = new Properties();
+        props.setProperty("roles", "admin , ,reader,");
+        props.setProperty("ports", "4080,4443");
+        props.setProperty("ids", "-9223372036854775808, 42");
+        props.setProperty("replicas", "ne1, BF1");
+        props.setProperty("tags", "b,a");
+
+        assertEquals(roles.getFrom(props), new String[] {"admin", "reader"});
+        assertEquals(ports.getFrom(props), new int[] {4080, 4443});
+        assertEquals(ids.getFrom(props), Arrays.asList(Long.MIN_VALUE, 42L));
+        assertEquals(replicas.getFrom(props), EnumSet.of(Region.BF1, Region.NE1));
+        assertEquals(tags.getFrom(props).first(), "a");
+
+        replicas.setTo(props, EnumSet.of(Region.NE1, Region.GQ1));
+        ports.setTo(props, new int[] {1, 2, 3});
+        assertEquals(props.getProperty("replicas"), "GQ1,NE1");
+        assertEquals(props.getProperty("ports"), "1,2,3");
+    }
+
+    @Test
+    public void testRegisteredConverter() {
+        Converters converters = new Converters(';').register(Duration.class, Duration::parse);
+        PropDefiner<Properties> definer = newDefiner(converters);
+        Prop<Properties, List<Duration>> timeouts = definer.define("timeouts", new TypeToken<List<Duration>>() {});
+        Properties props = new Properties();
+        props.setProperty("timeouts", "PT1S; PT0.5S");
+
+        assertEquals(timeouts.getFrom(props), Arrays.asList(Duration.ofSeconds(1), Duration.ofMillis(500)));
+        assertNull(converters.converterFor(Object.class));
+    }
+
+    @Test
+    public void testParsing() {
+        assertEquals(Converters.parseLong("9223372036854775807"), Long.MAX_VALUE);
+        assertEquals(Converters.parseInt("a,-12,b", 2, 5), -12);
+        assertEquals(Converters.parseEnum(Region.class, "Bf1"), Region.BF1);
+        assertNull(Converters.parseEnum(Region.class, "ch1"));
+    }
+
+    @DataProvider
+    public Object[][] invalidNumbers() {
+        return new Object[][] {{""}, {"-"}, {"1x"}, {"2147483648"}, {"9223372036854775808"}, {"-9223372036854775809"}};
+    }
+
+    @Test(dataProvider = "invalidNumbers", expectedExceptions = NumberFormatException.class)
+    public void testInvalidNumbers(String text) {
+        Converters.parseInt(text);
+    }
+}
@@ -0,0 +1,100 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.fail;
+
+public class DecodeCacheTest {
+    private static final AtomicInteger PARSE_COUNT = new AtomicInteger();
+
+    private static final PropDefiner<Properties> DEFINER = PropDefinerBuilder.newBuilder(Properties.class)
+            .setObjectSetter((props, key, value) -> props.setProperty(key, String.valueOf(value)))
+            .setTypeGetter(String.class, (props, key) -> props.getProperty(key))
+            .setTypeGetter(Integer.class, (props, key) -> {
+                PARSE_COUNT.incrementAndGet();
+                return props.getProperty(key) != null ? Integer.parseInt(props.getProperty(key)) : null;
+            })
+            .setTypeGetter(List.class, (props, key) -> {
+                PARSE_COUNT.incrementAndGet();
+                return props.getProperty(key) != null ? Arrays.asList(props.getProperty(key).split(",")) : null;
+            })
+            .setDecodeCache((props, key) -> props.get(key))
+            .build();
+
+    private static final Prop<Properties, Integer> PORT  = DEFINER.define("port", Integer.class);
+    @SuppressWarnings("rawtypes")
+    private static final Prop<Properties, List>    HOSTS = DEFINER.define("hosts", List.class);
+
+    @Test
+    public void testDecodeOnce() {
+        Properties props = new Properties();
+        props.setProperty("port", "4080");
+        props.setProperty("hosts", "a,b");
+        PARSE_COUNT.set(0);
+
+        for (int i = 0; i < 10; i++) {
+            assertEquals(PORT.getFrom(props).intValue(), 4080);
+        }
+        // decoded once into an immutable list every reader shares
+        @SuppressWarnings("unchecked")
+        List<String> hosts = HOSTS.getFrom(props);
+        assertSame(HOSTS.getFrom(props), hosts);
+        try {
+            hosts.add("c");
+            fail();
+        } catch (UnsupportedOperationException e) {
+            assertEquals(HOSTS.getFrom(props), Arrays.asList("a", "b"));
+        }
+        assertEquals(PARSE_COUNT.get(), 2);
+
+        // raw write
+        props.setProperty("port", "8080");
+        assertEquals(PORT.getFrom(props).intValue(), 8080);
+        assertEquals(PORT.getFrom(props).intValue(), 8080);
+        assertEquals(PARSE_COUNT.get(), 3);
+
+        // prop write
+        PORT.setTo(props, 9090);
+        assertEquals(PORT.getFrom(props).intValue(), 9090);
+        assertEquals(PARSE_COUNT.get(), 4);
+
+        props.remove("port");
+        assertNull(PORT.getFrom(props));
+
+        // cache is per context
+        Properties other = new Properties();
+        other.setProperty("port", "1");
+        assertEquals(PORT.getFrom(other).intValue(), 1);
+        assertEquals(PORT.getFrom(props, 2).intValue(), 2);
+    }
+
+    @Test
+    public void testOtherTypesAreNotCached() {
+        AtomicInteger decodeCount = new AtomicInteger();
+        PropDefiner<Properties> definer = PropDefinerBuilder.newBuilder(Properties.class)
+                .setObjectSetter((props, key, value) -> props.setProperty(key, String.valueOf(value)))
+                .setTypeGetter(String.class, (props, key) -> props.getProperty(key))
+                .setTypeGetter(StringBuilder.class, (props, key) -> {
+                    decodeCount.incrementAndGet();
+                    return new StringBuilder(props.getProperty(key));
+                })
+                .setDecodeCache((props, key) -> props.get(key))
+                .build();
+        Prop<Properties, StringBuilder> banner = definer.define("banner", StringBuilder.class);
+        Properties props = new Properties();
+        props.setProperty("banner", "hello");
+
+        banner.getFrom(props).append(" world");
+
+        assertEquals(banner.getFrom(props).toString(), "hello");
+        assertEquals(decodeCount.get(), 2);
+    }
+}
@@ -0,0 +1,74 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+
+public class DependencyGraphTest {
+
+    @Test
+    public void testPushInvalidation() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().setPushInvalidation(true).build();
+        AtomicInteger bInits = new AtomicInteger();
+        AtomicInteger cInits = new AtomicInteger();
+        Prop<PropStore, String> a = definer.define("a", String.class);
+        Prop<PropStore, String> b = definer.define("b", String.class, store -> {
+            bInits.incrementAndGet();
+            return a.getFrom(store) + "b";
+        });
+        Prop<PropStore, String> c = definer.define("c", String.class, store -> {
+            cInits.incrementAndGet();
+            return b.getFrom(store) + "c";
+        });
+        b.addResetDependency(a);
+        c.addResetDependency(b);
+        PropStore store = new PropStore();
+        a.setTo(store, "1");
+
+        assertEquals(c.getFrom(store), "1bc");
+        assertEquals(c.getFrom(store), "1bc");
+        assertEquals(bInits.get(), 1);
+        assertEquals(cInits.get(), 1);
+
+        a.setTo(store, "2");
+
+        assertEquals(c.getFrom(store), "2bc");
+        assertEquals(b.getFrom(store), "2b");
+        assertEquals(bInits.get(), 2);
+        assertEquals(cInits.get(), 2);
+
+        // other contexts are unaffected
+        PropStore other = new PropStore();
+        a.setTo(other, "3");
+        assertEquals(c.getFrom(store), "2bc");
+        assertEquals(c.getFrom(other), "3bc");
+    }
+
+    @Test
+    public void testPrimitiveUpstream() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().setPushInvalidation(true).build();
+        IntProp<PropStore> score = definer.defineInt("score", store -> 600);
+        BooleanProp<PropStore> approved = definer.defineBoolean("approved", store -> score.getAsInt(store) >= 700);
+        approved.addResetDependency(score);
+        PropStore store = new PropStore();
+
+        assertEquals(approved.getAsBoolean(store), false);
+        score.setAsInt(store, 750);
+        assertEquals(approved.getAsBoolean(store), true);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class,
+            expectedExceptionsMessageRegExp = "Reset dependency cycle: a -> b -> c -> a")
+    public void testCycle() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        Prop<PropStore, String> a = definer.define("a", String.class);
+        Prop<PropStore, String> b = definer.define("b", String.class);
+        Prop<PropStore, String> c = definer.define("c", String.class);
+        b.addResetDependency(a);
+        c.addResetDependency(b);
+
+        a.addResetDependency(c);
+    }
+}
@@ -0,0 +1,53 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class DependencyStateStoreTest {
+    private static final PropDefiner<Properties> DEFINER = PropDefinerBuilder.newBuilder(Properties.class)
+            .setObjectGetter((props, key) -> props.get(key))
+            .setObjectSetter((props, key, value) -> {
+                if (value == null)
+                    props.remove(key);
+                else
+                    props.put(key, value);
+            })
+            .setDependencyStateStore(DependencyStateStore.newWeakIdentityStore())
+            .build();
+
+    private static final Prop<Properties, Integer> REPLICAS     = DEFINER.define("replicas", Integer.class);
+    private static final Prop<Properties, Double>  AVAILABILITY = DEFINER.define("availability", Double.class,
+            props -> REPLICAS.getFrom(props, 0) / 10.0d)
+            .addResetDependency(REPLICAS);
+
+    @Test
+    public void testWeakIdentityStore() {
+        Properties props = new Properties();
+        REPLICAS.setTo(props, 2);
+        assertEquals(AVAILABILITY.getFrom(props), 0.2d);
+
+        REPLICAS.setTo(props, 5);
+        assertEquals(AVAILABILITY.getFrom(props), 0.5d);
+
+        AVAILABILITY.setTo(props, 0.9d);
+        assertEquals(AVAILABILITY.getFrom(props), 0.9d);
+
+        REPLICAS.setTo(props, 3);
+        assertEquals(AVAILABILITY.getFrom(props), 0.3d);
+
+        // state is kept per context identity, not by context equality
+        Properties other = new Properties();
+        other.putAll(props);
+        REPLICAS.setTo(props, 4);
+        assertEquals(AVAILABILITY.getFrom(props), 0.4d);
+        assertEquals(AVAILABILITY.getFrom(other), 0.3d);
+
+        // nothing but the props themselves in the context
+        assertTrue(props.keySet().stream().map(String::valueOf).noneMatch(Prop::isResetDependencyKey));
+        assertEquals(props.keySet().size(), 2);
+    }
+}
@@ -0,0 +1,113 @@
+package com.yahoo.props;
+
+import com.google.common.reflect.TypeToken;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.Properties;
+import java.util.Set;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+
+@SuppressWarnings("serial")
+public class EnumMaskTest {
+    enum Region {
+        BF1, GQ1, NE1, TW1
+    }
+
+    enum Large {
+        C0, C1, C2, C3, C4, C5, C6, C7, C8, C9, C10, C11, C12, C13, C14, C15, C16, C17, C18, C19, C20, C21, C22, C23, C24, C25, C26, C27, C28, C29, C30, C31, C32, C33, C34, C35, C36, C37, C38, C39, C40, C41, C42, C43, C44, C45, C46, C47, C48, C49, C50, C51, C52, C53, C54, C55, C56, C57, C58, C59, C60, C61, C62, C63, C64, C65, C66, C67, C68, C69
+    }
+
+    @Test
+    public void testSmallMask() {
+        EnumMask<Region> mask = EnumMask.of(Region.NE1, Region.BF1);
+
+        assertEquals(mask.bits(), 0b101);
+        assertTrue(mask.contains(Region.NE1));
+        assertFalse(mask.contains((Object) Region.GQ1));
+        assertFalse(mask.contains("NE1"));
+        assertEquals(mask.size(), 2);
+        assertEquals(Arrays.asList(mask.toArray()), Arrays.asList(Region.BF1, Region.NE1));
+        assertEquals(mask.with(Region.TW1).without(Region.BF1), EnumSet.of(Region.NE1, Region.TW1));
+        assertSame(mask.with(Region.BF1), mask);
+
+        // equal and hashed like any other set
+        Set<Region> hashSet = new HashSet<>(Arrays.asList(Region.BF1, Region.NE1));
+        assertEquals(mask, hashSet);
+        assertEquals(hashSet, mask);
+        assertEquals(mask.hashCode(), hashSet.hashCode());
+        assertEquals(EnumMask.allOf(Region.class).size(), 4);
+        assertTrue(EnumMask.noneOf(Region.class).isEmpty());
+    }
+
+    @Test
+    public void testLargeMask() {
+        EnumMask<Large> mask = EnumMask.of(Large.C1, Large.C64, Large.C69);
+
+        assertEquals(mask.words().length, 2);
+        assertTrue(mask.contains(Large.C64));
+        assertFalse(mask.contains(Large.C63));
+        assertEquals(mask.toEnumSet(), EnumSet.of(Large.C1, Large.C64, Large.C69));
+        assertEquals(EnumMask.ofWords(Large.class, mask.words()), mask);
+        assertEquals(EnumMask.allOf(Large.class).size(), 70);
+        assertEquals(mask.without(Large.C64).size(), 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testBitsOutOfRange() {
+        EnumMask.ofBits(Region.class, 1L << 4);
+    }
+
+    @Test
+    public void testMaskPropAsResetDependency() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        Prop<PropStore, EnumMask<Region>> replicas = definer.defineEnumMask("replicas", Region.class);
+        Prop<PropStore, Double> availability = definer.define("availability", Double.class,
+                store -> replicas.getFrom(store).size() / 10.0)
+                .addResetDependency(replicas);
+        PropStore store = new PropStore();
+
+        replicas.setTo(store, EnumMask.of(Region.BF1, Region.NE1));
+        assertEquals(availability.getFrom(store), 0.2);
+        replicas.setTo(store, replicas.getFrom(store).with(Region.GQ1));
+        assertEquals(availability.getFrom(store), 0.3);
+    }
+
+    @Test
+    public void testConvertedAndEncoded() {
+        PropDefiner<Properties> definer = PropDefinerBuilder.newBuilder(Properties.class)
+                .setConverters(new Converters(), Properties::getProperty, Properties::setProperty)
+                .build();
+        Prop<Properties, EnumMask<Region>> replicas = definer.defineEnumMask("replicas", Region.class);
+        Prop<Properties, EnumMask<Large>> shards = definer.defineEnumMask("shards", Large.class);
+        Prop<Properties, EnumSet<Region>> backups = definer.define("backups",
+                new TypeToken<EnumSet<Region>>() {});
+        Properties props = new Properties();
+        props.setProperty("replicas", "ne1, BF1");
+        props.setProperty("shards", "c2,C66");
+        props.setProperty("backups", "tw1");
+
+        assertEquals(replicas.getFrom(props), EnumMask.of(Region.BF1, Region.NE1));
+        assertEquals(shards.getFrom(props), EnumMask.of(Large.C2, Large.C66));
+        assertEquals(backups.getFrom(props), EnumSet.of(Region.TW1));
+        replicas.setTo(props, EnumMask.of(Region.TW1, Region.GQ1));
+        assertEquals(props.getProperty("replicas"), "GQ1,TW1");
+
+        PropDefiner<PropStore> storeDefiner = PropStore.newDefinerBuilder().build();
+        Prop<PropStore, EnumMask<Large>> storeShards = storeDefiner.defineEnumMask("shards", Large.class);
+        PropCodec<PropStore> codec = storeDefiner.newCodec();
+        PropStore store = new PropStore();
+        storeShards.setTo(store, EnumMask.of(Large.C0, Large.C69));
+        ByteBuffer encoded = codec.encode(store);
+        PropStore decoded = new PropStore();
+        codec.decode(encoded, decoded);
+        assertEquals(storeShards.getFrom(decoded), EnumMask.of(Large.C0, Large.C69));
+    }
+}
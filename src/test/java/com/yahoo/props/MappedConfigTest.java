@@ -0,0 +1,136 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class MappedConfigTest {
+    enum Env {
+        DEV, STAGE, PROD
+    }
+
+    private static MappedConfig open(String content) throws IOException {
+        Path file = Files.createTempFile("mapped-config", ".properties");
+        file.toFile().deleteOnExit();
+        Files.write(file, content.getBytes(UTF_8));
+        return MappedConfig.open(file);
+    }
+
+    @Test
+    public void testTypedReads() throws IOException {
+        PropDefiner<MappedConfig> definer = MappedConfig.newDefinerBuilder().build();
+        Prop<MappedConfig, String> cname = definer.define("cname", String.class);
+        Prop<MappedConfig, Integer> port = definer.define("port", Integer.class);
+        LongProp<MappedConfig> timeout = definer.defineLong("timeout");
+        Prop<MappedConfig, Double> ratio = definer.define("ratio", Double.class);
+        BooleanProp<MappedConfig> trace = definer.defineBoolean("trace");
+        Prop<MappedConfig, Env> env = definer.define("env", Env.class);
+        Prop<MappedConfig, String> region = definer.define("région", String.class);
+        Prop<MappedConfig, String> missing = definer.define("missing", String.class);
+
+        MappedConfig config = open("# generated\n"
+                + "cname = v1.yahooapis.com\n"
+                + "\n"
+                + "  ! also a comment\n"
+                + "port=4080\r\n"
+                + "timeout: 1500\n"
+                + "ratio=0.25\n"
+                + "trace=true\n"
+                + "env=stage\n"
+                + "région=øst\n"
+                + "port=8080");
+
+        assertEquals(config.size(), 7);
+        assertEquals(cname.getFrom(config), "v1.yahooapis.com");
+        assertEquals(port.getFrom(config), (Integer) 8080);
+        assertEquals(timeout.getAsLong(config, 0), 1500);
+        assertEquals(ratio.getFrom(config), 0.25);
+        assertTrue(trace.getAsBoolean(config, false));
+        assertEquals(env.getFrom(config), Env.STAGE);
+        assertEquals(region.getFrom(config), "øst");
+        assertNull(missing.getFrom(config));
+        // decoded once
+        assertTrue(cname.getFrom(config) == cname.getFrom(config));
+    }
+
+    @Test
+    public void testTypedValueIsCachedAfterStringRead() throws IOException {
+        MappedConfig config = open("port=4080\n");
+        AtomicInteger decodeCount = new AtomicInteger();
+        Function<String, Integer> decoder = value -> {
+            decodeCount.incrementAndGet();
+            return Integer.valueOf(value);
+        };
+
+        assertEquals(config.get("port"), "4080");
+        assertEquals(config.get("port", Integer.class, decoder), (Integer) 4080);
+        assertEquals(config.get("port", Integer.class, decoder), (Integer) 4080);
+        assertEquals(decodeCount.get(), 1);
+        assertTrue(config.get("port") == config.get("port", String.class, Function.identity()));
+    }
+
+    @Test
+    public void testValuesSetInMemory() throws IOException {
+        PropDefiner<MappedConfig> definer = MappedConfig.newDefinerBuilder().build();
+        Prop<MappedConfig, String> replicas = definer.define("replicas", String.class);
+        Prop<MappedConfig, Integer> replicaCount = definer.define("replica_count", Integer.class,
+                config -> replicas.getFrom(config, "").split(",").length)
+                .addResetDependency(replicas);
+        Prop<MappedConfig, Integer> port = definer.define("port", Integer.class);
+        MappedConfig config = open("replicas=bf1,ne1\nport=4080\n");
+
+        assertEquals(replicaCount.getFrom(config), (Integer) 2);
+        replicas.setTo(config, "bf1,ne1,gq1");
+        assertEquals(replicaCount.getFrom(config), (Integer) 3);
+        port.setTo(config, null);
+        assertNull(port.getFrom(config));
+        assertFalse(port.isPresent(config));
+    }
+
+    @Test
+    public void testConcurrentReadsOfManyKeys() throws Exception {
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < 100_000; i++) {
+            content.append("key_").append(i).append('=').append(i).append('\n');
+        }
+        MappedConfig config = open(content.toString());
+        PropDefiner<MappedConfig> definer = MappedConfig.newDefinerBuilder().build();
+        List<Prop<MappedConfig, Integer>> props = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            props.add(definer.define("key_" + i * 100, Integer.class));
+        }
+
+        assertEquals(config.size(), 100_000);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int thread = 0; thread < 4; thread++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < props.size(); i++) {
+                        assertEquals(props.get(i).getFrom(config), (Integer) (i * 100));
+                    }
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+
+public class MemoCacheTest {
+
+    private enum Region {
+        GQ1, NE1, CH1
+    }
+
+    @Test
+    public void testSharedAcrossContexts() {
+        MemoCache cache = new MemoCache(100);
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        AtomicInteger computations = new AtomicInteger();
+        Prop<PropStore, EnumMask<Region>> replicas = definer.defineEnumMask("replicas", Region.class);
+        Prop<PropStore, Double> availability = definer.define("availability", Double.class, store -> {
+            computations.incrementAndGet();
+            return replicas.getFrom(store).size() / 3.0;
+        }).addResetDependency(replicas).memoize(cache);
+
+        PropStore first = new PropStore();
+        PropStore second = new PropStore();
+        replicas.setTo(first, EnumMask.of(Region.GQ1, Region.NE1));
+        replicas.setTo(second, EnumMask.of(Region.GQ1, Region.NE1));
+
+        assertEquals(availability.getFrom(first), 2 / 3.0);
+        assertEquals(availability.getFrom(second), 2 / 3.0);
+        assertEquals(computations.get(), 1);
+
+        replicas.setTo(second, EnumMask.allOf(Region.class));
+        assertEquals(availability.getFrom(second), 1.0);
+        replicas.setTo(first, EnumMask.allOf(Region.class));
+        assertEquals(availability.getFrom(first), 1.0);
+
+        assertEquals(computations.get(), 2);
+        assertEquals(cache.getHitCount(), 2);
+        assertEquals(cache.getMissCount(), 2);
+        assertEquals(cache.size(), 2);
+    }
+
+    @Test
+    public void testPushedDependencies() {
+        MemoCache cache = new MemoCache(100);
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().setPushInvalidation(true).build();
+        AtomicInteger computations = new AtomicInteger();
+        IntProp<PropStore> shards = definer.defineInt("shards");
+        Prop<PropStore, String> label = definer.define("label", String.class, store -> {
+            computations.incrementAndGet();
+            return "shards " + shards.getAsInt(store, 0);
+        }).addResetDependency(shards).memoize(cache);
+
+        for (int i = 0; i < 10; i++) {
+            PropStore store = new PropStore();
+            shards.setAsInt(store, i % 2);
+            assertEquals(label.getFrom(store), "shards " + i % 2);
+        }
+
+        assertEquals(computations.get(), 2);
+        assertEquals(cache.getHitRate(), 0.8);
+    }
+
+    @Test
+    public void testBoundedAndExpiring() throws InterruptedException {
+        MemoCache cache = new MemoCache(1, 50, TimeUnit.MILLISECONDS);
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        AtomicInteger computations = new AtomicInteger();
+        IntProp<PropStore> size = definer.defineInt("size");
+        IntProp<PropStore> doubled = definer.defineInt("doubled", store -> {
+            computations.incrementAndGet();
+            return size.getAsInt(store, 0) * 2;
+        });
+        doubled.addResetDependency(size).memoize(cache);
+
+        assertEquals(doubled.getAsInt(newStore(size, 1), 0), 2);
+        assertEquals(doubled.getAsInt(newStore(size, 2), 0), 4);
+        assertEquals(doubled.getAsInt(newStore(size, 2), 0), 4);
+        // the entry of size 1 was evicted
+        assertEquals(doubled.getAsInt(newStore(size, 1), 0), 2);
+        assertEquals(computations.get(), 3);
+        assertEquals(cache.getEvictionCount(), 2);
+
+        Thread.sleep(100);
+        assertEquals(doubled.getAsInt(newStore(size, 1), 0), 2);
+        assertEquals(computations.get(), 4);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testMemoizeRequiresDependencies() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        definer.define("constant", String.class, store -> "value").memoize(new MemoCache(10));
+    }
+
+    private static PropStore newStore(IntProp<PropStore> size, int value) {
+        PropStore store = new PropStore();
+        size.setAsInt(store, value);
+        return store;
+    }
+}
@@ -0,0 +1,87 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class PrimitivePropTest {
+    private static final PropDefiner<PropStore> STORE_DEFINER = PropStore.newDefinerBuilder().build();
+
+    private static final IntProp<PropStore>     PORT          = STORE_DEFINER.defineInt("port");
+    private static final LongProp<PropStore>    TIMEOUT       = STORE_DEFINER.defineLong("timeout", store -> 1000L);
+    private static final DoubleProp<PropStore>  AVAILABILITY  = STORE_DEFINER.defineDouble("availability");
+    private static final IntProp<PropStore>     CREDIT_SCORE  = STORE_DEFINER.defineInt("credit_score", store -> 600);
+    private static final BooleanProp<PropStore> APPROVED      = STORE_DEFINER.defineBoolean("approved",
+            store -> CREDIT_SCORE.getAsInt(store) >= 700);
+
+    private static final AtomicInteger          PARSE_COUNT   = new AtomicInteger();
+    private static final PropDefiner<Properties> PROPS_DEFINER = PropDefinerBuilder.newBuilder(Properties.class)
+            .setObjectGetter((props, key) -> props.get(key))
+            .setObjectSetter((props, key, value) -> props.setProperty(key, String.valueOf(value)))
+            .setTypeGetter(Integer.class, (props, key) -> props.getProperty(key) != null
+                    ? Integer.valueOf(props.getProperty(key)) : null)
+            .setIntGetter((props, key, substIfAbsent) -> {
+                PARSE_COUNT.incrementAndGet();
+                String value = props.getProperty(key);
+                return value != null ? Integer.parseInt(value) : substIfAbsent;
+            })
+            .setIntSetter((props, key, value) -> props.setProperty(key, Integer.toString(value)))
+            .build();
+
+    private static final IntProp<Properties> REPLICAS = PROPS_DEFINER.defineInt("replicas", props -> 3);
+
+    @Test
+    public void testPropStore() {
+        PropStore store = new PropStore();
+
+        assertTrue(PORT.isAbsent(store));
+        assertEquals(PORT.getAsInt(store, 4080), 4080);
+        PORT.setAsInt(store, 8080);
+        assertEquals(PORT.getAsInt(store), 8080);
+        assertEquals(PORT.getFrom(store).intValue(), 8080);
+        PORT.setTo(store, 9090);
+        assertEquals(PORT.getAsInt(store), 9090);
+
+        assertEquals(TIMEOUT.getAsLong(store), 1000L);
+        assertEquals(TIMEOUT.getFrom(store).longValue(), 1000L);
+
+        AVAILABILITY.setAsDouble(store, 0.5d);
+        assertEquals(AVAILABILITY.getAsDouble(store), 0.5d);
+        assertEquals(AVAILABILITY.getFrom(store), 0.5d);
+
+        assertFalse(APPROVED.getAsBoolean(store, true));
+        assertEquals(CREDIT_SCORE.getAsInt(store), 600);
+        assertEquals(APPROVED.getFrom(store), Boolean.FALSE);
+    }
+
+    @Test
+    public void testDependenciesFallBackToBoxedPath() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        IntProp<PropStore> score = definer.defineInt("score", store -> 600);
+        BooleanProp<PropStore> approved = definer.defineBoolean("approved", store -> score.getAsInt(store) >= 700);
+        approved.addResetDependency(score);
+        PropStore store = new PropStore();
+
+        assertFalse(approved.getAsBoolean(store));
+        score.setAsInt(store, 750);
+        assertTrue(approved.getAsBoolean(store));
+    }
+
+    @Test
+    public void testNamedPrimitiveAccess() {
+        Properties props = new Properties();
+        PARSE_COUNT.set(0);
+
+        assertEquals(REPLICAS.getAsInt(props), 3);
+        assertEquals(props.getProperty("replicas"), "3");
+        REPLICAS.setAsInt(props, Integer.MIN_VALUE);
+        assertEquals(REPLICAS.getAsInt(props), Integer.MIN_VALUE);
+        assertEquals(REPLICAS.getFrom(props).intValue(), Integer.MIN_VALUE);
+        assertTrue(PARSE_COUNT.get() > 0);
+    }
+}
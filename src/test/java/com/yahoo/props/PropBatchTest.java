@@ -0,0 +1,88 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class PropBatchTest {
+    private static final int CONTEXT_COUNT = 10_000;
+
+    @Test
+    public void testColumnsMatchSequentialReads() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        IntProp<PropStore> rank = definer.defineInt("rank");
+        DoubleProp<PropStore> score = definer.defineDouble("score");
+        AtomicInteger initializations = new AtomicInteger();
+        Prop<PropStore, String> label = definer.define("label", String.class, store -> {
+            initializations.incrementAndGet();
+            return "rank " + rank.getAsInt(store, -1);
+        });
+        label.addResetDependency(rank);
+        Prop<PropStore, String> missing = definer.define("missing", String.class);
+
+        List<PropStore> stores = new ArrayList<>();
+        for (int i = 0; i < CONTEXT_COUNT; i++) {
+            PropStore store = new PropStore();
+            rank.setAsInt(store, i);
+            if (i % 2 == 0) {
+                score.setAsDouble(store, i / 2.0);
+            }
+            stores.add(store);
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            PropBatch<PropStore> batch = new PropBatch<>(stores, pool);
+            int[] ranks = batch.getInts(rank, -1);
+            double[] scores = batch.getDoubles(score, Double.NaN);
+            String[] labels = new String[CONTEXT_COUNT];
+            batch.getFrom(label, labels);
+            Object[][] columns = batch.getFrom(definer.newGroup(Arrays.asList(rank, label, missing)));
+
+            for (int i = 0; i < CONTEXT_COUNT; i++) {
+                assertEquals(ranks[i], i);
+                assertEquals(scores[i], i % 2 == 0 ? i / 2.0 : Double.NaN);
+                assertEquals(labels[i], "rank " + i);
+                assertEquals(columns[0][i], i);
+                assertEquals(columns[1][i], "rank " + i);
+                assertNull(columns[2][i]);
+            }
+            // once per context, the group read the initialized values
+            assertEquals(initializations.get(), CONTEXT_COUNT);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testBatchWithinPool() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        Prop<PropStore, Long> checksum = definer.define("checksum", Long.class, store -> {
+            long sum = 0;
+            for (int i = 0; i < 1000; i++) {
+                sum += i * (long) store.hashCode();
+            }
+            return sum;
+        });
+        List<PropStore> stores = new ArrayList<>();
+        for (int i = 0; i < CONTEXT_COUNT; i++) {
+            stores.add(new PropStore());
+        }
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            Object[] checksums = pool.submit(() -> new PropBatch<>(stores, pool).getFrom(checksum)).join();
+            for (int i = 0; i < CONTEXT_COUNT; i++) {
+                assertEquals(checksums[i], 499500L * stores.get(i).hashCode());
+                assertEquals(checksum.getFrom(stores.get(i)), checksums[i]);
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
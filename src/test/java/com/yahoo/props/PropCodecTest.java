@@ -0,0 +1,172 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class PropCodecTest {
+    enum Region {
+        EU, US, ASIA
+    }
+
+    // the same props, defined on the sending and on the receiving side
+    private static class Schema<CONTEXT> {
+        final PropDefiner<CONTEXT>   definer;
+        final Prop<CONTEXT, String>  query;
+        final Prop<CONTEXT, Region>  region;
+        final IntProp<CONTEXT>       hits;
+        final Prop<CONTEXT, Long>    timeout;
+        final Prop<CONTEXT, Double>  boost;
+        final BooleanProp<CONTEXT>   trace;
+        final Prop<CONTEXT, Short>   shard;
+        final Prop<CONTEXT, String>  absent;
+
+        Schema(PropDefiner<CONTEXT> definer) {
+            this.definer = definer;
+            this.query = definer.define("query", String.class);
+            this.region = definer.define("region", Region.class);
+            this.hits = definer.defineInt("hits");
+            this.timeout = definer.define("timeout", Long.class);
+            this.boost = definer.define("boost", Double.class);
+            this.trace = definer.defineBoolean("trace");
+            this.shard = definer.define("shard", Short.class);
+            this.absent = definer.define("absent", String.class);
+        }
+    }
+
+    private static ByteBuffer encodeSample() {
+        Schema<PropStore> sender = new Schema<>(PropStore.newDefinerBuilder().build());
+        PropStore store = new PropStore();
+        sender.query.setTo(store, "blåbær 😀");
+        sender.region.setTo(store, Region.ASIA);
+        sender.hits.setAsInt(store, -300);
+        sender.timeout.setTo(store, Long.MIN_VALUE);
+        sender.boost.setTo(store, 0.25);
+        sender.trace.setAsBoolean(store, true);
+        sender.shard.setTo(store, (short) 7);
+        return sender.definer.newCodec().encode(store);
+    }
+
+    @Test
+    public void testLazyRoundTrip() {
+        ByteBuffer encoded = encodeSample();
+        Schema<PropBuffer> receiver = new Schema<>(PropBuffer.newDefinerBuilder().build());
+        PropBuffer buffer = new PropBuffer(receiver.definer.newCodec(), encoded);
+
+        assertEquals(receiver.query.getFrom(buffer), "blåbær 😀");
+        assertEquals(receiver.region.getFrom(buffer), Region.ASIA);
+        assertEquals(receiver.hits.getAsInt(buffer, 0), -300);
+        assertEquals(receiver.timeout.getFrom(buffer), (Long) Long.MIN_VALUE);
+        assertEquals(receiver.boost.getFrom(buffer), 0.25);
+        assertTrue(receiver.trace.getAsBoolean(buffer, false));
+        assertEquals(receiver.shard.getFrom(buffer), (Short) (short) 7);
+        assertNull(receiver.absent.getFrom(buffer));
+
+        receiver.query.setTo(buffer, "override");
+        receiver.region.setTo(buffer, null);
+        assertEquals(receiver.query.getFrom(buffer), "override");
+        assertNull(receiver.region.getFrom(buffer));
+        // the encoded buffer is untouched
+        assertEquals(encoded.position(), 0);
+    }
+
+    @Test
+    public void testEagerRoundTripFromDirectBuffer() {
+        ByteBuffer heap = encodeSample();
+        ByteBuffer direct = ByteBuffer.allocateDirect(heap.remaining());
+        direct.put(heap.duplicate()).flip();
+        Schema<PropStore> receiver = new Schema<>(PropStore.newDefinerBuilder().build());
+        PropStore store = new PropStore();
+
+        receiver.definer.newCodec().decode(direct, store);
+
+        assertEquals(receiver.query.getFrom(store), "blåbær 😀");
+        assertEquals(receiver.region.getFrom(store), Region.ASIA);
+        assertEquals(receiver.hits.getAsInt(store, 0), -300);
+        assertNull(receiver.absent.getFrom(store));
+    }
+
+    @Test
+    public void testEncodingIsCompact() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        IntProp<PropStore> small = definer.defineInt("small");
+        Prop<PropStore, Region> region = definer.define("region", Region.class);
+        PropStore store = new PropStore();
+        small.setAsInt(store, -1);
+        region.setTo(store, Region.US);
+
+        // fingerprint, count, then index and value bytes per prop
+        assertEquals(definer.newCodec().encode(store).remaining(), 4 + 1 + 2 + 2);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class,
+          expectedExceptionsMessageRegExp = "Encoded enum ordinal out of range for prop region: 5")
+    public void testEnumOrdinalOutOfRange() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        Prop<PropStore, Region> region = definer.define("region", Region.class);
+        PropStore store = new PropStore();
+        region.setTo(store, Region.US);
+        ByteBuffer encoded = definer.newCodec().encode(store);
+        // the ordinal is the last byte
+        encoded.put(encoded.limit() - 1, (byte) 5);
+
+        definer.newCodec().decode(encoded, new PropStore());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class,
+          expectedExceptionsMessageRegExp = "Encoded length out of range: -1 .*")
+    public void testNegativeStringLength() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        Prop<PropStore, String> query = definer.define("query", String.class);
+        PropStore store = new PropStore();
+        query.setTo(store, "ab");
+        ByteBuffer encoded = definer.newCodec().encode(store);
+        // the length is the byte before the two characters, replaced by a 10 byte varint of -1
+        ByteBuffer corrupted = ByteBuffer.allocate(encoded.limit() + 9);
+        for (int i = 0; i < encoded.limit() - 3; i++) {
+            corrupted.put(encoded.get(i));
+        }
+        for (int i = 0; i < 9; i++) {
+            corrupted.put((byte) 0xFF);
+        }
+        corrupted.put((byte) 0x01).put((byte) 'a').put((byte) 'b').flip();
+
+        definer.newCodec().decode(corrupted, new PropStore());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class,
+          expectedExceptionsMessageRegExp = "Encoded length out of range: 127 with 1 bytes remaining")
+    public void testEnumMaskWordCountOutOfRange() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        Prop<PropStore, EnumMask<Region>> regions = definer.defineEnumMask("regions", Region.class);
+        PropStore store = new PropStore();
+        regions.setTo(store, EnumMask.of(Region.US));
+        ByteBuffer encoded = definer.newCodec().encode(store);
+        // a single word follows its count
+        encoded.put(encoded.limit() - 2, (byte) 0x7F);
+
+        definer.newCodec().decode(encoded, new PropStore());
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class,
+          expectedExceptionsMessageRegExp = "Encoded props don't match.*")
+    public void testSchemaMismatch() {
+        ByteBuffer encoded = encodeSample();
+        PropDefiner<PropBuffer> definer = PropBuffer.newDefinerBuilder().build();
+        definer.define("query", String.class);
+        new PropBuffer(definer.newCodec(), encoded);
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class,
+          expectedExceptionsMessageRegExp = "Prop type not supported by codec: list .*")
+    public void testUnsupportedType() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        definer.define("list", List.class);
+        definer.newCodec();
+    }
+}
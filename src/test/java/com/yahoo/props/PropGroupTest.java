@@ -0,0 +1,118 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.Arrays;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class PropGroupTest {
+    private static final AtomicInteger BATCH_COUNT = new AtomicInteger();
+    private static final AtomicInteger GET_COUNT   = new AtomicInteger();
+
+    private static final PropDefiner<Properties> DEFINER = PropDefinerBuilder.newBuilder(Properties.class)
+            .setObjectGetter((props, key) -> {
+                GET_COUNT.incrementAndGet();
+                return props.get(key);
+            })
+            .setObjectSetter((props, key, value) -> props.put(key, value))
+            .setBatchGetter((props, names, ordinals, types, values) -> {
+                BATCH_COUNT.incrementAndGet();
+                for (int i = 0; i < names.length; i++) {
+                    values[i] = props.get(names[i]);
+                }
+            })
+            .build();
+
+    private static final Prop<Properties, String>  CNAME    = DEFINER.define("cname", String.class);
+    private static final Prop<Properties, Integer> PORT     = DEFINER.define("port", Integer.class);
+    private static final Prop<Properties, String>  ENV      = DEFINER.define("env", String.class);
+    private static final Prop<Properties, Integer> REPLICAS = DEFINER.define("replicas", Integer.class, props -> 3);
+
+    @Test
+    public void testGetFrom() {
+        Properties props = new Properties();
+        CNAME.setTo(props, "www.example.com");
+        PORT.setTo(props, 4080);
+        PropGroup<Properties> group = DEFINER.newGroup(Arrays.asList(PORT, REPLICAS, CNAME, ENV));
+        BATCH_COUNT.set(0);
+        GET_COUNT.set(0);
+
+        Object[] values = group.getFrom(props);
+
+        assertEquals(BATCH_COUNT.get(), 1);
+        // only the initialized prop reads on its own
+        assertEquals(GET_COUNT.get(), 1);
+        assertEquals(values.length, 4);
+        assertEquals(group.get(values, PORT).intValue(), 4080);
+        assertEquals(group.get(values, REPLICAS).intValue(), 3);
+        assertEquals(group.get(values, CNAME), "www.example.com");
+        assertNull(group.get(values, ENV));
+        assertEquals(group.indexOf(CNAME), 2);
+        assertEquals(REPLICAS.getFrom(props).intValue(), 3);
+    }
+
+    @Test
+    public void testBatchGetterDecodesByType() {
+        // a string-backed context decodes each value from the prop's type in the one batch call
+        PropDefiner<Properties> definer = PropDefinerBuilder.newBuilder(Properties.class)
+                .setObjectGetter(Properties::get)
+                .setObjectSetter((props, key, value) -> props.put(key, value))
+                .setBatchGetter((props, names, ordinals, types, values) -> {
+                    for (int i = 0; i < names.length; i++) {
+                        String raw = props.getProperty(names[i]);
+                        values[i] = raw == null || types[i] == String.class ? raw
+                                : types[i] == Integer.class ? (Object) Integer.valueOf(raw)
+                                : Boolean.valueOf(raw);
+                    }
+                })
+                .build();
+        Prop<Properties, String>  host    = definer.define("host", String.class);
+        Prop<Properties, Integer> port    = definer.define("port", Integer.class);
+        Prop<Properties, Boolean> secure  = definer.define("secure", Boolean.class);
+        Prop<Properties, Integer> timeout = definer.define("timeout", Integer.class);
+        Properties props = new Properties();
+        props.setProperty("host", "www.example.com");
+        props.setProperty("port", "4443");
+        props.setProperty("secure", "true");
+
+        PropGroup<Properties> group = definer.newGroup(Arrays.asList(host, port, secure, timeout));
+        Object[] values = group.getFrom(props);
+
+        assertEquals(group.get(values, host), "www.example.com");
+        assertEquals(group.get(values, port), Integer.valueOf(4443));
+        assertEquals(group.get(values, secure), Boolean.TRUE);
+        assertNull(group.get(values, timeout));
+    }
+
+    @Test
+    public void testPropStore() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        Prop<PropStore, String> name = definer.define("name", String.class);
+        IntProp<PropStore> count = definer.defineInt("count", store -> 7);
+        PropStore store = new PropStore();
+        name.setTo(store, "a");
+
+        PropGroup<PropStore> group = definer.newGroup(Arrays.asList(count, name));
+        Object[] values = new Object[group.size()];
+        group.getFrom(store, values);
+
+        assertEquals(values[0], 7);
+        assertEquals(values[1], "a");
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testDuplicateProp() {
+        DEFINER.newGroup(Arrays.asList(PORT, CNAME, PORT));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testForeignProp() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        definer.define("name", String.class);
+        PropStore.newDefinerBuilder().build().newGroup(definer.getProps());
+    }
+}
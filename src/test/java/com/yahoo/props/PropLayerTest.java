@@ -0,0 +1,110 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+
+public class PropLayerTest {
+
+    @Test
+    public void testForkReadsThroughAndOverrides() {
+        PropDefiner<PropLayer> definer = PropLayer.newDefinerBuilder().build();
+        Prop<PropLayer, String> region = definer.define("region", String.class);
+        Prop<PropLayer, String> query = definer.define("query", String.class);
+        IntProp<PropLayer> hits = definer.defineInt("hits");
+        PropLayer parent = new PropLayer();
+        region.setTo(parent, "eu");
+        query.setTo(parent, "shoes");
+        hits.setAsInt(parent, 10);
+
+        PropLayer child = parent.fork();
+        assertEquals(child.getOverrideCount(), 0);
+        assertEquals(region.getFrom(child), "eu");
+        assertEquals(hits.getAsInt(child, -1), 10);
+
+        region.setTo(child, "us");
+        query.setTo(child, null);
+        hits.setAsInt(child, 20);
+        assertEquals(child.getOverrideCount(), 3);
+        assertEquals(region.getFrom(child), "us");
+        assertNull(query.getFrom(child));
+        assertEquals(hits.getAsInt(child, -1), 20);
+
+        assertEquals(region.getFrom(parent), "eu");
+        assertEquals(query.getFrom(parent), "shoes");
+        assertEquals(hits.getAsInt(parent, -1), 10);
+
+        PropLayer grandchild = child.fork();
+        assertEquals(region.getFrom(grandchild), "us");
+        assertNull(query.getFrom(grandchild));
+        query.setTo(grandchild, "boots");
+        assertEquals(query.getFrom(grandchild), "boots");
+        assertNull(query.getFrom(child));
+    }
+
+    @Test
+    public void testOverridesGrowPastCapacity() {
+        PropDefiner<PropLayer> definer = PropLayer.newDefinerBuilder().build();
+        PropLayer parent = new PropLayer();
+        PropLayer child = parent.fork();
+        List<Prop<PropLayer, Integer>> props = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            props.add(definer.define("prop_" + i, Integer.class));
+            props.get(i).setTo(parent, i);
+        }
+        for (int i = 0; i < props.size(); i += 3) {
+            props.get(i).setTo(child, -i);
+        }
+        assertEquals(child.getOverrideCount(), 34);
+        for (int i = 0; i < props.size(); i++) {
+            assertEquals(props.get(i).getFrom(child), (Integer) (i % 3 == 0 ? -i : i));
+            assertEquals(props.get(i).getFrom(parent), (Integer) i);
+        }
+    }
+
+    @Test
+    public void testResetDependencyAcrossLayers() {
+        checkResetDependencyAcrossLayers(PropLayer.newDefinerBuilder().build());
+    }
+
+    @Test
+    public void testPushResetDependencyAcrossLayers() {
+        checkResetDependencyAcrossLayers(PropLayer.newDefinerBuilder().setPushInvalidation(true).build());
+    }
+
+    private static void checkResetDependencyAcrossLayers(PropDefiner<PropLayer> definer) {
+        AtomicInteger initCount = new AtomicInteger();
+        Prop<PropLayer, String> upstream = definer.define("upstream", String.class);
+        Prop<PropLayer, String> dependent = definer.define("dependent", String.class, layer -> {
+            initCount.incrementAndGet();
+            return upstream.getFrom(layer) + "!";
+        });
+        dependent.addResetDependency(upstream);
+        PropLayer parent = new PropLayer();
+        upstream.setTo(parent, "a");
+        assertEquals(dependent.getFrom(parent), "a!");
+
+        PropLayer child = parent.fork();
+        assertEquals(dependent.getFrom(child), "a!");
+        assertEquals(initCount.get(), 1);
+
+        upstream.setTo(child, "b");
+        assertEquals(dependent.getFrom(child), "b!");
+        assertEquals(dependent.getFrom(child), "b!");
+        assertEquals(dependent.getFrom(parent), "a!");
+        assertEquals(initCount.get(), 2);
+
+        // invalidated in the parent before forking
+        upstream.setTo(parent, "c");
+        PropLayer sibling = parent.fork();
+        assertEquals(dependent.getFrom(sibling), "c!");
+        assertEquals(dependent.getFrom(sibling), "c!");
+        assertEquals(initCount.get(), 3);
+        assertEquals(dependent.getFrom(parent), "c!");
+    }
+}
@@ -0,0 +1,91 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class PropMetricsTest {
+
+    @Test
+    public void testCounters() {
+        PropMetrics metrics = new PropMetrics();
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().setMetrics(metrics).build();
+        Prop<PropStore, String> upstream = definer.define("upstream", String.class);
+        Prop<PropStore, String> dependent = definer.define("dependent", String.class,
+                store -> upstream.getFrom(store, "none") + "!");
+        IntProp<PropStore> count = definer.defineInt("count");
+        dependent.addResetDependency(upstream);
+        PropStore store = new PropStore();
+
+        dependent.getFrom(store);
+        dependent.getFrom(store);
+        upstream.setTo(store, "a");
+        assertEquals(dependent.getFrom(store), "a!");
+        count.setAsInt(store, 3);
+        assertEquals(count.getAsInt(store), 3);
+
+        Map<String, PropMetrics.Snapshot> snapshots = metrics.snapshot().stream()
+                .collect(Collectors.toMap(PropMetrics.Snapshot::getName, snapshot -> snapshot));
+        PropMetrics.Snapshot upstreamMetrics = snapshots.get("upstream");
+        PropMetrics.Snapshot dependentMetrics = snapshots.get("dependent");
+
+        // read by the initializer and by the reset dependency on every dependent set and check
+        assertEquals(upstreamMetrics.getGets(), 7);
+        assertEquals(upstreamMetrics.getSubstitutions(), 3);
+        assertEquals(upstreamMetrics.getSets(), 1);
+        assertEquals(dependentMetrics.getGets(), 3);
+        assertEquals(dependentMetrics.getInitializations(), 2);
+        assertEquals(dependentMetrics.getResets(), 1);
+        // the reset clears the stale value without counting a set
+        assertEquals(dependentMetrics.getSets(), 0);
+        assertTrue(dependentMetrics.getInitNanosTotal() > 0);
+        assertTrue(dependentMetrics.getInitNanosP99() >= dependentMetrics.getInitNanosMedian());
+        assertTrue(dependentMetrics.getInitNanosMedian() > 0);
+        assertEquals(snapshots.get("count").getSets(), 1);
+        assertEquals(snapshots.get("count").getGets(), 1);
+    }
+
+    @Test
+    public void testMBean() throws Exception {
+        PropMetrics metrics = new PropMetrics();
+        Prop<PropStore, String> prop = PropStore.newDefinerBuilder().setMetrics(metrics).build()
+                .define("prop", String.class);
+        prop.getFrom(new PropStore());
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+
+        ObjectName name = metrics.registerMBean("com.yahoo.props:type=PropMetrics,name=test");
+        try {
+            CompositeData[] props = (CompositeData[]) server.getAttribute(name, "Props");
+            assertEquals(props.length, 1);
+            assertEquals(props[0].get("name"), "prop");
+            assertEquals(props[0].get("gets"), 1L);
+        } finally {
+            server.unregisterMBean(name);
+        }
+    }
+
+    @Test
+    public void testPercentiles() {
+        PropMetrics metrics = new PropMetrics();
+        PropCounters counters = metrics.register("prop");
+        for (int i = 0; i < 99; i++) {
+            counters.recordInitialization(1000);
+        }
+        counters.recordInitialization(1_000_000);
+
+        List<PropMetrics.Snapshot> snapshots = metrics.snapshot();
+
+        assertEquals(snapshots.get(0).getInitNanosMedian(), 1023);
+        assertEquals(snapshots.get(0).getInitNanosP99(), 1023);
+        assertEquals(snapshots.get(0).getInitNanosPercentile(100), (1 << 20) - 1);
+    }
+}
@@ -0,0 +1,60 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class PropSnapshotTest {
+
+    @Test
+    public void testSnapshot() throws Exception {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        Prop<PropStore, String> cname = definer.define("cname", String.class);
+        IntProp<PropStore> port = definer.defineInt("port", store -> 4080);
+        Prop<PropStore, String> env = definer.define("env", String.class);
+        PropStore store = new PropStore();
+        cname.setTo(store, "www.example.com");
+
+        PropSnapshot<PropStore> snapshot = definer.snapshot(store);
+        cname.setTo(store, "changed");
+
+        assertEquals(snapshot.get(cname), "www.example.com");
+        assertEquals(snapshot.getInt(port, -1), 4080);
+        assertNull(snapshot.get(env));
+        assertEquals(snapshot.get(env, "prod"), "prod");
+        assertEquals(CompletableFuture.supplyAsync(() -> snapshot.get(cname)).get(), "www.example.com");
+
+        Prop<PropStore, String> late = definer.define("late", String.class);
+        assertFalse(snapshot.contains(late));
+        assertTrue(definer.snapshot(store).contains(late));
+    }
+
+    @Test
+    public void testGroupSnapshot() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        Prop<PropStore, String> cname = definer.define("cname", String.class);
+        Prop<PropStore, String> env = definer.define("env", String.class);
+        PropStore store = new PropStore();
+        env.setTo(store, "prod");
+
+        PropSnapshot<PropStore> snapshot = definer.newGroup(Collections.singletonList(env)).snapshot(store);
+
+        assertEquals(snapshot.get(env), "prod");
+        assertFalse(snapshot.contains(cname));
+    }
+
+    @Test(expectedExceptions = IllegalArgumentException.class)
+    public void testPropNotInSnapshot() {
+        PropDefiner<PropStore> definer = PropStore.newDefinerBuilder().build();
+        Prop<PropStore, String> cname = definer.define("cname", String.class);
+        Prop<PropStore, String> env = definer.define("env", String.class);
+
+        definer.newGroup(Collections.singletonList(env)).snapshot(new PropStore()).get(cname);
+    }
+}
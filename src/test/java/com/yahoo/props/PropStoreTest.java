@@ -0,0 +1,45 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class PropStoreTest {
+    private static final PropDefiner<PropStore> DEFINER = PropStore.newDefinerBuilder().build();
+
+    private static final Prop<PropStore, String>  USER         = DEFINER.define("user", String.class);
+    private static final Prop<PropStore, Integer> CREDIT_SCORE = DEFINER.define("credit_score", Integer.class,
+            store -> 600);
+    private static final Prop<PropStore, Boolean> APPROVED     = DEFINER.define("approved", Boolean.class,
+            store -> CREDIT_SCORE.getFrom(store) >= 700)
+            .addResetDependency(CREDIT_SCORE);
+
+    @Test
+    public void testOrdinals() {
+        assertEquals(USER.getOrdinal(), 0);
+        assertEquals(CREDIT_SCORE.getOrdinal(), 1);
+        assertEquals(APPROVED.getOrdinal(), 2);
+        assertEquals(DEFINER.getProps().size(), 3);
+        assertEquals(DEFINER.getProps().get(2), APPROVED);
+    }
+
+    @Test
+    public void testSlots() {
+        PropStore store = new PropStore();
+        assertTrue(USER.isAbsent(store));
+        assertNull(store.get(USER.getOrdinal()));
+
+        USER.setTo(store, "jane");
+        assertEquals(USER.getFrom(store), "jane");
+        assertEquals(store.get(USER.getOrdinal()), "jane");
+
+        assertEquals(APPROVED.getFrom(store), Boolean.FALSE);
+        CREDIT_SCORE.setTo(store, 720);
+        assertEquals(APPROVED.getFrom(store), Boolean.TRUE);
+
+        USER.setTo(store, null);
+        assertTrue(USER.isAbsent(store));
+    }
+}
@@ -0,0 +1,152 @@
+package com.yahoo.props;
+
+import com.google.common.reflect.TypeToken;
+import com.yahoo.props.PropTable.Row;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class PropTableTest {
+    private enum Tier {
+        FREE, PRO, ENTERPRISE
+    }
+
+    private static final PropDefiner<Row> DEFINER = PropTable.newDefinerBuilder().build();
+
+    private static final Prop<Row, String>         USER      = DEFINER.define("user", String.class);
+    private static final IntProp<Row>              VISITS    = DEFINER.defineInt("visits");
+    private static final LongProp<Row>             LAST_SEEN = DEFINER.defineLong("last_seen");
+    private static final DoubleProp<Row>           SCORE     = DEFINER.defineDouble("score", row -> 0.5);
+    private static final BooleanProp<Row>          ACTIVE    = DEFINER.defineBoolean("active");
+    private static final Prop<Row, Tier>           TIER      = DEFINER.define("tier", Tier.class);
+    private static final Prop<Row, EnumMask<Tier>> TRIALS    = DEFINER.defineEnumMask("trials", Tier.class);
+    private static final Prop<Row, List<String>>   HISTORY   = DEFINER.define("history",
+            new TypeToken<List<String>>() {});
+    private static final Prop<Row, String>         GREETING  = DEFINER.define("greeting", String.class,
+            row -> "hello " + USER.getFrom(row))
+            .addResetDependency(USER);
+
+    private static final PropTable TABLE = new PropTable(DEFINER, 4);
+
+    // defined after the table, kept on-heap
+    private static final Prop<Row, String> LATE = DEFINER.define("late", String.class);
+
+    @Test
+    public void testColumns() {
+        Row row = TABLE.allocate();
+        assertNull(USER.getFrom(row));
+        assertEquals(VISITS.getAsInt(row, -1), -1);
+        assertTrue(ACTIVE.isAbsent(row));
+
+        USER.setTo(row, "jane");
+        VISITS.setAsInt(row, 3);
+        LAST_SEEN.setAsLong(row, 1L << 40);
+        ACTIVE.setAsBoolean(row, true);
+        TIER.setTo(row, Tier.PRO);
+        TRIALS.setTo(row, EnumMask.of(Tier.PRO, Tier.ENTERPRISE));
+        HISTORY.setTo(row, Arrays.asList("a", "b"));
+        LATE.setTo(row, "late");
+
+        assertEquals(USER.getFrom(row), "jane");
+        assertEquals(VISITS.getFrom(row).intValue(), 3);
+        assertEquals(LAST_SEEN.getAsLong(row, 0), 1L << 40);
+        assertEquals(SCORE.getAsDouble(row, 0), 0.5);
+        assertTrue(ACTIVE.getAsBoolean(row, false));
+        assertEquals(TIER.getFrom(row), Tier.PRO);
+        assertEquals(TRIALS.getFrom(row), EnumMask.of(Tier.PRO, Tier.ENTERPRISE));
+        assertEquals(HISTORY.getFrom(row), Arrays.asList("a", "b"));
+        assertEquals(LATE.getFrom(row), "late");
+        assertEquals(GREETING.getFrom(row), "hello jane");
+
+        USER.setTo(row, "joe");
+        TIER.setTo(row, null);
+
+        assertEquals(GREETING.getFrom(row), "hello joe");
+        assertNull(TIER.getFrom(row));
+        TABLE.free(row);
+    }
+
+    @Test
+    public void testFreeAndReuse() {
+        PropTable table = new PropTable(DEFINER, 2);
+        List<Row> rows = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Row row = table.allocate();
+            USER.setTo(row, "user" + i);
+            VISITS.setAsInt(row, i);
+            rows.add(row);
+        }
+        assertEquals(table.size(), 10);
+        assertTrue(table.capacity() >= 10);
+
+        Row freed = rows.get(3);
+        table.free(freed);
+        Row reused = table.allocate();
+
+        assertTrue(freed.isFreed());
+        assertFalse(reused.isFreed());
+        assertEquals(reused.getIndex(), freed.getIndex());
+        assertNull(USER.getFrom(reused));
+        assertEquals(VISITS.getAsInt(reused, -1), -1);
+        for (int i = 0; i < 10; i++) {
+            if (i != 3) {
+                assertEquals(USER.getFrom(rows.get(i)), "user" + i);
+                assertEquals(VISITS.getAsInt(rows.get(i), -1), i);
+            }
+        }
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testFreedRowThrows() {
+        Row row = TABLE.allocate();
+        TABLE.free(row);
+        USER.getFrom(row);
+    }
+
+    @Test
+    public void testEmptyString() {
+        Row row = TABLE.allocate();
+
+        USER.setTo(row, "");
+        assertEquals(USER.getFrom(row), "");
+        USER.setTo(row, "jane");
+        USER.setTo(row, "");
+        assertEquals(USER.getFrom(row), "");
+        TABLE.free(row);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testFreedRowNamedValueThrows() {
+        Row row = TABLE.allocate();
+        TABLE.free(row);
+        row.get("late");
+    }
+
+    @Test
+    public void testStringsSurviveCompaction() {
+        PropTable table = new PropTable(DEFINER, 16);
+        Row[] rows = new Row[16];
+        for (int i = 0; i < rows.length; i++) {
+            rows[i] = table.allocate();
+        }
+        // rewrites with growing strings leave garbage behind until compacted
+        for (int round = 0; round < 2000; round++) {
+            for (int i = 0; i < rows.length; i++) {
+                USER.setTo(rows[i], "user " + i + " round " + round + " ünïcode");
+            }
+        }
+        long bytes = table.getOffHeapBytes();
+
+        for (int i = 0; i < rows.length; i++) {
+            assertEquals(USER.getFrom(rows[i]), "user " + i + " round 1999 ünïcode");
+        }
+        assertTrue(bytes < 1 << 22, "strings region not compacted: " + bytes);
+    }
+}
@@ -0,0 +1,80 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class PropVariantsTest {
+    enum Color {
+        RED, GREEN
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static PropDefinerBuilder<Map<String, Object>> newBuilder() {
+        PropDefinerBuilder<Map<String, Object>> builder = PropDefinerBuilder.newBuilder((Class) Map.class);
+        return builder
+                .setObjectGetter((map, name) -> map.get(name))
+                .setObjectSetter((map, name, value) -> map.put(name, value))
+                .setTypeGetter(TypeFilter.ENUM, (map, type, name) -> Utils.resolveEnumValue(type, map.get(name)))
+                .setTypeSetter(TypeFilter.ENUM, (map, type, name, value) -> map.put(name, value.toString()));
+    }
+
+    @Test
+    public void testWithoutEventHandlers() {
+        PropDefiner<Map<String, Object>> definer = newBuilder().build();
+        Prop<Map<String, Object>, Color> color = definer.define("color", Color.class);
+        Prop<Map<String, Object>, Integer> score = definer.define("score", Integer.class);
+        Prop<Map<String, Object>, Boolean> approved = definer.define("approved", Boolean.class,
+                map -> score.getFrom(map, 0) >= 700)
+                .addResetDependency(score);
+        Map<String, Object> map = new HashMap<>();
+
+        // comprehensive setter and getter bound to the enum type
+        color.setTo(map, Color.GREEN);
+        assertEquals(map.get("color"), "GREEN");
+        assertEquals(color.getFrom(map), Color.GREEN);
+
+        assertNull(score.getFrom(map));
+        assertEquals(score.getFrom(map, 1).intValue(), 1);
+        assertEquals(approved.getFrom(map), Boolean.FALSE);
+        score.setTo(map, 720);
+        assertEquals(approved.getFrom(map), Boolean.TRUE);
+
+        // initializer added to a plain prop after define()
+        score.overrideDefaultInitializer(m -> 500);
+        map.remove("score");
+        assertEquals(score.getFrom(map).intValue(), 500);
+        assertEquals(approved.getFrom(map), Boolean.FALSE);
+
+        // initializer removed from an initialized prop
+        approved.overrideDefaultInitializer(null);
+        map.remove("approved");
+        assertTrue(approved.isAbsent(map));
+    }
+
+    @Test
+    public void testWithEventHandlers() {
+        List<String> events = new ArrayList<>();
+        PropDefiner<Map<String, Object>> definer = newBuilder()
+                .setAfterInitEventHandler((map, name, value) -> events.add("init:" + name + "=" + value))
+                .setAfterGetEventHandler((map, name, value) -> events.add("get:" + name + "=" + value))
+                .setAfterSetEventHandler((map, name, value) -> events.add("set:" + name + "=" + value))
+                .build();
+        Prop<Map<String, Object>, Integer> score = definer.define("score", Integer.class, map -> 600);
+        Map<String, Object> map = new HashMap<>();
+
+        assertEquals(score.getFrom(map).intValue(), 600);
+        score.setTo(map, 700);
+        assertEquals(events.size(), 3);
+        assertEquals(events.get(0), "init:score=600");
+        assertEquals(events.get(1), "get:score=600");
+        assertEquals(events.get(2), "set:score=700");
+    }
+}
@@ -0,0 +1,164 @@
+package com.yahoo.props;
+
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertSame;
+
+public class ReloadableContextTest {
+
+    private static PropDefinerBuilder<Properties> newBuilder() {
+        return PropDefinerBuilder.newBuilder(Properties.class)
+                .setObjectGetter((props, key) -> props.get(key))
+                .setObjectSetter((props, key, value) -> {
+                    if (value == null) {
+                        props.remove(key);
+                    } else {
+                        props.put(key, value);
+                    }
+                });
+    }
+
+    private static Properties config(String replicas, int port) {
+        Properties config = new Properties();
+        config.put("replicas", replicas);
+        config.put("port", port);
+        return config;
+    }
+
+    @Test
+    public void testDerivedPropsCarryOverUnlessDependenciesChanged() {
+        checkCarryOver(newBuilder().build());
+    }
+
+    @Test
+    public void testDerivedPropsCarryOverWithPushInvalidation() {
+        checkCarryOver(newBuilder().setPushInvalidation(true).build());
+    }
+
+    private static void checkCarryOver(PropDefiner<Properties> definer) {
+        AtomicInteger availabilityInits = new AtomicInteger();
+        AtomicInteger labelInits = new AtomicInteger();
+        Prop<Properties, String> replicas = definer.define("replicas", String.class);
+        Prop<Properties, Integer> port = definer.define("port", Integer.class);
+        // defined before its upstream availability to exercise dependency order
+        Prop<Properties, String> label = definer.define("label", String.class);
+        Prop<Properties, Double> availability = definer.define("availability", Double.class, config -> {
+            availabilityInits.incrementAndGet();
+            return replicas.getFrom(config).split(",").length / 10.0;
+        }).addResetDependency(replicas);
+        label.overrideDefaultInitializer(config -> {
+            labelInits.incrementAndGet();
+            return "availability " + availability.getFrom(config);
+        });
+        label.addResetDependency(availability);
+
+        ReloadableContext<Properties> holder = definer.newReloadable(config("bf1,ne1", 4080));
+        assertEquals(label.getFrom(holder.get()), "availability 0.2");
+
+        // only port changed
+        Properties second = config("bf1,ne1", 4443);
+        assertEquals(holder.reload(second), Collections.emptyList());
+        assertSame(holder.get(), second);
+        assertEquals(port.getFrom(holder.get()), (Integer) 4443);
+        assertEquals(label.getFrom(holder.get()), "availability 0.2");
+        assertEquals(availabilityInits.get(), 1);
+        assertEquals(labelInits.get(), 1);
+
+        // replicas changed
+        assertEquals(holder.reload(config("bf1,ne1,gq1", 4443)).size(), 2);
+        assertEquals(label.getFrom(holder.get()), "availability 0.3");
+        assertEquals(availabilityInits.get(), 2);
+        assertEquals(labelInits.get(), 2);
+
+        // the carried over value is still reset by later sets
+        replicas.setTo(holder.get(), "bf1");
+        assertEquals(label.getFrom(holder.get()), "availability 0.1");
+    }
+
+    @Test
+    public void testNextVersionKeepsItsOwnDerivedValues() {
+        PropDefiner<Properties> definer = newBuilder().build();
+        Prop<Properties, String> replicas = definer.define("replicas", String.class);
+        Prop<Properties, Double> availability = definer.define("availability", Double.class,
+                config -> replicas.getFrom(config).split(",").length / 10.0)
+                .addResetDependency(replicas);
+
+        ReloadableContext<Properties> holder = definer.newReloadable(config("bf1,ne1", 4080));
+        assertEquals(availability.getFrom(holder.get()), 0.2);
+
+        Properties next = config("bf1,ne1", 4080);
+        availability.setTo(next, 0.99);
+        holder.reload(next);
+        assertEquals(availability.getFrom(holder.get()), 0.99);
+    }
+
+    @Test
+    public void testReloadDoesntInitializeThePreviousVersion() {
+        PropDefiner<Properties> definer = newBuilder().build();
+        AtomicInteger availabilityInits = new AtomicInteger();
+        Prop<Properties, String> replicas = definer.define("replicas", String.class);
+        Prop<Properties, Double> availability = definer.define("availability", Double.class, config -> {
+            availabilityInits.incrementAndGet();
+            return replicas.getFrom(config).split(",").length / 10.0;
+        }).addResetDependency(replicas);
+        Prop<Properties, String> label = definer.define("label", String.class,
+                config -> "availability " + availability.getFrom(config))
+                .addResetDependency(availability);
+        ReloadableContext<Properties> holder = definer.newReloadable(config("bf1,ne1", 4080));
+        assertEquals(label.getFrom(holder.get()), "availability 0.2");
+
+        // leaves availability to be recomputed in the previous version
+        replicas.setTo(holder.get(), "bf1");
+
+        assertEquals(holder.reload(config("bf1", 4080)), Arrays.asList(availability, label));
+        assertEquals(availabilityInits.get(), 1);
+        assertEquals(label.getFrom(holder.get()), "availability 0.1");
+        assertEquals(availabilityInits.get(), 2);
+    }
+
+    @Test
+    public void testReloadDoesntInitializeThePreviousVersionWithPushInvalidation() {
+        PropDefiner<Properties> definer = newBuilder().setPushInvalidation(true).build();
+        AtomicInteger availabilityInits = new AtomicInteger();
+        Prop<Properties, String> replicas = definer.define("replicas", String.class);
+        Prop<Properties, Double> availability = definer.define("availability", Double.class, config -> {
+            availabilityInits.incrementAndGet();
+            return replicas.getFrom(config).split(",").length / 10.0;
+        }).addResetDependency(replicas);
+        Prop<Properties, String> label = definer.define("label", String.class,
+                config -> "availability " + availability.getFrom(config))
+                .addResetDependency(availability);
+        ReloadableContext<Properties> holder = definer.newReloadable(config("bf1,ne1", 4080));
+        // availability is never initialized in the previous version
+        label.setTo(holder.get(), "custom");
+
+        assertEquals(holder.reload(config("bf1", 4080)), Collections.singletonList(label));
+        assertEquals(availabilityInits.get(), 0);
+        assertEquals(label.getFrom(holder.get()), "availability 0.1");
+    }
+
+    @Test
+    public void testListenersSeeThePublishedVersion() {
+        PropDefiner<Properties> definer = newBuilder().build();
+        Prop<Properties, String> replicas = definer.define("replicas", String.class);
+        Prop<Properties, Double> availability = definer.define("availability", Double.class,
+                config -> replicas.getFrom(config).split(",").length / 10.0)
+                .addResetDependency(replicas);
+        ReloadableContext<Properties> holder = definer.newReloadable(config("bf1,ne1", 4080));
+        assertEquals(availability.getFrom(holder.get()), 0.2);
+        List<Boolean> published = new ArrayList<>();
+        definer.onChange(availability, (config, oldValue, newValue) -> published.add(holder.get() == config));
+
+        holder.reload(config("bf1,ne1", 4443));
+
+        assertEquals(published, Collections.singletonList(true));
+    }
+}